@@ -0,0 +1,96 @@
+package com.example.logcollector.benchmark;
+
+import com.example.logcollector.cache.impl.StripedLogCache;
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.file.DecompressedFileCache;
+import com.example.logcollector.file.LogFileCatalog;
+import com.example.logcollector.index.LineIndexManager;
+import com.example.logcollector.index.TokenIndexManager;
+import com.example.logcollector.metrics.LogMetrics;
+import com.example.logcollector.model.logs.ListEntriesRequest;
+import com.example.logcollector.service.LogService;
+import com.example.logcollector.service.MultiFileSearcher;
+import com.example.logcollector.service.ParallelLogSearcher;
+import com.example.logcollector.service.parse.LineParsers;
+import com.example.logcollector.service.query.QueryCompiler;
+import com.example.logcollector.service.tail.TailFollower;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * A generated log file in a temporary directory and a {@link LogService} reading it. The service never caches,
+ * so every benchmark invocation scans the file.
+ */
+class BenchmarkLogs implements AutoCloseable {
+    static final String FILE_NAME = "syslog";
+
+    private final Path directory;
+    private final LineIndexManager lineIndexManager = new LineIndexManager();
+    private final TokenIndexManager tokenIndexManager;
+    private final ParallelLogSearcher parallelLogSearcher = new ParallelLogSearcher();
+    private final TailFollower tailFollower = new TailFollower();
+    private final DecompressedFileCache decompressedFileCache = new DecompressedFileCache();
+    private final LogService logService;
+    private final boolean tokenIndex;
+    private final long lineCount;
+
+    BenchmarkLogs(SyntheticLogGenerator generator, boolean tokenIndex) throws IOException {
+        directory = Files.createTempDirectory("log-collector-benchmark");
+        lineCount = generator.writeTo(directory.resolve(FILE_NAME));
+        this.tokenIndex = tokenIndex;
+        tokenIndexManager = new TokenIndexManager(tokenIndex, null, Constants.TOKEN_INDEX_BLOCK_SIZE,
+                Constants.TOKEN_INDEX_BLOOM_BITS, Constants.TOKEN_INDEX_MIN_FILE_SIZE);
+        StripedLogCache neverCached = new StripedLogCache(Constants.MAX_CACHE_BYTES, Constants.CACHE_STRIPES) {
+            @Override
+            public boolean isCacheable(ListEntriesRequest request) {
+                return false;
+            }
+        };
+        logService = new LogService(neverCached, lineIndexManager, tokenIndexManager, parallelLogSearcher,
+                new QueryCompiler(), new LineParsers(), tailFollower, decompressedFileCache, new MultiFileSearcher(),
+                new LogMetrics(new SimpleMeterRegistry()), new LogFileCatalog(directory.toString()), Constants.DEFAULT_MAX_SCAN_BYTES);
+    }
+
+    LogService logService() {
+        return logService;
+    }
+
+    long lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Waits for the background indexes a request scheduled, so the measurements see the steady state.
+     */
+    void awaitIndexes(String searchTerm, long offset) throws IOException, InterruptedException {
+        File file = directory.resolve(FILE_NAME).toFile();
+        boolean indexesTerm = tokenIndex && searchTerm != null && file.length() >= Constants.TOKEN_INDEX_MIN_FILE_SIZE;
+        for (int attempt = 0; attempt < 600; attempt++) {
+            boolean lineIndexed = offset < Constants.LINE_INDEX_INTERVAL || lineIndexManager.seekPoint(file, offset).isPresent();
+            boolean tokenIndexed = !indexesTerm || tokenIndexManager.scanRanges(file, searchTerm, file.length()).isPresent();
+            if (lineIndexed && tokenIndexed) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lineIndexManager.shutdown();
+        tokenIndexManager.shutdown();
+        parallelLogSearcher.shutdown();
+        decompressedFileCache.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.logcollector.benchmark;
+
+import com.example.logcollector.cache.impl.StripedLogCache;
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent gets and puts on the response cache, six readers against two writers, over more keys than fit in
+ * the byte budget so puts keep evicting.
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+    @Param("4096")
+    public int keyCount;
+
+    @Param("100")
+    public int linesPerResponse;
+
+    private StripedLogCache cache;
+    private String[] keys;
+    private ListEntriesResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new StripedLogCache(Constants.MAX_CACHE_BYTES, Constants.CACHE_STRIPES);
+        List<String> logs = new ArrayList<>(linesPerResponse);
+        for (int i = 0; i < linesPerResponse; i++) {
+            logs.add("Mar  1 00:00:00 host-01 sshd[1234]: Accepted publickey for user from 10.0.0." + i + " port 51234 ssh2");
+        }
+        response = ListEntriesResponse.builder().logs(logs).offset(0L).limit(linesPerResponse).hasMore(true).build();
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "syslog|error|" + i + "|" + linesPerResponse;
+            cache.put(keys[i], response);
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public ListEntriesResponse get() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void put() {
+        cache.put(keys[ThreadLocalRandom.current().nextInt(keys.length)], response);
+    }
+}
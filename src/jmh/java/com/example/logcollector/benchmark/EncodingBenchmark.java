@@ -0,0 +1,145 @@
+package com.example.logcollector.benchmark;
+
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.example.logcollector.service.stream.FrontCodedLineWriter;
+import com.example.logcollector.service.stream.LineWriter;
+import com.example.logcollector.service.stream.NdjsonLineWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializing one page of lines in each response encoding, with and without gzip, into a stream that only
+ * counts bytes. The page is held in memory so only encoding is measured; run with {@code -prof gc} to compare
+ * allocations as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingBenchmark {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final ObjectMapper CBOR = new CBORMapper();
+
+    @Param("1000")
+    public int pageSize;
+
+    @Param("120")
+    public int meanLineLength;
+
+    private ListEntriesResponse page;
+    private ByteBuffer buffer;
+    private int[] lineEnds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SyntheticLogGenerator((long) pageSize * meanLineLength * 2, meanLineLength, 0.0001, 42).writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        List<String> logs = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            logs.add(lines[i]);
+        }
+        page = ListEntriesResponse.builder().logs(logs).offset(0L).limit(pageSize).hasMore(true).nextOffset((long) pageSize).build();
+        byte[] bytes = String.join("\n", logs).concat("\n").getBytes(StandardCharsets.UTF_8);
+        buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        lineEnds = new int[pageSize];
+        for (int i = 0, line = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                lineEnds[line++] = i;
+            }
+        }
+    }
+
+    @Benchmark
+    public long json() throws IOException {
+        CountingStream out = new CountingStream();
+        JSON.writeValue(out, page);
+        return out.count;
+    }
+
+    @Benchmark
+    public long jsonGzip() throws IOException {
+        CountingStream out = new CountingStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            JSON.writeValue(gzip, page);
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long cbor() throws IOException {
+        CountingStream out = new CountingStream();
+        CBOR.writeValue(out, page);
+        return out.count;
+    }
+
+    @Benchmark
+    public long ndjson() throws IOException {
+        CountingStream out = new CountingStream();
+        return stream(new NdjsonLineWriter(out, 64 * 1024), out);
+    }
+
+    @Benchmark
+    public long frontCoded() throws IOException {
+        CountingStream out = new CountingStream();
+        return stream(new FrontCodedLineWriter(out, 64 * 1024), out);
+    }
+
+    @Benchmark
+    public long frontCodedGzip() throws IOException {
+        CountingStream out = new CountingStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            stream(new FrontCodedLineWriter(gzip, 64 * 1024), out);
+        }
+        return out.count;
+    }
+
+    private long stream(LineWriter writer, CountingStream out) throws IOException {
+        int start = 0;
+        for (int end : lineEnds) {
+            writer.writeLine(buffer, start, end);
+            start = end + 1;
+        }
+        writer.writeTrailer(ListEntriesResponse.builder().hasMore(true).nextOffset((long) pageSize).build());
+        writer.flush();
+        return out.count;
+    }
+
+    private static class CountingStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            count += length;
+        }
+    }
+}
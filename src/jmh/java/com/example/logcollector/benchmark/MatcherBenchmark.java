@@ -0,0 +1,95 @@
+package com.example.logcollector.benchmark;
+
+import com.example.logcollector.service.matcher.LineMatcher;
+import com.example.logcollector.service.query.QueryCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The line matchers on their own, over 16MB of generated lines held in memory so no I/O is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatcherBenchmark {
+    @Param("120")
+    public int meanLineLength;
+
+    @Param("0.0001")
+    public double matchDensity;
+
+    private ByteBuffer buffer;
+    private int[] lineEnds;
+    private LineMatcher rareTerm;
+    private LineMatcher commonTerm;
+    private LineMatcher query;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SyntheticLogGenerator(16L * 1024 * 1024, meanLineLength, matchDensity, 42).writeTo(out);
+        byte[] bytes = out.toByteArray();
+        buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        int[] ends = new int[1024];
+        int count = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                if (count == ends.length) {
+                    ends = Arrays.copyOf(ends, ends.length * 2);
+                }
+                ends[count++] = i;
+            }
+        }
+        lineEnds = Arrays.copyOf(ends, count);
+        QueryCompiler compiler = new QueryCompiler();
+        rareTerm = compiler.compile(SyntheticLogGenerator.RARE_TERM, null);
+        commonTerm = compiler.compile(SyntheticLogGenerator.COMMON_TERM, null);
+        query = compiler.compile(null, "sshd AND NOT (cron OR \"lazy dog\")");
+    }
+
+    @Benchmark
+    public int rareTerm() {
+        return countMatches(rareTerm);
+    }
+
+    @Benchmark
+    public int commonTerm() {
+        return countMatches(commonTerm);
+    }
+
+    @Benchmark
+    public int booleanQuery() {
+        return countMatches(query);
+    }
+
+    private int countMatches(LineMatcher matcher) {
+        int matches = 0;
+        int start = 0;
+        for (int end : lineEnds) {
+            if (matcher.matches(buffer, start, end)) {
+                matches++;
+            }
+            start = end + 1;
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.logcollector.benchmark;
+
+import com.example.logcollector.model.logs.ListEntriesRequest;
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.example.logcollector.util.Deadline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unfiltered reads: the newest page of a file, and a page deep into it that the line index seeks to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanBenchmark {
+    @Param("1024")
+    public int fileSizeMb;
+
+    @Param("120")
+    public int meanLineLength;
+
+    @Param("1000000")
+    public long deepOffset;
+
+    private BenchmarkLogs logs;
+    private ListEntriesRequest tailRequest;
+    private ListEntriesRequest deepRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        logs = new BenchmarkLogs(new SyntheticLogGenerator(fileSizeMb * 1024L * 1024, meanLineLength, 0, 42), false);
+        long offset = Math.min(deepOffset, logs.lineCount() - 100);
+        tailRequest = ListEntriesRequest.builder().fileName(BenchmarkLogs.FILE_NAME).limit(100).build();
+        deepRequest = ListEntriesRequest.builder().fileName(BenchmarkLogs.FILE_NAME).limit(100).offset(offset).build();
+        logs.awaitIndexes(null, offset);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        logs.close();
+    }
+
+    @Benchmark
+    public ListEntriesResponse tailRead() throws IOException, InterruptedException {
+        return logs.logService().listLogEntries(tailRequest, "benchmark", Deadline.none());
+    }
+
+    @Benchmark
+    public ListEntriesResponse deepOffset() throws IOException, InterruptedException {
+        return logs.logService().listLogEntries(deepRequest, "benchmark", Deadline.none());
+    }
+}
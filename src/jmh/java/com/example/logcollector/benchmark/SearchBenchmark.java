@@ -0,0 +1,74 @@
+package com.example.logcollector.benchmark;
+
+import com.example.logcollector.model.logs.ListEntriesRequest;
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.example.logcollector.util.Deadline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Term searches through the whole request path. A rare term has to scan the file end to end for a full page
+ * unless the token index rules blocks out, a common term fills its page from the newest few lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+    @Param("1024")
+    public int fileSizeMb;
+
+    @Param("120")
+    public int meanLineLength;
+
+    // the token index only pays off for terms rarer than one per block
+    @Param({"0.0001", "0.000001"})
+    public double matchDensity;
+
+    @Param({"false", "true"})
+    public boolean tokenIndex;
+
+    private BenchmarkLogs logs;
+    private ListEntriesRequest rareRequest;
+    private ListEntriesRequest commonRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        logs = new BenchmarkLogs(new SyntheticLogGenerator(fileSizeMb * 1024L * 1024, meanLineLength, matchDensity, 42), tokenIndex);
+        rareRequest = ListEntriesRequest.builder().fileName(BenchmarkLogs.FILE_NAME).searchTerm(SyntheticLogGenerator.RARE_TERM).limit(1000).build();
+        commonRequest = ListEntriesRequest.builder().fileName(BenchmarkLogs.FILE_NAME).searchTerm(SyntheticLogGenerator.COMMON_TERM).limit(100).build();
+        logs.logService().listLogEntries(rareRequest, "benchmark", Deadline.none());
+        logs.awaitIndexes(SyntheticLogGenerator.RARE_TERM, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        logs.close();
+    }
+
+    @Benchmark
+    public ListEntriesResponse rareTerm() throws IOException, InterruptedException {
+        return logs.logService().listLogEntries(rareRequest, "benchmark", Deadline.none());
+    }
+
+    @Benchmark
+    public ListEntriesResponse commonTerm() throws IOException, InterruptedException {
+        return logs.logService().listLogEntries(commonRequest, "benchmark", Deadline.none());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.logcollector.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes syslog shaped files for the benchmarks. Line lengths follow a log-normal distribution around the mean,
+ * like real logs with mostly short lines and a few long ones. {@link #RARE_TERM} appears in a {@code matchDensity}
+ * fraction of the lines and {@link #COMMON_TERM} in about half of them. The same seed always writes the same file.
+ * <p>
+ * Can also be run on its own to write a file for manual testing:
+ * {@code SyntheticLogGenerator <path> <sizeMb> [meanLineLength] [matchDensity]}
+ */
+public class SyntheticLogGenerator {
+    public static final String RARE_TERM = "segfault at";
+    public static final String COMMON_TERM = "sshd";
+
+    private static final DateTimeFormatter SYSLOG_TIME = DateTimeFormatter.ofPattern("MMM ppd HH:mm:ss", Locale.ENGLISH);
+    private static final String[] PROCESSES = {"sshd", "CRON", "systemd", "kernel", "nginx", "dockerd"};
+    private static final String FILLER = "the quick brown fox jumps over the lazy dog while the request id is checked ";
+
+    private final long sizeBytes;
+    private final int meanLineLength;
+    private final double matchDensity;
+    private final long seed;
+
+    public SyntheticLogGenerator(long sizeBytes, int meanLineLength, double matchDensity, long seed) {
+        this.sizeBytes = sizeBytes;
+        this.meanLineLength = meanLineLength;
+        this.matchDensity = matchDensity;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes lines until the file is at least {@code sizeBytes} long and returns the number of lines written.
+     */
+    public long writeTo(Path path) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1024 * 1024)) {
+            return writeTo(out);
+        }
+    }
+
+    public long writeTo(OutputStream out) throws IOException {
+        Random random = new Random(seed);
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 0, 0);
+        StringBuilder line = new StringBuilder(4 * meanLineLength);
+        long written = 0;
+        long lines = 0;
+        while (written < sizeBytes) {
+            if (random.nextInt(50) == 0) {
+                time = time.plusSeconds(1);
+            }
+            String process = random.nextBoolean() ? COMMON_TERM : PROCESSES[1 + random.nextInt(PROCESSES.length - 1)];
+            line.setLength(0);
+            line.append(SYSLOG_TIME.format(time)).append(" host-01 ").append(process).append('[')
+                    .append(1000 + random.nextInt(9000)).append("]: ");
+            if (random.nextDouble() < matchDensity) {
+                line.append(process).append(" ").append(RARE_TERM).append(" ip 00007f3a sp 00007ffd error 4 ");
+            }
+            int length = lineLength(random);
+            while (line.length() < length) {
+                int from = random.nextInt(FILLER.length() / 2);
+                line.append(FILLER, from, Math.min(FILLER.length(), from + length - line.length()));
+            }
+            line.append('\n');
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(bytes);
+            written += bytes.length;
+            lines++;
+        }
+        return lines;
+    }
+
+    private int lineLength(Random random) {
+        // sigma 0.5 keeps the mean close to meanLineLength with a long tail of longer lines
+        double length = meanLineLength * Math.exp(0.5 * random.nextGaussian() - 0.125);
+        return (int) Math.max(40, Math.min(length, 16L * meanLineLength));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticLogGenerator <path> <sizeMb> [meanLineLength] [matchDensity]");
+            System.exit(1);
+        }
+        long sizeBytes = Long.parseLong(args[1]) * 1024 * 1024;
+        int meanLineLength = args.length > 2 ? Integer.parseInt(args[2]) : 120;
+        double matchDensity = args.length > 3 ? Double.parseDouble(args[3]) : 0.0001;
+        long lines = new SyntheticLogGenerator(sizeBytes, meanLineLength, matchDensity, 42).writeTo(Path.of(args[0]));
+        System.out.printf("Wrote %d lines to %s%n", lines, args[0]);
+    }
+}
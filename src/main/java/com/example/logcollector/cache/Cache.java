@@ -1,5 +1,8 @@
 package com.example.logcollector.cache;
 
+import com.example.logcollector.cache.entry.CacheEntry;
+import com.example.logcollector.file.FileSnapshot;
+
 public interface Cache<R, T> {
     boolean isCacheable(R request);
 
@@ -7,7 +10,17 @@ public interface Cache<R, T> {
 
     T get(String key);
 
+    CacheEntry<T> getEntry(String key);
+
+    /**
+     * Returns the entry for the key even when it was computed from another state of the file, so that a file
+     * that only grew can be merged with it. It only counts as a hit when its snapshot equals {@code snapshot}.
+     */
+    CacheEntry<T> getEntry(String key, FileSnapshot snapshot);
+
     void put(String key, T response);
 
+    void put(String key, T response, FileSnapshot snapshot);
+
     void evictExpired();
 }
@@ -1,5 +1,6 @@
 package com.example.logcollector.cache.entry;
 
+import com.example.logcollector.file.FileSnapshot;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -8,10 +9,22 @@ import lombok.Setter;
 public class CacheEntry<T> {
     private final T value;
     private final long expiresAt;
+    private final FileSnapshot snapshot;
 
     public CacheEntry(T value, long ttlMillis) {
         this.value = value;
         this.expiresAt = System.currentTimeMillis() + ttlMillis;
+        this.snapshot = null;
+    }
+
+    /**
+     * Entry computed from the given state of the file. It does not expire; callers compare the snapshot
+     * against the file instead to decide whether it is still valid.
+     */
+    public CacheEntry(T value, FileSnapshot snapshot) {
+        this.value = value;
+        this.expiresAt = Long.MAX_VALUE;
+        this.snapshot = snapshot;
     }
 
     public boolean isExpired() {
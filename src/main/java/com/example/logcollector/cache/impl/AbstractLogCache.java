@@ -0,0 +1,57 @@
+package com.example.logcollector.cache.impl;
+
+import com.example.logcollector.cache.Cache;
+import com.example.logcollector.model.logs.ListEntriesRequest;
+import com.example.logcollector.model.logs.ListEntriesResponse;
+
+/**
+ * Decides which list entries requests are worth caching and how they are keyed, independent of how the
+ * entries are stored.
+ */
+public abstract class AbstractLogCache implements Cache<ListEntriesRequest, ListEntriesResponse> {
+    public boolean isCacheable(ListEntriesRequest request) {
+        Long offset = request.getOffset();
+        String searchTerm = request.getSearchTerm();
+        String query = request.getQuery();
+        if (request.getCursor() != null) {
+            return false;
+        }
+        return (searchTerm != null && !searchTerm.isBlank())
+                || (query != null && !query.isBlank())
+                || (request.getFilter() != null && !request.getFilter().isBlank())
+                || request.getFrom() != null
+                || request.getTo() != null
+                || (offset != null && offset > 100);
+    }
+
+    public String buildCacheKey(ListEntriesRequest request) {
+        String key = String.format("%s|%s|%s|%s",
+                request.getFileName() == null ? "" : request.getFileName(),
+                request.getSearchTerm() == null ? "" : request.getSearchTerm(),
+                request.getOffset() == null ? 0 : request.getOffset(),
+                request.getLimit() == null ? 100L : request.getLimit());
+        if (Boolean.TRUE.equals(request.getRotated())) {
+            key += "|rotated";
+        }
+        if (Boolean.TRUE.equals(request.getPartial())) {
+            // a partial page is cut short by its own timeout, so a request that waits longer can't share it
+            key += "|partial=" + (request.getTimeoutMs() == null ? "" : request.getTimeoutMs());
+        }
+        if (request.getFrom() != null || request.getTo() != null) {
+            key += String.format("|t=%s..%s|%s", request.getFrom() == null ? "" : request.getFrom(),
+                    request.getTo() == null ? "" : request.getTo(),
+                    request.getTimestampFormat() == null ? "auto" : request.getTimestampFormat());
+        }
+        if (request.getFilter() != null && !request.getFilter().isBlank()) {
+            key += "|f=" + request.getFilter();
+        }
+        if (Boolean.TRUE.equals(request.getFields())) {
+            key += "|fields";
+        }
+        if (request.getMaxBytes() != null) {
+            // requests sharing a scan in flight must share its budget too
+            key += "|b=" + request.getMaxBytes();
+        }
+        return request.getQuery() == null || request.getQuery().isBlank() ? key : key + "|q=" + request.getQuery();
+    }
+}
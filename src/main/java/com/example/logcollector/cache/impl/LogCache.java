@@ -1,9 +1,8 @@
 package com.example.logcollector.cache.impl;
 
-import com.example.logcollector.cache.Cache;
 import com.example.logcollector.cache.entry.CacheEntry;
 import com.example.logcollector.constants.Constants;
-import com.example.logcollector.model.logs.ListEntriesRequest;
+import com.example.logcollector.file.FileSnapshot;
 import com.example.logcollector.model.logs.ListEntriesResponse;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
@@ -14,7 +13,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Getter
-public class LogCache implements Cache<ListEntriesRequest, ListEntriesResponse> {
+public class LogCache extends AbstractLogCache {
     private Map<String, CacheEntry<ListEntriesResponse>> cache;
 
     @PostConstruct
@@ -27,33 +26,32 @@ public class LogCache implements Cache<ListEntriesRequest, ListEntriesResponse>
         });
     }
 
-    public boolean isCacheable(ListEntriesRequest request) {
-        Long offset = request.getOffset();
-        String searchTerm = request.getSearchTerm();
-        return (searchTerm != null && !searchTerm.isBlank()) || (offset != null && offset > 100);
-    }
-
-    public String buildCacheKey(ListEntriesRequest request) {
-        return String.format("%s|%s|%s|%s",
-                request.getFileName() == null ? "" : request.getFileName(),
-                request.getSearchTerm() == null ? "" : request.getSearchTerm(),
-                request.getOffset() == null ? 0 : request.getOffset(),
-                request.getLimit() == null ? 100L : request.getLimit());
+    public ListEntriesResponse get(String key) {
+        CacheEntry<ListEntriesResponse> entry = getEntry(key);
+        return entry == null ? null : entry.getValue();
     }
 
-    public ListEntriesResponse get(String key) {
+    public CacheEntry<ListEntriesResponse> getEntry(String key) {
         CacheEntry<ListEntriesResponse> entry = cache.get(key);
         if (entry == null || entry.isExpired()) {
             cache.remove(key);
             return null;
         }
-        return entry.getValue();
+        return entry;
+    }
+
+    public CacheEntry<ListEntriesResponse> getEntry(String key, FileSnapshot snapshot) {
+        return getEntry(key);
     }
 
     public void put(String key, ListEntriesResponse response) {
         cache.put(key, new CacheEntry<>(response, Constants.CACHE_TTL_IN_MS));
     }
 
+    public void put(String key, ListEntriesResponse response, FileSnapshot snapshot) {
+        cache.put(key, new CacheEntry<>(response, snapshot));
+    }
+
     @Scheduled(fixedRate = Constants.CACHE_TTL_IN_MS)
     public void evictExpired() {
         cache.entrySet().removeIf(entry -> entry.getValue().isExpired());
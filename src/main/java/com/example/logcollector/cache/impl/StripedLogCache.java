@@ -0,0 +1,221 @@
+package com.example.logcollector.cache.impl;
+
+import com.example.logcollector.cache.entry.CacheEntry;
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.file.FileSnapshot;
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LRU cache bounded by the estimated number of bytes the cached responses retain rather than by entry count.
+ * Keys are spread over independently locked stripes so concurrent requests for different keys do not
+ * contend on a single monitor; every stripe owns an equal share of the byte budget and evicts its least
+ * recently used entries when it goes over it.
+ */
+public class StripedLogCache extends AbstractLogCache {
+    // rough per object overheads of the response, its list and each cached String
+    private static final long RESPONSE_OVERHEAD_BYTES = 128;
+    private static final long LINE_OVERHEAD_BYTES = 56;
+    // a field map and the node of each of its entries, whose key and value are Strings as well
+    private static final long FIELDS_OVERHEAD_BYTES = 64;
+    private static final long FIELD_OVERHEAD_BYTES = 32;
+
+    private final Stripe[] stripes;
+    private final long stripeCapacityBytes;
+    private final long ttlMillis;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StripedLogCache(long maxBytes, int stripeCount) {
+        this(maxBytes, stripeCount, Constants.CACHE_TTL_IN_MS);
+    }
+
+    public StripedLogCache(long maxBytes, int stripeCount, long ttlMillis) {
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeCapacityBytes = maxBytes / stripeCount;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public ListEntriesResponse get(String key) {
+        CacheEntry<ListEntriesResponse> entry = getEntry(key);
+        return entry == null ? null : entry.getValue();
+    }
+
+    public CacheEntry<ListEntriesResponse> getEntry(String key) {
+        CacheEntry<ListEntriesResponse> entry = lookup(key);
+        (entry == null ? misses : hits).increment();
+        return entry;
+    }
+
+    public CacheEntry<ListEntriesResponse> getEntry(String key, FileSnapshot snapshot) {
+        CacheEntry<ListEntriesResponse> entry = lookup(key);
+        // an entry for an older state of the file is still returned for merging, but the file has to be read
+        (entry != null && snapshot.equals(entry.getSnapshot()) ? hits : misses).increment();
+        return entry;
+    }
+
+    public void put(String key, ListEntriesResponse response) {
+        put(key, new CacheEntry<>(response, ttlMillis));
+    }
+
+    public void put(String key, ListEntriesResponse response, FileSnapshot snapshot) {
+        put(key, new CacheEntry<>(response, snapshot));
+    }
+
+    private void put(String key, CacheEntry<ListEntriesResponse> entry) {
+        long weight = estimateBytes(key, entry.getValue());
+        if (weight > stripeCapacityBytes) {
+            return;
+        }
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            stripe.remove(key);
+            stripe.entries.put(key, new Weighted(entry, weight));
+            stripe.retainedBytes += weight;
+            Iterator<Map.Entry<String, Weighted>> eldest = stripe.entries.entrySet().iterator();
+            while (stripe.retainedBytes > stripeCapacityBytes && eldest.hasNext()) {
+                stripe.retainedBytes -= eldest.next().getValue().weight();
+                eldest.remove();
+                evictions.increment();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedRate = Constants.CACHE_TTL_IN_MS)
+    public void evictExpired() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Weighted> entries = stripe.entries.values().iterator();
+                while (entries.hasNext()) {
+                    Weighted entry = entries.next();
+                    if (entry.entry().isExpired()) {
+                        stripe.retainedBytes -= entry.weight();
+                        entries.remove();
+                        evictions.increment();
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private CacheEntry<ListEntriesResponse> lookup(String key) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Weighted entry = stripe.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.entry().isExpired()) {
+                stripe.remove(key);
+                evictions.increment();
+                return null;
+            }
+            return entry.entry();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Entries dropped because they expired or to make room for newer ones.
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long retainedBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                bytes += stripe.retainedBytes;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return bytes;
+    }
+
+    static long estimateBytes(String key, ListEntriesResponse response) {
+        long bytes = RESPONSE_OVERHEAD_BYTES + LINE_OVERHEAD_BYTES + key.length();
+        List<String> logs = response.getLogs();
+        if (logs != null) {
+            for (String line : logs) {
+                // lines are mostly latin-1, which compact strings store in one byte per character
+                bytes += LINE_OVERHEAD_BYTES + line.length();
+            }
+        }
+        List<Map<String, String>> fields = response.getFields();
+        if (fields != null) {
+            for (Map<String, String> lineFields : fields) {
+                bytes += FIELDS_OVERHEAD_BYTES;
+                for (Map.Entry<String, String> field : lineFields.entrySet()) {
+                    String value = field.getValue();
+                    bytes += FIELD_OVERHEAD_BYTES + 2 * LINE_OVERHEAD_BYTES + field.getKey().length() + (value == null ? 0 : value.length());
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    private record Weighted(CacheEntry<ListEntriesResponse> entry, long weight) {
+    }
+
+    private static class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Weighted> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long retainedBytes;
+
+        private void remove(String key) {
+            Weighted removed = entries.remove(key);
+            if (removed != null) {
+                retainedBytes -= removed.weight();
+            }
+        }
+    }
+}
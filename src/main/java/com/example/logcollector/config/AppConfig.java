@@ -1,10 +1,12 @@
 package com.example.logcollector.config;
 
 import com.example.logcollector.cache.Cache;
-import com.example.logcollector.cache.impl.LogCache;
+import com.example.logcollector.cache.impl.StripedLogCache;
+import com.example.logcollector.constants.Constants;
 import com.example.logcollector.model.logs.ListEntriesRequest;
 import com.example.logcollector.model.logs.ListEntriesResponse;
 import com.example.logcollector.util.TimeoutExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -12,11 +14,14 @@ import org.springframework.context.annotation.Configuration;
 public class AppConfig {
     @Bean
     public Cache<ListEntriesRequest, ListEntriesResponse> logCache() {
-        return new LogCache();
+        return new StripedLogCache(Constants.MAX_CACHE_BYTES, Constants.CACHE_STRIPES);
     }
 
-    @Bean
-    public TimeoutExecutor getTimeoutExecutor() {
-        return new TimeoutExecutor();
+    @Bean(destroyMethod = "shutdown")
+    public TimeoutExecutor getTimeoutExecutor(
+            @Value("${log-collector.executor.virtual-threads:true}") boolean virtualThreads,
+            @Value("${log-collector.executor.max-concurrent-requests:" + Constants.DEFAULT_MAX_CONCURRENT_REQUESTS + "}") int maxConcurrentRequests,
+            @Value("${log-collector.executor.admission-wait-ms:" + Constants.DEFAULT_ADMISSION_WAIT_IN_MS + "}") long admissionWaitMillis) {
+        return new TimeoutExecutor(virtualThreads, maxConcurrentRequests, admissionWaitMillis);
     }
 }
@@ -0,0 +1,74 @@
+package com.example.logcollector.config;
+
+import com.example.logcollector.cache.Cache;
+import com.example.logcollector.cache.impl.StripedLogCache;
+import com.example.logcollector.file.LogFileCatalog;
+import com.example.logcollector.model.logs.ListEntriesRequest;
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.example.logcollector.util.TimeoutExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the state of the request executor, the response cache and the file catalog. Each keeps its own
+ * counters, the meters here only read them when the registry is scraped.
+ */
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public MeterBinder timeoutExecutorMetrics(TimeoutExecutor timeoutExecutor) {
+        return registry -> {
+            Gauge.builder("logcollector.executor.active", timeoutExecutor, TimeoutExecutor::activeTasks)
+                    .description("Requests currently holding a permit")
+                    .register(registry);
+            Gauge.builder("logcollector.executor.queued", timeoutExecutor, TimeoutExecutor::queuedTasks)
+                    .description("Requests waiting for a permit")
+                    .register(registry);
+            FunctionTimer.builder("logcollector.executor.admission", timeoutExecutor,
+                            TimeoutExecutor::admittedTasks, TimeoutExecutor::admissionWaitNanos, TimeUnit.NANOSECONDS)
+                    .description("Time admitted requests waited for a permit")
+                    .register(registry);
+            FunctionCounter.builder("logcollector.executor.rejected", timeoutExecutor, TimeoutExecutor::rejectedTasks)
+                    .description("Requests rejected with 429 because no permit freed up in time")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder logCacheMetrics(Cache<ListEntriesRequest, ListEntriesResponse> logCache) {
+        return registry -> {
+            if (!(logCache instanceof StripedLogCache cache)) {
+                return;
+            }
+            Gauge.builder("logcollector.cache.size", cache, StripedLogCache::size)
+                    .description("Cached responses")
+                    .register(registry);
+            Gauge.builder("logcollector.cache.retained", cache, StripedLogCache::retainedBytes)
+                    .description("Estimated bytes held by cached responses")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("logcollector.cache.gets", cache, StripedLogCache::hitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("logcollector.cache.gets", cache, StripedLogCache::missCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("logcollector.cache.evictions", cache, StripedLogCache::evictionCount)
+                    .description("Responses dropped because they expired or to stay in the byte budget")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder logFileCatalogMetrics(LogFileCatalog logFileCatalog) {
+        return registry -> Gauge.builder("logcollector.catalog.files", logFileCatalog, LogFileCatalog::size)
+                .description("Files cataloged under the log directory")
+                .register(registry);
+    }
+}
@@ -3,12 +3,61 @@ package com.example.logcollector.constants;
 import java.util.List;
 
 public class Constants {
-    public static final int CHUNK_SIZE = 4096; // 4KB for initial chunk size
+    public static final int READ_WINDOW_SIZE = 16 * 1024 * 1024; // 16MB memory mapped per window at most
+    public static final int INITIAL_READ_WINDOW_SIZE = 64 * 1024; // first window of a scan, doubled for each next one
+    public static final long DEFAULT_MAX_SCAN_BYTES = 4L * 1024 * 1024 * 1024; // 4GB read from disk per request
     public static final int DEFAULT_LIMIT = 100;
     public static final List<String> DEFAULT_LOG_FILES = List.of("syslog", "messages");
     public static final long CACHE_TTL_IN_MS = 2 * 60 * 1000; // 2 minutes
     public static final int MAX_CACHE_ENTRIES = 100;
+    public static final long MAX_CACHE_BYTES = 64 * 1024 * 1024; // 64MB of cached responses
+    public static final int CACHE_STRIPES = 16;
     public static final int MAX_REQUEST_TIMEOUT_IN_SECONDS = 60;
+    public static final long PARTIAL_RESULT_MARGIN_IN_MS = 1000; // partial searches stop this long before the deadline
+    public static final int DEADLINE_CHECK_INTERVAL_LINES = 1024; // must be a power of two
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 32;
+    public static final long DEFAULT_ADMISSION_WAIT_IN_MS = 2000;
+    public static final int LINE_INDEX_INTERVAL = 1000; // checkpoint every 1000 lines
+    public static final long MAX_INLINE_INDEX_EXTENSION_BYTES = 8 * 1024 * 1024; // 8MB
+    public static final int MAX_LINE_INDEXES = 64;
+    public static final long LINE_INDEX_REFRESH_IN_MS = 30 * 1000; // 30 seconds
+    public static final int TOKEN_INDEX_BLOCK_SIZE = 4 * 1024 * 1024; // 4MB of lines per Bloom filtered block
+    public static final int TOKEN_INDEX_BLOOM_BITS = 1 << 20; // 128KB filter per block
+    public static final long TOKEN_INDEX_MIN_FILE_SIZE = 8L * 1024 * 1024; // smaller files are scanned outright
+    public static final int MAX_TOKEN_INDEXES = 16;
+    public static final long PARALLEL_SEARCH_MIN_FILE_SIZE = 256L * 1024 * 1024; // 256MB
+    public static final long PARALLEL_SEGMENT_SIZE = 64L * 1024 * 1024; // 64MB per parallel search segment
+    public static final long MAX_DECOMPRESSED_BYTES = 2L * 1024 * 1024 * 1024; // 2GB of decompressed rotated logs on disk
+    public static final int MAX_SEARCH_FILES = 16;
+    public static final long CATALOG_RESCAN_IN_MS = 60 * 1000; // catches up with changes the file watcher missed
+    public static final int MAX_CATALOG_DEPTH = 8; // subdirectory levels under the log directory
+    public static final int MAX_CATALOG_FILES = 100_000;
+    public static final int CATALOG_SAMPLE_BYTES = 8 * 1024; // read from the start of each file to estimate its line count
+    public static final int DEFAULT_FILES_LIMIT = 1000;
+    public static final int MAX_FILES_LIMIT = 10_000;
+    public static final List<String> FILE_SORT_FIELDS = List.of("name", "size", "modified");
+    public static final long TIME_RANGE_SLACK_IN_MS = 60 * 1000; // lines may be this much out of order around a time range edge
+    public static final int TIME_RANGE_PROBE_BYTES = 64 * 1024; // read per binary search probe
+    public static final String DEFAULT_JSON_LOG_FILES = "*.json*,*.ndjson*"; // also matches rotated generations like app.jsonl.1
+    public static final String DEFAULT_AGGREGATE_INTERVAL = "1m";
+    public static final int MAX_AGGREGATE_BUCKETS = 10_000; // histogram buckets kept per aggregation
+    public static final int HEAVY_HITTERS_CAPACITY = 1000; // distinct field values tracked per aggregation
+    public static final int DEFAULT_AGGREGATE_TOP = 10;
+    public static final int MAX_AGGREGATE_TOP = 100;
+    public static final int MULTI_SEARCH_PREFETCH_LINES = 256; // matched lines read ahead per file while merging
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    public static final String LINES_MEDIA_TYPE = "application/vnd.logcollector.lines"; // front coded, length prefixed lines
+    public static final int FRONT_CODING_MAX_PREFIX = 4096; // bytes of the previous line a streamed line can share
+    public static final int STREAM_BUFFER_SIZE = 64 * 1024; // bytes of a streamed page held before they are written out
+    public static final int MAX_COMPILED_QUERIES = 256;
+    public static final int MAX_QUERY_LENGTH = 1024;
+    public static final int MAX_REGEX_LINE_BYTES = 64 * 1024; // longer lines are only matched on their first 64KB
+    public static final int REGEX_DEADLINE_CHECK_INTERVAL_CHARS = 64 * 1024; // must be a power of two
+    public static final long TAIL_POLL_INTERVAL_IN_MS = 1000;
+    public static final long TAIL_EMITTER_TIMEOUT_IN_MS = 30 * 60 * 1000; // 30 minutes
+    public static final int TAIL_MAX_READ_BYTES = 4 * 1024 * 1024; // 4MB read per poll
+    public static final int MAX_TAIL_SUBSCRIBERS = 256;
+    public static final int TAIL_MAX_QUEUED_LINES = 10_000; // a follower further behind than this is disconnected
     public static final String HEALTH_CHECK_STATUS_OK = "ok";
     public static final String HEALTH_CHECK_VERSION = "1.0.0";
 }
@@ -0,0 +1,59 @@
+package com.example.logcollector.controller;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.model.logs.AggregateLogsRequest;
+import com.example.logcollector.model.logs.AggregateLogsResponse;
+import com.example.logcollector.service.LogService;
+import com.example.logcollector.util.Deadline;
+import com.example.logcollector.util.RequestIdGenerator;
+import com.example.logcollector.util.TimeoutExecutor;
+import com.example.logcollector.validation.ListLogsRequestValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+
+@RestController
+@RequestMapping("/logs")
+public class LogAggregationController {
+    private static final Logger logger = LoggerFactory.getLogger(LogAggregationController.class);
+
+    private final LogService logService;
+
+    private final ListLogsRequestValidator listLogsRequestValidator;
+
+    private final TimeoutExecutor timeoutExecutor;
+
+    private final RequestIdGenerator requestIdGenerator;
+
+    @Autowired
+    public LogAggregationController(LogService logService,
+                                    ListLogsRequestValidator listLogsRequestValidator,
+                                    TimeoutExecutor timeoutExecutor,
+                                    RequestIdGenerator requestIdGenerator) {
+        this.logService = logService;
+        this.listLogsRequestValidator = listLogsRequestValidator;
+        this.timeoutExecutor = timeoutExecutor;
+        this.requestIdGenerator = requestIdGenerator;
+    }
+
+    @GetMapping("/aggregate")
+    public ResponseEntity<AggregateLogsResponse> aggregateLogs(@ModelAttribute AggregateLogsRequest request) {
+        String reqId = requestIdGenerator.generateRequestId();
+        logger.info("Starting aggregation request id: {}", reqId);
+        listLogsRequestValidator.validate(request);
+        long timeoutMs = request.getTimeoutMs() == null ? Constants.MAX_REQUEST_TIMEOUT_IN_SECONDS * 1000L : request.getTimeoutMs();
+        Deadline deadline = Deadline.after(timeoutMs, TimeUnit.MILLISECONDS);
+        AggregateLogsResponse response = timeoutExecutor.runWithDeadline(
+                () -> logService.aggregateLogEntries(request, reqId, deadline),
+                deadline);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -3,19 +3,26 @@ package com.example.logcollector.controller;
 import com.example.logcollector.constants.Constants;
 import com.example.logcollector.model.logs.ListEntriesRequest;
 import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.example.logcollector.model.logs.ListFilesRequest;
 import com.example.logcollector.model.logs.ListFilesResponse;
+import com.example.logcollector.model.logs.SearchLogsRequest;
+import com.example.logcollector.model.logs.SearchLogsResponse;
 import com.example.logcollector.service.LogService;
+import com.example.logcollector.util.Deadline;
 import com.example.logcollector.util.RequestIdGenerator;
 import com.example.logcollector.util.TimeoutExecutor;
 import com.example.logcollector.validation.ListLogsRequestValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.concurrent.TimeUnit;
 
@@ -49,18 +56,80 @@ public class LogController {
         String reqId = requestIdGenerator.generateRequestId();
         logger.info("Starting request id: {}", reqId);
         listEntriesRequestValidator.validate(request);
-        ListEntriesResponse response = timeoutExecutor.runWithTimeout(
-                () -> logService.listLogEntries(request, reqId),
-                Constants.MAX_REQUEST_TIMEOUT_IN_SECONDS,
-                TimeUnit.SECONDS);
+        long timeoutMs = request.getTimeoutMs() == null ? Constants.MAX_REQUEST_TIMEOUT_IN_SECONDS * 1000L : request.getTimeoutMs();
+        Deadline deadline = Deadline.after(timeoutMs, TimeUnit.MILLISECONDS);
+        ListEntriesResponse response = timeoutExecutor.runWithDeadline(
+                () -> logService.listLogEntries(request, reqId, deadline),
+                deadline);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * The same page as {@code /entries}, written as newline delimited JSON while the file is scanned.
+     */
+    @GetMapping(value = "/entries", produces = Constants.NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamLogEntries(@ModelAttribute ListEntriesRequest request) {
+        return streamLogEntries(request, Constants.NDJSON_MEDIA_TYPE);
+    }
+
+    /**
+     * The same page as {@code /entries} in the compact front coded encoding, written while the file is scanned.
+     */
+    @GetMapping(value = "/entries", produces = Constants.LINES_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamCompactLogEntries(@ModelAttribute ListEntriesRequest request) {
+        return streamLogEntries(request, Constants.LINES_MEDIA_TYPE);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamLogEntries(ListEntriesRequest request, String mediaType) {
+        String reqId = requestIdGenerator.generateRequestId();
+        logger.info("Starting stream request id: {}", reqId);
+        listEntriesRequestValidator.validate(request);
+        long timeoutMs = request.getTimeoutMs() == null ? Constants.MAX_REQUEST_TIMEOUT_IN_SECONDS * 1000L : request.getTimeoutMs();
+        Deadline deadline = Deadline.after(timeoutMs, TimeUnit.MILLISECONDS);
+        StreamingResponseBody body = timeoutExecutor.runWithDeadline(
+                () -> logService.streamLogEntries(request, reqId, deadline, mediaType),
+                deadline);
+        // the scan runs when the container writes the body, after this returns, so it needs a permit of its own.
+        // It is taken by the write itself, a body that is never written never holds one
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(mediaType))
+                .body(out -> {
+                    try (TimeoutExecutor.Permit permit = timeoutExecutor.admit()) {
+                        body.writeTo(out);
+                    }
+                });
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<SearchLogsResponse> searchLogs(@ModelAttribute SearchLogsRequest request) {
+        String reqId = requestIdGenerator.generateRequestId();
+        logger.info("Starting search request id: {}", reqId);
+        listEntriesRequestValidator.validate(request);
+        long timeoutMs = request.getTimeoutMs() == null ? Constants.MAX_REQUEST_TIMEOUT_IN_SECONDS * 1000L : request.getTimeoutMs();
+        Deadline deadline = Deadline.after(timeoutMs, TimeUnit.MILLISECONDS);
+        SearchLogsResponse response = timeoutExecutor.runWithDeadline(
+                () -> logService.searchLogFiles(request, reqId, deadline),
+                deadline);
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/tail", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter followLogEntries(@ModelAttribute ListEntriesRequest request) {
+        String reqId = requestIdGenerator.generateRequestId();
+        logger.info("Starting follow request id: {}", reqId);
+        listEntriesRequestValidator.validate(request);
+        Deadline deadline = Deadline.after(Constants.MAX_REQUEST_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+        return timeoutExecutor.runWithDeadline(
+                () -> logService.followLogEntries(request, reqId, deadline),
+                deadline);
+    }
+
     @GetMapping("/files")
-    public ResponseEntity<ListFilesResponse> listLogFiles() {
+    public ResponseEntity<ListFilesResponse> listLogFiles(@ModelAttribute ListFilesRequest request) {
         String reqId = requestIdGenerator.generateRequestId();
+        listEntriesRequestValidator.validate(request);
         ListFilesResponse response = timeoutExecutor.runWithTimeout(
-                () -> logService.listLogFiles(reqId),
+                () -> logService.listLogFiles(request, reqId),
                 Constants.MAX_REQUEST_TIMEOUT_IN_SECONDS,
                 TimeUnit.SECONDS);
         return ResponseEntity.ok(response);
@@ -0,0 +1,12 @@
+package com.example.logcollector.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class DeadlineExceededException extends ResponseStatusException {
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException() {
+        super(HttpStatus.REQUEST_TIMEOUT, "Log retrieval timed out");
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.logcollector.file;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.util.Deadline;
+import com.example.logcollector.util.SingleFlight;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Keeps decompressed copies of gzip rotated logs in a temporary directory so they can be memory mapped and read
+ * backwards like any other log. A generation is decompressed in a single streaming pass the first time it is
+ * searched, and paging through it later reuses the copy. Copies are evicted least recently used first once
+ * they take more than the byte budget.
+ */
+@Component
+public class DecompressedFileCache {
+    private static final Logger logger = LoggerFactory.getLogger(DecompressedFileCache.class);
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, File> files = new LinkedHashMap<>(16, 0.75f, true);
+    private final SingleFlight<File> decompressions = new SingleFlight<>();
+    private long retainedBytes;
+
+    public DecompressedFileCache() {
+        this(Constants.MAX_DECOMPRESSED_BYTES);
+    }
+
+    public DecompressedFileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        try {
+            this.directory = Files.createTempDirectory("log-collector-gz");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public File decompress(File compressed, Deadline deadline) throws IOException, InterruptedException {
+        FileSnapshot snapshot = FileSnapshot.of(compressed);
+        String key = String.format("%s|%d|%d|%d", compressed.getAbsolutePath(), snapshot.fileId(), snapshot.size(), snapshot.lastModified());
+        File cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        // concurrent requests for the same generation wait for one decompression instead of each running their own
+        return decompressions.execute(key, () -> {
+            File existing = get(key);
+            return existing != null ? existing : decompress(key, compressed, deadline);
+        });
+    }
+
+    public synchronized int size() {
+        return files.size();
+    }
+
+    public synchronized long retainedBytes() {
+        return retainedBytes;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        files.values().forEach(File::delete);
+        files.clear();
+        directory.toFile().delete();
+    }
+
+    private synchronized File get(String key) {
+        File file = files.get(key);
+        return file != null && file.exists() ? file : null;
+    }
+
+    private File decompress(String key, File compressed, Deadline deadline) throws IOException {
+        logger.info("Decompressing {} to search it", compressed);
+        Path target = Files.createTempFile(directory, compressed.getName(), ".log");
+        boolean done = false;
+        try (InputStream in = new GZIPInputStream(new FileInputStream(compressed), COPY_BUFFER_SIZE);
+             OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                deadline.check();
+                out.write(buffer, 0, read);
+            }
+            done = true;
+        } finally {
+            if (!done) {
+                Files.deleteIfExists(target);
+            }
+        }
+        File decompressed = target.toFile();
+        add(key, decompressed);
+        return decompressed;
+    }
+
+    private synchronized void add(String key, File file) {
+        File previous = files.put(key, file);
+        if (previous != null) {
+            retainedBytes -= previous.length();
+            previous.delete();
+        }
+        retainedBytes += file.length();
+        Iterator<Map.Entry<String, File>> eldest = files.entrySet().iterator();
+        while (retainedBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, File> entry = eldest.next();
+            if (entry.getValue() == file) {
+                continue;
+            }
+            retainedBytes -= entry.getValue().length();
+            entry.getValue().delete();
+            eldest.remove();
+        }
+    }
+}
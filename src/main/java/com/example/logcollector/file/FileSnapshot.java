@@ -0,0 +1,29 @@
+package com.example.logcollector.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * Point-in-time identity of a log file. The file key is the inode (and device) on unix systems,
+ * which lets us tell a rotated file apart from one that was only appended to.
+ */
+public record FileSnapshot(Object fileKey, long size, long lastModified) {
+    public static FileSnapshot of(File file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        return new FileSnapshot(attributes.fileKey(), attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * A compact stand-in for the file key that fits in tokens handed to clients.
+     */
+    public int fileId() {
+        return Objects.hashCode(fileKey);
+    }
+
+    public boolean isSameFile(FileSnapshot other) {
+        return other != null && Objects.equals(fileKey, other.fileKey);
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.logcollector.file;
+
+import com.example.logcollector.constants.Constants;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * In-memory list of the files under the log directory and its subdirectories, so listing files and resolving a
+ * requested name don't touch the disk. A {@link WatchService} thread updates one entry per change event, and a
+ * periodic rescan catches up with anything the watcher missed, such as file systems that don't report changes.
+ * Hidden files and directories and symbolic links are left out; names that aren't cataloged are resolved
+ * against the disk by the caller.
+ */
+@Component
+public class LogFileCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(LogFileCatalog.class);
+
+    private final Path root;
+    private final Map<String, LogFileInfo> files = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private volatile boolean scanned;
+    private WatchService watchService;
+    private Thread watcher;
+
+    @Autowired
+    public LogFileCatalog(@Value("/var/log") String logPath) {
+        this.root = Path.of(logPath);
+    }
+
+    public String root() {
+        return root.toString();
+    }
+
+    /**
+     * Catalogs the log directory and starts watching it. Without this the catalog is filled on first use and
+     * only changes on {@link #rescan()}.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (watcher != null) {
+            return;
+        }
+        try {
+            watchService = root.getFileSystem().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warn("Can't watch {} for changes, relying on periodic rescans", root, e);
+        }
+        rescan();
+        if (watchService != null) {
+            watcher = Thread.ofPlatform().daemon().name("log-catalog-watcher").start(this::watch);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Returns the file at a path relative to the log directory, or empty if it isn't cataloged.
+     */
+    public Optional<LogFileInfo> find(String path) {
+        ensureScanned();
+        return Optional.ofNullable(files.get(path));
+    }
+
+    public List<LogFileInfo> files() {
+        ensureScanned();
+        return new ArrayList<>(files.values());
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * Returns the file followed by its older generations, newest first, as {@link LogGenerations#of(File)}
+     * does but from the catalog instead of a directory listing.
+     */
+    public List<File> generations(File file) {
+        ensureScanned();
+        LogFileInfo info = files.get(relativePath(file.toPath()));
+        if (info == null) {
+            return LogGenerations.of(file);
+        }
+        List<File> siblings = new ArrayList<>();
+        for (LogFileInfo sibling : files.values()) {
+            if (sibling.rotationGroup().equals(info.rotationGroup()) && !sibling.path().equals(info.path())) {
+                siblings.add(sibling.file());
+            }
+        }
+        return LogGenerations.of(file, siblings);
+    }
+
+    /**
+     * Walks the whole log directory again, registering new directories with the watcher and dropping files
+     * that no longer exist.
+     */
+    @Scheduled(fixedDelay = Constants.CATALOG_RESCAN_IN_MS)
+    public synchronized void rescan() {
+        Set<String> seen = new HashSet<>();
+        walk(root, seen);
+        files.keySet().retainAll(seen);
+        scanned = true;
+        logger.debug("Cataloged {} files under {}", files.size(), root);
+    }
+
+    private void ensureScanned() {
+        if (!scanned) {
+            synchronized (this) {
+                if (!scanned) {
+                    rescan();
+                }
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = watchedDirectories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        rescan();
+                    } else if (directory != null) {
+                        update(directory.resolve((Path) event.context()), event.kind());
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Stopped watching {}", root);
+        } catch (RuntimeException e) {
+            logger.error("Watching {} failed, relying on periodic rescans", root, e);
+        }
+    }
+
+    private void update(Path path, WatchEvent.Kind<?> kind) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            // deleted or renamed away, the new name gets its own event
+            remove(path);
+            return;
+        }
+        if (attributes.isDirectory()) {
+            if (kind == ENTRY_CREATE) {
+                walk(path, null);
+            }
+        } else {
+            put(path, attributes);
+        }
+    }
+
+    private void walk(Path start, Set<String> seen) {
+        int depth = root.relativize(start).toString().isEmpty() ? 0 : root.relativize(start).getNameCount();
+        if (depth > Constants.MAX_CATALOG_DEPTH) {
+            return;
+        }
+        try {
+            Files.walkFileTree(start, Set.of(), Constants.MAX_CATALOG_DEPTH - depth, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                    if (!directory.equals(root) && isHidden(directory)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    register(directory);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    String path = put(file, attributes);
+                    if (path != null && seen != null) {
+                        seen.add(path);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (NoSuchFileException e) {
+            logger.debug("{} does not exist", start);
+        } catch (IOException e) {
+            logger.warn("Failed to catalog {}", start, e);
+        }
+    }
+
+    private void register(Path directory) {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            // registering a directory again returns its existing key
+            watchedDirectories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), directory);
+        } catch (IOException | ClosedWatchServiceException e) {
+            logger.debug("Can't watch {}", directory, e);
+        }
+    }
+
+    /**
+     * Adds or updates a regular file and returns its relative path, or null if it isn't cataloged.
+     */
+    private String put(Path file, BasicFileAttributes attributes) {
+        String path = relativePath(file);
+        if (!attributes.isRegularFile() || isHidden(file)) {
+            files.remove(path);
+            return null;
+        }
+        LogFileInfo previous = files.get(path);
+        if (previous == null && files.size() >= Constants.MAX_CATALOG_FILES) {
+            return null;
+        }
+        String name = file.getFileName().toString();
+        int slash = path.lastIndexOf('/');
+        String rotationGroup = path.substring(0, slash + 1) + LogGenerations.baseName(name);
+        long size = attributes.size();
+        long sampledBytes;
+        long sampledLines;
+        if (previous != null && Objects.equals(previous.fileKey(), attributes.fileKey())
+                && (previous.sampledBytes() < previous.size() || previous.size() == size)) {
+            // the head of a file that was only appended to does not change, only small files are sampled again
+            sampledBytes = previous.sampledBytes();
+            sampledLines = previous.sampledLines();
+        } else {
+            long[] sample = LogGenerations.isCompressed(file.toFile()) ? new long[2] : sample(file, size);
+            sampledBytes = sample[0];
+            sampledLines = sample[1];
+        }
+        files.put(path, new LogFileInfo(path, file.toFile(), attributes.fileKey(), size, attributes.lastModifiedTime().toMillis(),
+                rotationGroup, LogGenerations.generation(name), sampledBytes, sampledLines));
+        return path;
+    }
+
+    private void remove(Path path) {
+        String removed = relativePath(path);
+        files.remove(removed);
+        // a removed directory takes its files with it
+        files.keySet().removeIf(key -> key.startsWith(removed + "/"));
+    }
+
+    /**
+     * Counts the lines in the first bytes of a file, returned as {bytes up to the last whole line, lines}.
+     */
+    private static long[] sample(Path file, long size) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, Constants.CATALOG_SAMPLE_BYTES));
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // keep reading until the sample is full or the file ends
+            }
+            long lines = 0;
+            int wholeLines = 0;
+            for (int i = 0; i < buffer.position(); i++) {
+                if (buffer.get(i) == '\n') {
+                    lines++;
+                    wholeLines = i + 1;
+                }
+            }
+            // a line cut off by the end of the sample would make lines look shorter than they are
+            return new long[]{buffer.position() == size || wholeLines == 0 ? buffer.position() : wholeLines, lines};
+        } catch (IOException e) {
+            return new long[2];
+        }
+    }
+
+    private String relativePath(Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private static boolean isHidden(Path path) {
+        return path.getFileName() != null && path.getFileName().toString().startsWith(".");
+    }
+}
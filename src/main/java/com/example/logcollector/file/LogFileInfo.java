@@ -0,0 +1,32 @@
+package com.example.logcollector.file;
+
+import java.io.File;
+
+/**
+ * Metadata the {@link LogFileCatalog} keeps for one file, as of its last change event or rescan.
+ *
+ * @param path path relative to the log directory, with {@code /} separators
+ * @param rotationGroup path of the live file that this file is a generation of
+ * @param sampledBytes bytes at the start of the file that were read to estimate the line count
+ * @param sampledLines lines counted in those bytes
+ */
+public record LogFileInfo(String path, File file, Object fileKey, long size, long lastModified,
+                          String rotationGroup, long generation, long sampledBytes, long sampledLines) {
+    /**
+     * Estimates the number of lines from the line length of the sampled head of the file, exact when the whole
+     * file was sampled. Returns null for compressed files, which are not sampled.
+     */
+    public Long estimatedLines() {
+        if (size == 0) {
+            return 0L;
+        }
+        if (sampledBytes == 0) {
+            return null;
+        }
+        return sampledBytes >= size ? sampledLines : Math.round((double) size * sampledLines / sampledBytes);
+    }
+
+    public boolean compressed() {
+        return LogGenerations.isCompressed(file);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.logcollector.file;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the rotated generations of a log file the way logrotate names them: {@code syslog}, {@code syslog.1},
+ * {@code syslog.2.gz} and so on, where a higher number is older.
+ */
+public final class LogGenerations {
+    private static final Pattern GENERATION = Pattern.compile("^(.*?)(?:\\.(\\d+))?(\\.gz)?$");
+
+    private LogGenerations() {
+    }
+
+    /**
+     * Returns the file followed by every older generation next to it, newest first.
+     */
+    public static List<File> of(File file) {
+        File[] siblings = file.getAbsoluteFile().getParentFile().listFiles(File::isFile);
+        return of(file, siblings == null ? List.of() : Arrays.asList(siblings));
+    }
+
+    /**
+     * Returns the file followed by the older generations among {@code siblings}, newest first.
+     */
+    public static List<File> of(File file, Collection<File> siblings) {
+        String base = baseName(file.getName());
+        long generation = generation(file.getName());
+
+        List<File> generations = new ArrayList<>();
+        for (File sibling : siblings) {
+            if (baseName(sibling.getName()).equals(base) && generation(sibling.getName()) > generation) {
+                generations.add(sibling);
+            }
+        }
+        generations.sort(Comparator.comparingLong(sibling -> generation(sibling.getName())));
+        generations.addFirst(file);
+        return generations;
+    }
+
+    /**
+     * Returns the name shared by every generation, {@code syslog} for {@code syslog.2.gz}.
+     */
+    public static String baseName(String fileName) {
+        Matcher name = GENERATION.matcher(fileName);
+        name.matches();
+        return name.group(1);
+    }
+
+    /**
+     * Returns the generation number, 0 for the live file.
+     */
+    public static long generation(String fileName) {
+        Matcher name = GENERATION.matcher(fileName);
+        name.matches();
+        // numbers too long for a long are part of the name, not a generation
+        return name.group(2) == null || name.group(2).length() > 18 ? 0 : Long.parseLong(name.group(2));
+    }
+
+    public static boolean isCompressed(File file) {
+        return file.getName().endsWith(".gz");
+    }
+}
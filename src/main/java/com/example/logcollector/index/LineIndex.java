@@ -0,0 +1,114 @@
+package com.example.logcollector.index;
+
+import com.example.logcollector.file.FileSnapshot;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sparse line index for a single log file. Every {@code interval} lines we remember the byte position
+ * the line starts at. Lines are numbered from the start of the file so the index can be extended as the
+ * file grows; the line number from the end is {@code lineCount - lineNumber}.
+ * A line is counted the same way the reverse scanner counts it: a non-empty run of bytes between '\n'.
+ */
+@Getter
+public class LineIndex {
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    private final Object fileKey;
+    private final int interval;
+    private long[] checkpoints;
+    private int checkpointCount;
+    private long lineCount;
+    private long indexedLength;
+    private boolean lastByteNewline = true;
+
+    public LineIndex(Object fileKey, int interval) {
+        this.fileKey = fileKey;
+        this.interval = interval;
+        this.checkpoints = new long[16];
+    }
+
+    private LineIndex(LineIndex other) {
+        this.fileKey = other.fileKey;
+        this.interval = other.interval;
+        this.checkpoints = Arrays.copyOf(other.checkpoints, other.checkpoints.length);
+        this.checkpointCount = other.checkpointCount;
+        this.lineCount = other.lineCount;
+        this.indexedLength = other.indexedLength;
+        this.lastByteNewline = other.lastByteNewline;
+    }
+
+    public synchronized LineIndex copy() {
+        return new LineIndex(this);
+    }
+
+    public boolean isValidFor(FileSnapshot snapshot) {
+        return snapshot.fileKey() != null && snapshot.fileKey().equals(fileKey) && snapshot.size() >= indexedLength;
+    }
+
+    /**
+     * Indexes the bytes between the current indexed length and {@code length}.
+     */
+    public synchronized void extend(File file, long length) throws IOException {
+        if (length <= indexedLength) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_BUFFER_SIZE, length - indexedLength));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = indexedLength;
+            while (position < length) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - position));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    boolean newline = bytes[i] == '\n';
+                    if (!newline && lastByteNewline) {
+                        if (lineCount % interval == 0) {
+                            addCheckpoint(position + i);
+                        }
+                        lineCount++;
+                    }
+                    lastByteNewline = newline;
+                }
+                position += read;
+                indexedLength = position;
+            }
+        }
+    }
+
+    /**
+     * Finds where a reverse scan has to start to skip {@code offset} lines from the end of the indexed
+     * region. An offset past the first line of the file seeks to position 0, where there is nothing left to read.
+     */
+    public synchronized SeekPoint seek(long offset) {
+        long targetLine = lineCount - offset;
+        if (targetLine <= 0) {
+            return new SeekPoint(0, 0);
+        }
+        long checkpoint = (targetLine + interval - 1) / interval;
+        if (checkpoint >= checkpointCount) {
+            return new SeekPoint(indexedLength, offset);
+        }
+        return new SeekPoint(checkpoints[(int) checkpoint], checkpoint * interval - targetLine);
+    }
+
+    private void addCheckpoint(long position) {
+        if (checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+        }
+        checkpoints[checkpointCount++] = position;
+    }
+}
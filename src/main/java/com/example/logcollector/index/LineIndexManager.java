@@ -0,0 +1,133 @@
+package com.example.logcollector.index;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.file.FileSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a {@link LineIndex} per file that has been paged deeply. Indexes are built and extended on a
+ * background thread; requests only ever extend an index inline when the file grew by a small amount. At most
+ * {@link Constants#MAX_LINE_INDEXES} files are indexed, the least recently paged one makes room for a new file.
+ */
+@Component
+public class LineIndexManager {
+    private static final Logger logger = LoggerFactory.getLogger(LineIndexManager.class);
+
+    private final LinkedHashMap<String, LineIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> pendingBuilds = ConcurrentHashMap.newKeySet();
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "line-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Returns where to start a reverse scan that skips {@code offset} lines, or empty if the file is not
+     * indexed yet. In that case an index build is scheduled and the caller should fall back to a full scan.
+     */
+    public Optional<SeekPoint> seekPoint(File file, long offset) throws IOException {
+        if (offset < Constants.LINE_INDEX_INTERVAL) {
+            return Optional.empty();
+        }
+        String path = file.getCanonicalPath();
+        FileSnapshot snapshot = FileSnapshot.of(file);
+        LineIndex index = get(path);
+        if (index == null || !index.isValidFor(snapshot)) {
+            scheduleBuild(path, file, null);
+            return Optional.empty();
+        }
+        long delta = snapshot.size() - index.getIndexedLength();
+        if (delta > Constants.MAX_INLINE_INDEX_EXTENSION_BYTES) {
+            scheduleBuild(path, file, index);
+            return Optional.empty();
+        }
+        index.extend(file, snapshot.size());
+        return Optional.of(index.seek(offset));
+    }
+
+    @Scheduled(fixedDelay = Constants.LINE_INDEX_REFRESH_IN_MS)
+    public void refreshIndexes() {
+        snapshot().forEach((path, index) -> {
+            File file = new File(path);
+            if (file.length() != index.getIndexedLength()) {
+                scheduleBuild(path, file, index);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+    }
+
+    private void scheduleBuild(String path, File file, LineIndex existing) {
+        if (!pendingBuilds.add(path)) {
+            return;
+        }
+        indexer.submit(() -> {
+            try {
+                if (!file.isFile()) {
+                    remove(path);
+                    return;
+                }
+                FileSnapshot snapshot = FileSnapshot.of(file);
+                LineIndex index = existing != null && existing.isValidFor(snapshot)
+                        ? existing.copy()
+                        : new LineIndex(snapshot.fileKey(), Constants.LINE_INDEX_INTERVAL);
+                index.extend(file, snapshot.size());
+                add(path, index, snapshot);
+                logger.debug("Indexed {} lines of {} up to byte {}", index.getLineCount(), path, index.getIndexedLength());
+            } catch (IOException e) {
+                logger.warn("Failed to build line index for {}", path, e);
+                remove(path);
+            } finally {
+                pendingBuilds.remove(path);
+            }
+        });
+    }
+
+    private synchronized LineIndex get(String path) {
+        return indexes.get(path);
+    }
+
+    private synchronized Map<String, LineIndex> snapshot() {
+        return Map.copyOf(indexes);
+    }
+
+    private synchronized void remove(String path) {
+        indexes.remove(path);
+    }
+
+    /**
+     * Adds a built index unless a request extended the current one further in the meantime, and evicts the
+     * least recently paged files when there are too many.
+     */
+    private synchronized void add(String path, LineIndex built, FileSnapshot snapshot) {
+        indexes.merge(path, built, (current, candidate) ->
+                current.isValidFor(snapshot) && current.getIndexedLength() > candidate.getIndexedLength() ? current : candidate);
+        Iterator<String> eldest = indexes.keySet().iterator();
+        while (indexes.size() > Constants.MAX_LINE_INDEXES && eldest.hasNext()) {
+            String evicted = eldest.next();
+            if (evicted.equals(path)) {
+                continue;
+            }
+            eldest.remove();
+            logger.debug("Evicted line index of {}", evicted);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.logcollector.index;
+
+/**
+ * A byte range {@code [start, end)} of a file that starts and ends on a line boundary.
+ */
+public record ScanRange(long start, long end) {
+}
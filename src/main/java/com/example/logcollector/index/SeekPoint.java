@@ -0,0 +1,8 @@
+package com.example.logcollector.index;
+
+/**
+ * Where a reverse scan should start reading from, and how many lines it still has to skip
+ * once it gets there.
+ */
+public record SeekPoint(long position, long linesToSkip) {
+}
@@ -0,0 +1,263 @@
+package com.example.logcollector.index;
+
+import com.example.logcollector.file.FileSnapshot;
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Splits a log file into blocks of about {@code blockSize} bytes that end on a line boundary and keeps a Bloom
+ * filter of every block's case-folded trigrams. A search term can only occur in a block whose filter holds all of
+ * the term's trigrams, so the blocks that cannot contain it are skipped without reading them. Trigrams rather
+ * than whole words are indexed because search terms match any substring of a line, not only whole words.
+ * Only complete blocks are indexed, the bytes after the last one are always scanned.
+ */
+@Getter
+public class TokenBlockIndex {
+    private static final int MAGIC = 0x4C434249;
+    private static final int VERSION = 1;
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final int HEADER_HASH_BYTES = 4096;
+    private static final byte[] FOLD = new byte[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            FOLD[i] = (byte) (i >= 'A' && i <= 'Z' ? i + ('a' - 'A') : i);
+        }
+    }
+
+    private final String fileKey;
+    private final int blockSize;
+    private final int bloomBits;
+    private long[] blockEnds;
+    private long[][] filters;
+    private volatile int blockCount;
+    private volatile long indexedLength;
+    private volatile int headerHash;
+
+    /**
+     * @param bloomBits bits per block filter, must be a power of two
+     */
+    public TokenBlockIndex(Object fileKey, int blockSize, int bloomBits) {
+        this(String.valueOf(fileKey), blockSize, bloomBits, new long[16], new long[16][], 0, 0, 0);
+    }
+
+    private TokenBlockIndex(String fileKey, int blockSize, int bloomBits, long[] blockEnds, long[][] filters,
+                            int blockCount, long indexedLength, int headerHash) {
+        this.fileKey = fileKey;
+        this.blockSize = blockSize;
+        this.bloomBits = bloomBits;
+        this.blockEnds = blockEnds;
+        this.filters = filters;
+        this.blockCount = blockCount;
+        this.indexedLength = indexedLength;
+        this.headerHash = headerHash;
+    }
+
+    /**
+     * The index still describes the file when it is the same inode, it did not shrink, and the start of the file
+     * was not rewritten in place.
+     */
+    public boolean isValidFor(File file, FileSnapshot snapshot) throws IOException {
+        return Objects.equals(fileKey, String.valueOf(snapshot.fileKey()))
+                && snapshot.size() >= indexedLength
+                && (indexedLength == 0 || headerHash == headerHash(file));
+    }
+
+    /**
+     * Indexes the complete blocks between the current indexed length and {@code length}. Only one thread may
+     * extend an index, searches keep using the blocks indexed so far while it reads.
+     */
+    public void extend(File file, long length) throws IOException {
+        if (length - indexedLength < blockSize) {
+            return;
+        }
+        if (indexedLength == 0) {
+            headerHash = headerHash(file);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long[] filter = new long[bloomBits / 64];
+        long blockStart = indexedLength;
+        int trigram = 0;
+        int run = 0;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = indexedLength;
+            while (position < length) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - position));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    byte b = bytes[i];
+                    if (b == '\n') {
+                        run = 0;
+                        if (position + i + 1 - blockStart >= blockSize) {
+                            addBlock(position + i + 1, filter);
+                            blockStart = position + i + 1;
+                            filter = new long[bloomBits / 64];
+                        }
+                        continue;
+                    }
+                    trigram = (trigram << 8 | (FOLD[b & 0xFF] & 0xFF)) & 0xFFFFFF;
+                    if (++run >= 3) {
+                        set(filter, trigram);
+                    }
+                }
+                position += read;
+            }
+        }
+    }
+
+    /**
+     * Returns the ranges below {@code endPosition} that may contain {@code term}, newest first: the bytes after the
+     * last indexed block followed by every block whose filter holds all trigrams of the term. Neighbouring ranges
+     * are joined.
+     */
+    public synchronized List<ScanRange> candidateRanges(String term, long endPosition) {
+        int[] trigrams = trigrams(term);
+        List<ScanRange> ranges = new ArrayList<>();
+        if (endPosition > indexedLength) {
+            ranges.add(new ScanRange(indexedLength, endPosition));
+        }
+        for (int block = blockCount - 1; block >= 0; block--) {
+            long start = block == 0 ? 0 : blockEnds[block - 1];
+            long end = Math.min(blockEnds[block], endPosition);
+            if (start >= end || !mayContain(filters[block], trigrams)) {
+                continue;
+            }
+            if (!ranges.isEmpty() && ranges.getLast().start() == end) {
+                ranges.set(ranges.size() - 1, new ScanRange(start, ranges.getLast().end()));
+            } else {
+                ranges.add(new ScanRange(start, end));
+            }
+        }
+        return ranges;
+    }
+
+    public synchronized void writeTo(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fileKey);
+            out.writeInt(blockSize);
+            out.writeInt(bloomBits);
+            out.writeLong(indexedLength);
+            out.writeInt(headerHash);
+            out.writeInt(blockCount);
+            for (int block = 0; block < blockCount; block++) {
+                out.writeLong(blockEnds[block]);
+                for (long word : filters[block]) {
+                    out.writeLong(word);
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo(Path)}, or returns null if it was written with other settings.
+     */
+    public static TokenBlockIndex readFrom(Path path, int blockSize, int bloomBits) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            String fileKey = in.readUTF();
+            if (in.readInt() != blockSize || in.readInt() != bloomBits) {
+                return null;
+            }
+            long indexedLength = in.readLong();
+            int headerHash = in.readInt();
+            int blockCount = in.readInt();
+            long[] blockEnds = new long[Math.max(16, blockCount)];
+            long[][] filters = new long[blockEnds.length][];
+            for (int block = 0; block < blockCount; block++) {
+                blockEnds[block] = in.readLong();
+                filters[block] = new long[bloomBits / 64];
+                for (int word = 0; word < filters[block].length; word++) {
+                    filters[block][word] = in.readLong();
+                }
+            }
+            return new TokenBlockIndex(fileKey, blockSize, bloomBits, blockEnds, filters, blockCount, indexedLength, headerHash);
+        }
+    }
+
+    private synchronized void addBlock(long end, long[] filter) {
+        if (blockCount == blockEnds.length) {
+            blockEnds = Arrays.copyOf(blockEnds, blockEnds.length * 2);
+            filters = Arrays.copyOf(filters, filters.length * 2);
+        }
+        blockEnds[blockCount] = end;
+        filters[blockCount] = filter;
+        blockCount++;
+        indexedLength = end;
+    }
+
+    private int[] trigrams(String term) {
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        int[] trigrams = new int[Math.max(0, bytes.length - 2)];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = (FOLD[bytes[i] & 0xFF] & 0xFF) << 16 | (FOLD[bytes[i + 1] & 0xFF] & 0xFF) << 8 | (FOLD[bytes[i + 2] & 0xFF] & 0xFF);
+        }
+        return trigrams;
+    }
+
+    private boolean mayContain(long[] filter, int[] trigrams) {
+        for (int trigram : trigrams) {
+            long hash = hash(trigram);
+            if (!isSet(filter, (int) hash) || !isSet(filter, (int) (hash >>> 32))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void set(long[] filter, int trigram) {
+        long hash = hash(trigram);
+        int first = (int) hash & (bloomBits - 1);
+        int second = (int) (hash >>> 32) & (bloomBits - 1);
+        filter[first >>> 6] |= 1L << first;
+        filter[second >>> 6] |= 1L << second;
+    }
+
+    private boolean isSet(long[] filter, int bit) {
+        int masked = bit & (bloomBits - 1);
+        return (filter[masked >>> 6] & 1L << masked) != 0;
+    }
+
+    private static long hash(int trigram) {
+        long hash = trigram * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static int headerHash(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_HASH_BYTES);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            channel.read(buffer, 0);
+        }
+        return Arrays.hashCode(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.logcollector.index;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.file.FileSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a {@link TokenBlockIndex} per large file that has been searched for a term. Indexes are built and
+ * extended on a background thread and saved next to each other in the index directory, so a restart does not
+ * have to read the files again. Requests only use an index whose unindexed tail is small enough to scan inline.
+ * At most {@link Constants#MAX_TOKEN_INDEXES} files are indexed, the least recently searched one makes room
+ * for a new file.
+ */
+@Component
+public class TokenIndexManager {
+    private static final Logger logger = LoggerFactory.getLogger(TokenIndexManager.class);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int blockSize;
+    private final int bloomBits;
+    private final long minFileSize;
+    private final LinkedHashMap<String, TokenBlockIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> pendingBuilds = ConcurrentHashMap.newKeySet();
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "token-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TokenIndexManager() {
+        this(true, null, Constants.TOKEN_INDEX_BLOCK_SIZE, Constants.TOKEN_INDEX_BLOOM_BITS, Constants.TOKEN_INDEX_MIN_FILE_SIZE);
+    }
+
+    @Autowired
+    public TokenIndexManager(@Value("${log-collector.token-index.enabled:true}") boolean enabled,
+                             @Value("${log-collector.token-index.directory:}") String directory) {
+        this(enabled, directory == null || directory.isBlank() ? null : Path.of(directory),
+                Constants.TOKEN_INDEX_BLOCK_SIZE, Constants.TOKEN_INDEX_BLOOM_BITS, Constants.TOKEN_INDEX_MIN_FILE_SIZE);
+    }
+
+    /**
+     * @param directory where indexes are saved, or null to keep them in memory only
+     */
+    public TokenIndexManager(boolean enabled, Path directory, int blockSize, int bloomBits, long minFileSize) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.blockSize = blockSize;
+        this.bloomBits = bloomBits;
+        this.minFileSize = minFileSize;
+    }
+
+    /**
+     * Returns the ranges below {@code endPosition} that may contain {@code searchTerm}, newest first, or empty if
+     * the whole file has to be scanned. In that case an index build is scheduled when the file is large enough.
+     */
+    public Optional<List<ScanRange>> scanRanges(File file, String searchTerm, long endPosition) throws IOException {
+        // a term shorter than a trigram can't be looked up, every block may contain it
+        if (!enabled || searchTerm == null || searchTerm.length() < 3 || file.length() < minFileSize) {
+            return Optional.empty();
+        }
+        // trigrams are folded as ASCII bytes, a non-ASCII term is matched with Unicode case folding instead
+        // and may be in blocks whose trigrams differ from its own, such as "é" for "É"
+        if (!searchTerm.chars().allMatch(c -> c < 0x80)) {
+            return Optional.empty();
+        }
+        String path = file.getCanonicalPath();
+        FileSnapshot snapshot = FileSnapshot.of(file);
+        TokenBlockIndex index = get(path);
+        if (index == null || !index.isValidFor(file, snapshot)) {
+            scheduleBuild(path, file, null);
+            return Optional.empty();
+        }
+        if (endPosition - index.getIndexedLength() > Constants.MAX_INLINE_INDEX_EXTENSION_BYTES) {
+            scheduleBuild(path, file, index);
+            return Optional.empty();
+        }
+        return Optional.of(index.candidateRanges(searchTerm, endPosition));
+    }
+
+    @Scheduled(fixedDelay = Constants.LINE_INDEX_REFRESH_IN_MS)
+    public void refreshIndexes() {
+        snapshot().forEach((path, index) -> {
+            File file = new File(path);
+            if (file.length() - index.getIndexedLength() >= blockSize || file.length() < index.getIndexedLength()) {
+                scheduleBuild(path, file, index);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+    }
+
+    private void scheduleBuild(String path, File file, TokenBlockIndex existing) {
+        if (!pendingBuilds.add(path)) {
+            return;
+        }
+        indexer.submit(() -> {
+            try {
+                if (!file.isFile()) {
+                    remove(path);
+                    return;
+                }
+                FileSnapshot snapshot = FileSnapshot.of(file);
+                TokenBlockIndex index = existing != null && existing.isValidFor(file, snapshot) ? existing : load(path, file, snapshot);
+                index.extend(file, snapshot.size());
+                save(path, index);
+                add(path, index);
+                logger.debug("Indexed {} blocks of {} up to byte {}", index.getBlockCount(), path, index.getIndexedLength());
+            } catch (IOException e) {
+                logger.warn("Failed to build token index for {}", path, e);
+                remove(path);
+            } finally {
+                pendingBuilds.remove(path);
+            }
+        });
+    }
+
+    private synchronized TokenBlockIndex get(String path) {
+        return indexes.get(path);
+    }
+
+    private synchronized Map<String, TokenBlockIndex> snapshot() {
+        return Map.copyOf(indexes);
+    }
+
+    private synchronized void remove(String path) {
+        indexes.remove(path);
+    }
+
+    /**
+     * Adds the index of a file, evicting the least recently searched files along with their saved indexes
+     * when there are too many.
+     */
+    private synchronized void add(String path, TokenBlockIndex index) {
+        indexes.put(path, index);
+        Iterator<String> eldest = indexes.keySet().iterator();
+        while (indexes.size() > Constants.MAX_TOKEN_INDEXES && eldest.hasNext()) {
+            String evicted = eldest.next();
+            if (evicted.equals(path)) {
+                continue;
+            }
+            eldest.remove();
+            deleteSaved(evicted);
+            logger.debug("Evicted token index of {}", evicted);
+        }
+    }
+
+    /**
+     * Picks up the index saved by an earlier run if it still describes the file, or starts a new one.
+     */
+    private TokenBlockIndex load(String path, File file, FileSnapshot snapshot) {
+        Path saved = indexPath(path);
+        if (saved != null && Files.isRegularFile(saved)) {
+            try {
+                TokenBlockIndex index = TokenBlockIndex.readFrom(saved, blockSize, bloomBits);
+                if (index != null && index.isValidFor(file, snapshot)) {
+                    return index;
+                }
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable token index {}", saved, e);
+            }
+        }
+        return new TokenBlockIndex(snapshot.fileKey(), blockSize, bloomBits);
+    }
+
+    private void save(String path, TokenBlockIndex index) {
+        Path saved = indexPath(path);
+        if (saved == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            index.writeTo(saved);
+        } catch (IOException e) {
+            logger.warn("Failed to save token index for {}", path, e);
+        }
+    }
+
+    private void deleteSaved(String path) {
+        Path saved = indexPath(path);
+        if (saved == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(saved);
+        } catch (IOException e) {
+            logger.warn("Failed to delete token index for {}", path, e);
+        }
+    }
+
+    private Path indexPath(String path) {
+        return directory == null ? null : directory.resolve(Integer.toHexString(path.hashCode()) + ".tbi");
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.logcollector.metrics;
+
+import com.example.logcollector.model.logs.LogPage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records per request metrics: latency by endpoint and cache result, and how much of a file each request read
+ * and how selective its filter was. Meters are tagged by endpoint so dashboards can tell a slow search apart
+ * from a slow page read.
+ */
+@Component
+public class LogMetrics {
+    public static final String CACHE_HIT = "hit";
+    public static final String CACHE_MISS = "miss";
+    public static final String CACHE_NONE = "none"; // the request is not cacheable
+
+    private final MeterRegistry registry;
+
+    public LogMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordRequest(String endpoint, String cache, long nanos) {
+        Timer.builder("logcollector.requests")
+                .description("Time to build a response, excluding time spent waiting for admission")
+                .tag("endpoint", endpoint)
+                .tag("cache", cache)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records what a request read. Pages served from the cache didn't read anything and are not recorded.
+     */
+    public void recordScan(String endpoint, LogPage page) {
+        if (page.getLinesScanned() == null) {
+            return;
+        }
+        recordScan(endpoint, page.getLinesScanned(), page.getBytesScanned() == null ? 0 : page.getBytesScanned(),
+                page.getMatchesScanned() == null ? page.getLogs().size() : page.getMatchesScanned());
+    }
+
+    public void recordScan(String endpoint, long linesScanned, long bytesScanned, long matches) {
+        DistributionSummary.builder("logcollector.scan.bytes")
+                .description("Bytes of log read per request")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(bytesScanned);
+        DistributionSummary.builder("logcollector.scan.lines")
+                .description("Lines of log read per request")
+                .baseUnit("lines")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(linesScanned);
+        if (linesScanned > 0) {
+            DistributionSummary.builder("logcollector.scan.selectivity")
+                    .description("Fraction of the lines read that matched the filter")
+                    .tag("endpoint", endpoint)
+                    .serviceLevelObjectives(0.0001, 0.001, 0.01, 0.1, 0.5, 1.0)
+                    .register(registry)
+                    .record((double) matches / linesScanned);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.logcollector.model.logs;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+public class AggregateLogsRequest {
+    private String fileName;
+
+    private String searchTerm;
+
+    private String query;
+
+    private String from;
+
+    private String to;
+
+    private String timestampFormat;
+
+    // conditions on parsed fields such as severity>=warn,program=sshd
+    private String filter;
+
+    // histogram bucket width such as 30s, 1m or 1h
+    private String interval;
+
+    // field whose most frequent values are returned: program, host, severity or the name of a name=value pair
+    private String field;
+
+    private Integer top;
+
+    private Boolean partial;
+
+    private Integer timeoutMs;
+
+    // bytes the request may read, capped by log-collector.scan.max-bytes
+    private Long maxBytes;
+}
@@ -0,0 +1,38 @@
+package com.example.logcollector.model.logs;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class AggregateLogsResponse {
+    private Long matches;
+
+    // matches without a timestamp we could read, counted in matches but not in the histogram
+    private Long untimestamped;
+
+    private Long linesScanned;
+
+    private Long intervalMs;
+
+    // oldest bucket first, buckets without matches are left out
+    private List<HistogramBucket> histogram;
+
+    // the histogram only holds the newest buckets when the matches span more than the bucket limit
+    private Boolean histogramTruncated;
+
+    private String field;
+
+    private List<FieldCount> topValues;
+
+    private Boolean partial;
+
+    private Long bytesScanned;
+
+    // the scan budget of the request, a partial count with budgetExhausted set stopped because it was used up
+    private Long maxBytes;
+
+    private Boolean budgetExhausted;
+}
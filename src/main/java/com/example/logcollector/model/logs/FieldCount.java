@@ -0,0 +1,15 @@
+package com.example.logcollector.model.logs;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class FieldCount {
+    private String value;
+
+    // an upper bound, the true count is at least count - error
+    private Long count;
+
+    private Long error;
+}
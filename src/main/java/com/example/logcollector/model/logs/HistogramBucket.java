@@ -0,0 +1,13 @@
+package com.example.logcollector.model.logs;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class HistogramBucket {
+    // epoch milliseconds of the start of the bucket
+    private Long start;
+
+    private Long count;
+}
@@ -12,7 +12,32 @@ public class ListEntriesRequest {
 
     private String searchTerm;
 
+    private String query;
+
     private Integer limit;
 
     private Long offset;
+
+    private Boolean rotated;
+
+    private Boolean partial;
+
+    private String cursor;
+
+    private String from;
+
+    private String to;
+
+    private String timestampFormat;
+
+    // conditions on parsed fields such as severity>=warn,program=sshd
+    private String filter;
+
+    // return the parsed fields of each line along with it
+    private Boolean fields;
+
+    private Integer timeoutMs;
+
+    // bytes the request may read, capped by log-collector.scan.max-bytes
+    private Long maxBytes;
 }
@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -17,4 +18,18 @@ public class ListEntriesResponse {
     private Boolean hasMore;
 
     private Long nextOffset;
+
+    private String nextCursor;
+
+    private Boolean partial;
+
+    // parsed fields of each line in logs, only when requested
+    private List<Map<String, String>> fields;
+
+    private Long bytesScanned;
+
+    // the scan budget of the request, a partial page with budgetExhausted set stopped because it was used up
+    private Long maxBytes;
+
+    private Boolean budgetExhausted;
 }
@@ -0,0 +1,23 @@
+package com.example.logcollector.model.logs;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+public class ListFilesRequest {
+    // also list the files in subdirectories, as paths relative to the log directory
+    private Boolean recursive;
+
+    // name, size or modified
+    private String sort;
+
+    // asc or desc, defaults to asc for name and desc otherwise
+    private String order;
+
+    private Integer limit;
+
+    private Long offset;
+}
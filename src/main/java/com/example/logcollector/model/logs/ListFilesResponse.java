@@ -9,4 +9,17 @@ import java.util.List;
 @Getter
 public class ListFilesResponse {
     private List<String> files;
+
+    // metadata of each file in files, in the same order
+    private List<LogFileDetails> details;
+
+    private Long offset;
+
+    private Integer limit;
+
+    private Integer total;
+
+    private Boolean hasMore;
+
+    private Long nextOffset;
 }
@@ -0,0 +1,15 @@
+package com.example.logcollector.model.logs;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LogEntry {
+    private String fileName;
+
+    private String line;
+
+    // epoch milliseconds, null when the line has no timestamp we could read
+    private Long timestamp;
+}
@@ -0,0 +1,26 @@
+package com.example.logcollector.model.logs;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LogFileDetails {
+    private String path;
+
+    private Long size;
+
+    // epoch milliseconds
+    private Long lastModified;
+
+    // path of the live file this is a rotated generation of, the file itself for the live file
+    private String rotationGroup;
+
+    // 0 for the live file, 1 for .1 and so on
+    private Long generation;
+
+    private Boolean compressed;
+
+    // from the line length at the start of the file, null for compressed files
+    private Long estimatedLines;
+}
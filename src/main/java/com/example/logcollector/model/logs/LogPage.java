@@ -13,4 +13,20 @@ public class LogPage {
     private List<String> logs;
 
     private Boolean hasMore;
+
+    // set when the scan stopped early, every line from here to the end of the scanned range was looked at
+    private Long resumePosition;
+
+    private Long matchesScanned;
+
+    // how much of the file was read to build the page, for metrics
+    private Long linesScanned;
+
+    private Long bytesScanned;
+
+    // where the last returned line starts, the next page continues from there
+    private Long lastLinePosition;
+
+    // the file the positions above belong to when it is not the requested file, e.g. an older generation
+    private Integer fileId;
 }
@@ -0,0 +1,22 @@
+package com.example.logcollector.model.logs;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class SearchLogsRequest {
+    private List<String> fileNames;
+
+    private String searchTerm;
+
+    private String query;
+
+    private Integer limit;
+
+    private Integer timeoutMs;
+}
@@ -0,0 +1,16 @@
+package com.example.logcollector.model.logs;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class SearchLogsResponse {
+    private List<LogEntry> entries;
+
+    private Integer limit;
+
+    private Boolean hasMore;
+}
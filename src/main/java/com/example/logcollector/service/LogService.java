@@ -1,11 +1,50 @@
 package com.example.logcollector.service;
 
 import com.example.logcollector.cache.Cache;
+import com.example.logcollector.cache.entry.CacheEntry;
 import com.example.logcollector.constants.Constants;
+import com.example.logcollector.file.DecompressedFileCache;
+import com.example.logcollector.file.FileSnapshot;
+import com.example.logcollector.file.LogFileCatalog;
+import com.example.logcollector.file.LogFileInfo;
+import com.example.logcollector.file.LogGenerations;
+import com.example.logcollector.index.LineIndexManager;
+import com.example.logcollector.index.ScanRange;
+import com.example.logcollector.index.SeekPoint;
+import com.example.logcollector.index.TokenIndexManager;
+import com.example.logcollector.metrics.LogMetrics;
+import com.example.logcollector.model.logs.AggregateLogsRequest;
+import com.example.logcollector.model.logs.AggregateLogsResponse;
 import com.example.logcollector.model.logs.ListEntriesRequest;
 import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.example.logcollector.model.logs.ListFilesRequest;
 import com.example.logcollector.model.logs.ListFilesResponse;
+import com.example.logcollector.model.logs.LogFileDetails;
+import com.example.logcollector.model.logs.LogEntry;
 import com.example.logcollector.model.logs.LogPage;
+import com.example.logcollector.model.logs.SearchLogsRequest;
+import com.example.logcollector.model.logs.SearchLogsResponse;
+import com.example.logcollector.service.aggregate.LogAggregator;
+import com.example.logcollector.service.cursor.ScanCursor;
+import com.example.logcollector.service.matcher.FieldFilterMatcher;
+import com.example.logcollector.service.matcher.LineMatcher;
+import com.example.logcollector.service.matcher.TimeRangeMatcher;
+import com.example.logcollector.service.parse.FieldFilter;
+import com.example.logcollector.service.parse.LineParser;
+import com.example.logcollector.service.parse.LineParsers;
+import com.example.logcollector.service.query.QueryCompiler;
+import com.example.logcollector.service.reader.ReverseLineReader;
+import com.example.logcollector.service.stream.FrontCodedLineWriter;
+import com.example.logcollector.service.stream.LineWriter;
+import com.example.logcollector.service.stream.NdjsonLineWriter;
+import com.example.logcollector.service.tail.TailFollower;
+import com.example.logcollector.service.tail.TailSubscription;
+import com.example.logcollector.service.time.TimeRange;
+import com.example.logcollector.service.time.TimeWindow;
+import com.example.logcollector.service.time.TimestampParser;
+import com.example.logcollector.util.Deadline;
+import com.example.logcollector.util.ScanBudget;
+import com.example.logcollector.util.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,30 +53,80 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StopWatch;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-
-import static com.example.logcollector.constants.Constants.CHUNK_SIZE;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class LogService {
     private static final Logger logger = LoggerFactory.getLogger(LogService.class);
 
     private final Cache<ListEntriesRequest, ListEntriesResponse> cache;
+    private final SingleFlight<ListEntriesResponse> inFlightRequests = new SingleFlight<>();
+    private final LineIndexManager lineIndexManager;
+    private final TokenIndexManager tokenIndexManager;
+    private final ParallelLogSearcher parallelLogSearcher;
+    private final QueryCompiler queryCompiler;
+    private final LineParsers lineParsers;
+    private final TailFollower tailFollower;
+    private final DecompressedFileCache decompressedFileCache;
+    private final MultiFileSearcher multiFileSearcher;
+    private final LogMetrics logMetrics;
+    private final LogFileCatalog logFileCatalog;
     private final String logPath;
+    private final long maxScanBytes;
 
     @Autowired
-    public LogService(Cache<ListEntriesRequest, ListEntriesResponse> cache, @Value("/var/log") String logPath) {
+    public LogService(Cache<ListEntriesRequest, ListEntriesResponse> cache,
+                      LineIndexManager lineIndexManager,
+                      TokenIndexManager tokenIndexManager,
+                      ParallelLogSearcher parallelLogSearcher,
+                      QueryCompiler queryCompiler,
+                      LineParsers lineParsers,
+                      TailFollower tailFollower,
+                      DecompressedFileCache decompressedFileCache,
+                      MultiFileSearcher multiFileSearcher,
+                      LogMetrics logMetrics,
+                      LogFileCatalog logFileCatalog,
+                      @Value("${log-collector.scan.max-bytes:" + Constants.DEFAULT_MAX_SCAN_BYTES + "}") long maxScanBytes) {
         this.cache = cache;
-        this.logPath = logPath;
+        this.lineIndexManager = lineIndexManager;
+        this.tokenIndexManager = tokenIndexManager;
+        this.parallelLogSearcher = parallelLogSearcher;
+        this.queryCompiler = queryCompiler;
+        this.lineParsers = lineParsers;
+        this.tailFollower = tailFollower;
+        this.decompressedFileCache = decompressedFileCache;
+        this.multiFileSearcher = multiFileSearcher;
+        this.logMetrics = logMetrics;
+        this.logFileCatalog = logFileCatalog;
+        this.logPath = logFileCatalog.root();
+        this.maxScanBytes = maxScanBytes;
     }
 
-    public ListEntriesResponse listLogEntries(ListEntriesRequest request, String reqId) throws IOException, InterruptedException {
+    public ListEntriesResponse listLogEntries(ListEntriesRequest request, String reqId, Deadline deadline)
+            throws IOException, InterruptedException {
+        if (!cache.isCacheable(request)) {
+            return computeLogEntries(request, reqId, deadline);
+        }
+        // identical requests that arrive while one is being computed share its result instead of scanning again
+        return inFlightRequests.execute(cache.buildCacheKey(request), () -> computeLogEntries(request, reqId, deadline));
+    }
+
+    private ListEntriesResponse computeLogEntries(ListEntriesRequest request, String reqId, Deadline deadline)
+            throws IOException, InterruptedException {
         StopWatch watch = new StopWatch();
         try {
             watch.start();
@@ -47,40 +136,95 @@ public class LogService {
             }
             String searchTerm = request.getSearchTerm() == null ? "" : request.getSearchTerm();
             int limit = request.getLimit() == null ? Constants.DEFAULT_LIMIT : request.getLimit();
-            long offset = request.getOffset() == null ? 0 : request.getOffset();
-            String requestString = String.format("file: %s, searchTerm: %s, limit: %s, offset: %s, requestId: %s",
-                    fileName, searchTerm, limit, offset, reqId);
-            if (cache.isCacheable(request)) {
-                String key = cache.buildCacheKey(request);
-                ListEntriesResponse cachedResponse = cache.get(key);
-                if (cachedResponse != null) {
-                    logger.info("Found cache hit for request: {}! Returning from cache with list size: {}", requestString, cachedResponse.getLogs().size());
-                    return cachedResponse;
-                }
+            ScanCursor cursor = request.getCursor() == null ? null : ScanCursor.decode(request.getCursor());
+            // with a cursor the offset defaults to the matches before it, so the page starts right at the cursor
+            long offset = request.getOffset() != null ? request.getOffset() : cursor != null ? cursor.matches() : 0;
+            String requestString = String.format("file: %s, searchTerm: %s, query: %s, limit: %s, offset: %s, requestId: %s",
+                    fileName, searchTerm, request.getQuery(), limit, offset, reqId);
+            File file = validateFile(fileName);
+            FileSnapshot snapshot = FileSnapshot.of(file);
+            boolean cacheable = cache.isCacheable(request);
+            String key = cacheable ? cache.buildCacheKey(request) : null;
+            CacheEntry<ListEntriesResponse> cachedEntry = cacheable ? cache.getEntry(key, snapshot) : null;
+            if (cachedEntry != null && snapshot.equals(cachedEntry.getSnapshot())) {
+                ListEntriesResponse cachedResponse = cachedEntry.getValue();
+                logger.info("Found cache hit for request: {}! Returning from cache with list size: {}", requestString, cachedResponse.getLogs().size());
+                watch.stop();
+                logMetrics.recordRequest("entries", LogMetrics.CACHE_HIT, watch.getTotalTimeNanos());
+                return cachedResponse;
             }
 
-            File file = validateFile(fileName);
             logger.info("Received list entries request for request: {}", requestString);
-            LogPage page = processLogsInReverse(file, searchTerm.toLowerCase(), limit, offset);
+            LineMatcher matcher = queryCompiler.compile(searchTerm, request.getQuery(), deadline);
+            TimeRange timeRange = TimeRange.parse(request.getFrom(), request.getTo(), ZoneId.systemDefault());
+            TimestampParser timestampParser = TimestampParser.forFormat(request.getTimestampFormat());
+            if (timeRange != null) {
+                matcher = new TimeRangeMatcher(matcher, timestampParser, timeRange);
+            }
+            LineParser lineParser = lineParsers.forFile(file);
+            matcher = filterFields(matcher, lineParser, request.getFilter());
+            Deadline stopAt = partialStopAt(Boolean.TRUE.equals(request.getPartial()), deadline);
+            ScanBudget budget = scanBudget(request.getMaxBytes());
+            long matchesBefore = cursor == null ? 0 : cursor.matches();
+            if (offset < matchesBefore) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Offset is before the cursor");
+            }
+            boolean compressed = LogGenerations.isCompressed(file);
+            // matches jumped over by seeking with the line index, which the page itself never counted
+            long matchesSkipped = 0;
+            LogPage page;
+            if (cachedEntry != null && offset == 0 && !compressed && isAppendOnly(file, cachedEntry.getSnapshot(), snapshot)) {
+                logger.info("File grew since request {} was cached, scanning only the appended bytes", requestString);
+                page = mergeAppended(file, matcher, limit, cachedEntry, snapshot, deadline, stopAt, budget);
+            } else if (Boolean.TRUE.equals(request.getRotated()) || compressed) {
+                // older generations are searched as the continuation of this file, newest first
+                List<File> generations = Boolean.TRUE.equals(request.getRotated()) ? logFileCatalog.generations(file) : List.of(file);
+                page = searchGenerations(generations, matcher, timeRange, timestampParser, limit, offset - matchesBefore, cursor, fileName, deadline, stopAt, budget);
+            } else if (cursor != null) {
+                // every page costs the same, the scan starts where the previous page stopped instead of skipping its matches
+                validateCursor(cursor, snapshot, fileName);
+                ScanRange window = timeWindow(file, timeRange, timestampParser, cursor.position());
+                page = searchIndexed(file, searchTerm, matcher, limit, offset - matchesBefore, window, deadline, stopAt, budget);
+            } else {
+                // unfiltered pages can jump straight to the right region of the file using the line index
+                Optional<SeekPoint> seekPoint = matcher == LineMatcher.MATCH_ALL ? lineIndexManager.seekPoint(file, offset) : Optional.empty();
+                if (seekPoint.isPresent()) {
+                    page = processLogsInReverse(file, matcher, limit, seekPoint.get().linesToSkip(), 0, seekPoint.get().position(), deadline, stopAt, budget);
+                    matchesSkipped = offset - seekPoint.get().linesToSkip();
+                } else {
+                    ScanRange window = timeWindow(file, timeRange, timestampParser, snapshot.size());
+                    page = searchIndexed(file, searchTerm, matcher, limit, offset, window, deadline, stopAt, budget);
+                }
+            }
 
             watch.stop();
             logger.info("Logs for request {} took {} ms", requestString, watch.getTotalTimeMillis());
+            logMetrics.recordScan("entries", page);
+            logMetrics.recordRequest("entries", cacheable ? LogMetrics.CACHE_MISS : LogMetrics.CACHE_NONE, watch.getTotalTimeNanos());
+            boolean partial = page.getResumePosition() != null;
             ListEntriesResponse response = ListEntriesResponse.builder()
                     .logs(page.getLogs())
-                    .hasMore(page.getHasMore())
+                    .hasMore(partial || page.getHasMore())
                     .offset(offset)
                     .limit(limit)
                     .nextOffset(offset + page.getLogs().size())
+                    .nextCursor(nextCursor(page, snapshot, offset, matchesBefore + matchesSkipped))
+                    .partial(partial)
+                    .fields(Boolean.TRUE.equals(request.getFields()) ? parseFields(lineParser, page.getLogs()) : null)
+                    .bytesScanned(page.getBytesScanned())
+                    .maxBytes(budget.maxBytes())
+                    .budgetExhausted(budget.isExhausted())
                     .build();
 
-            // This is a swallowed return. In this situation the controller already returned the proper timeout error
-            if (Thread.currentThread().isInterrupted()) {
-                return response;
-            }
-
-            if (cache.isCacheable(request)) {
+            // a page finished after the client gave up is not cached, the client already got a timeout error
+            deadline.check();
+            if (partial && budget.isExhausted()) {
+                logger.info("Request {} used its scan budget of {} bytes, returning {} logs found so far", requestString, budget.maxBytes(), page.getLogs().size());
+            } else if (partial) {
+                logger.info("Request {} ran out of time, returning {} logs found so far", requestString, page.getLogs().size());
+            } else if (cacheable) {
                 logger.info("Caching request: {}", requestString);
-                cache.put(cache.buildCacheKey(request), response);
+                cache.put(key, response, snapshot);
             }
             return response;
         } finally {
@@ -91,12 +235,196 @@ public class LogService {
         }
     }
 
-    public ListFilesResponse listLogFiles(String reqId) {
+    public SseEmitter followLogEntries(ListEntriesRequest request, String reqId, Deadline deadline)
+            throws IOException, InterruptedException {
+        File file = validateFile(request.getFileName());
+        String searchTerm = request.getSearchTerm() == null ? "" : request.getSearchTerm();
+        int limit = request.getLimit() == null ? Constants.DEFAULT_LIMIT : request.getLimit();
+        // followers keep matching long after the request deadline, so the query is not bound to it
+        LineMatcher matcher = filterFields(queryCompiler.compile(searchTerm, request.getQuery()), lineParsers.forFile(file), request.getFilter());
+        logger.info("Following file: {}, searchTerm: {}, query: {}, requestId: {}", file, searchTerm, request.getQuery(), reqId);
+
+        SseEmitter emitter = new SseEmitter(Constants.TAIL_EMITTER_TIMEOUT_IN_MS);
+        TailSubscription subscription = tailFollower.subscribe(file, matcher, emitter);
+        try {
+            // the initial page ends exactly where following starts so no line is sent twice or skipped
+            LogPage page = searchLogsInReverse(file, matcher, limit, 0, 0, subscription.getStartPosition(), deadline, null, ScanBudget.none());
+            deadline.check();
+            subscription.start(ListEntriesResponse.builder()
+                    .logs(page.getLogs())
+                    .hasMore(page.getHasMore())
+                    .offset(0L)
+                    .limit(limit)
+                    .nextOffset((long) page.getLogs().size())
+                    .build());
+            return emitter;
+        } catch (IOException | RuntimeException e) {
+            subscription.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Validates a request and returns a body that scans the file and writes each match to the response as soon
+     * as it is found, followed by a trailer with the paging fields. Nothing is collected into a list, so memory
+     * use per request is bounded by the read window and the output buffer whatever the page size. Headers are
+     * already sent when the scan runs, so instead of timing out it stops shortly before the deadline and the
+     * trailer carries a cursor to continue from, as for a partial page.
+     *
+     * @param mediaType {@link Constants#LINES_MEDIA_TYPE} for the compact encoding, otherwise NDJSON
+     */
+    public StreamingResponseBody streamLogEntries(ListEntriesRequest request, String reqId, Deadline deadline, String mediaType)
+            throws IOException {
+        String fileName = request.getFileName();
+        File file = validateFile(fileName);
+        if (Boolean.TRUE.equals(request.getRotated()) || LogGenerations.isCompressed(file)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rotated and compressed logs can't be streamed, request JSON instead");
+        }
+        String searchTerm = request.getSearchTerm() == null ? "" : request.getSearchTerm();
+        int limit = request.getLimit() == null ? Constants.DEFAULT_LIMIT : request.getLimit();
+        ScanCursor cursor = request.getCursor() == null ? null : ScanCursor.decode(request.getCursor());
+        long offset = request.getOffset() != null ? request.getOffset() : cursor != null ? cursor.matches() : 0;
+        long matchesBefore = cursor == null ? 0 : cursor.matches();
+        if (offset < matchesBefore) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Offset is before the cursor");
+        }
+        FileSnapshot snapshot = FileSnapshot.of(file);
+        if (cursor != null) {
+            validateCursor(cursor, snapshot, fileName);
+        }
+        LineMatcher matcher = queryCompiler.compile(searchTerm, request.getQuery(), deadline);
+        TimeRange timeRange = TimeRange.parse(request.getFrom(), request.getTo(), ZoneId.systemDefault());
+        TimestampParser timestampParser = TimestampParser.forFormat(request.getTimestampFormat());
+        if (timeRange != null) {
+            matcher = new TimeRangeMatcher(matcher, timestampParser, timeRange);
+        }
+        LineParser lineParser = lineParsers.forFile(file);
+        matcher = filterFields(matcher, lineParser, request.getFilter());
+        ScanRange window = timeWindow(file, timeRange, timestampParser, cursor != null ? cursor.position() : snapshot.size());
+        List<ScanRange> ranges = indexedRanges(file, searchTerm, window).orElse(List.of(window));
+        logger.info("Streaming file: {}, searchTerm: {}, query: {}, limit: {}, offset: {}, requestId: {}",
+                fileName, searchTerm, request.getQuery(), limit, offset, reqId);
+
+        LineMatcher streamMatcher = matcher;
+        LineParser fieldsParser = Boolean.TRUE.equals(request.getFields()) ? lineParser : null;
+        ScanBudget budget = scanBudget(request.getMaxBytes());
+        boolean compact = Constants.LINES_MEDIA_TYPE.equals(mediaType);
+        return out -> writeLogStream(file, streamMatcher, fieldsParser, ranges, limit, offset, matchesBefore, snapshot, deadline, budget,
+                compact ? new FrontCodedLineWriter(out, Constants.STREAM_BUFFER_SIZE) : new NdjsonLineWriter(out, Constants.STREAM_BUFFER_SIZE));
+    }
+
+    public SearchLogsResponse searchLogFiles(SearchLogsRequest request, String reqId, Deadline deadline)
+            throws IOException, InterruptedException {
+        StopWatch watch = new StopWatch();
+        try {
+            watch.start();
+            String searchTerm = request.getSearchTerm() == null ? "" : request.getSearchTerm();
+            int limit = request.getLimit() == null ? Constants.DEFAULT_LIMIT : request.getLimit();
+            logger.info("Searching files: {}, searchTerm: {}, query: {}, limit: {}, requestId: {}",
+                    request.getFileNames(), searchTerm, request.getQuery(), limit, reqId);
+            List<File> files = new ArrayList<>();
+            for (String fileName : request.getFileNames().stream().distinct().toList()) {
+                files.add(validateFile(fileName));
+            }
+            LineMatcher matcher = queryCompiler.compile(searchTerm, request.getQuery(), deadline);
+
+            // one more line than the page needs, to find out whether there are more
+            List<LogEntry> entries = multiFileSearcher.search(files, matcher, limit + 1, deadline);
+            boolean hasMore = entries.size() > limit;
+            watch.stop();
+            logger.info("Search request {} took {} ms", reqId, watch.getTotalTimeMillis());
+            logMetrics.recordRequest("search", LogMetrics.CACHE_NONE, watch.getTotalTimeNanos());
+            return SearchLogsResponse.builder()
+                    .entries(hasMore ? entries.subList(0, limit) : entries)
+                    .limit(limit)
+                    .hasMore(hasMore)
+                    .build();
+        } finally {
+            // stop the current stop watch
+            if (watch.isRunning()) {
+                watch.stop();
+            }
+        }
+    }
+
+    /**
+     * Reads the matching lines of a file once, newest first, and counts them into a time histogram and the top
+     * values of a field. Time ranges and the token index narrow the bytes read exactly as for a page.
+     */
+    public AggregateLogsResponse aggregateLogEntries(AggregateLogsRequest request, String reqId, Deadline deadline)
+            throws IOException {
+        StopWatch watch = new StopWatch();
+        try {
+            watch.start();
+            String fileName = request.getFileName();
+            File file = validateFile(fileName);
+            if (LogGenerations.isCompressed(file)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Compressed logs can't be aggregated");
+            }
+            String searchTerm = request.getSearchTerm() == null ? "" : request.getSearchTerm();
+            int top = request.getTop() == null ? Constants.DEFAULT_AGGREGATE_TOP : request.getTop();
+            long intervalMs = LogAggregator.parseInterval(request.getInterval() == null ? Constants.DEFAULT_AGGREGATE_INTERVAL : request.getInterval());
+            LineParser lineParser = lineParsers.forFile(file);
+            LineMatcher matcher = filterFields(queryCompiler.compile(searchTerm, request.getQuery(), deadline), lineParser, request.getFilter());
+            TimeRange timeRange = TimeRange.parse(request.getFrom(), request.getTo(), ZoneId.systemDefault());
+            TimestampParser timestampParser = TimestampParser.forFormat(request.getTimestampFormat());
+            String field = request.getField() == null || request.getField().isBlank() ? null : request.getField();
+            logger.info("Aggregating file: {}, searchTerm: {}, query: {}, interval: {} ms, field: {}, requestId: {}",
+                    fileName, searchTerm, request.getQuery(), intervalMs, request.getField(), reqId);
+
+            ScanRange window = timeWindow(file, timeRange, timestampParser, file.length());
+            List<ScanRange> ranges = indexedRanges(file, searchTerm, window).orElse(List.of(window));
+            ScanBudget budget = scanBudget(request.getMaxBytes());
+            LogAggregator aggregator = new LogAggregator(timestampParser, timeRange, intervalMs, lineParser, field);
+            ReverseScan scan = new ReverseScan(file, matcher, 0, Long.MAX_VALUE, deadline, partialStopAt(Boolean.TRUE.equals(request.getPartial()), deadline), budget)
+                    .run(ranges, reader -> aggregator.add(reader.buffer(), reader.lineStartInBuffer(), reader.lineEndInBuffer()));
+            long linesScanned = scan.linesScanned();
+            boolean partial = scan.resumePosition() != null;
+
+            watch.stop();
+            logger.info("Aggregation request {} counted {} matches in {} ms", reqId, aggregator.matches(), watch.getTotalTimeMillis());
+            logMetrics.recordScan("aggregate", linesScanned, budget.bytesScanned(), aggregator.matches());
+            logMetrics.recordRequest("aggregate", LogMetrics.CACHE_NONE, watch.getTotalTimeNanos());
+            return AggregateLogsResponse.builder()
+                    .matches(aggregator.matches())
+                    .untimestamped(aggregator.untimestamped())
+                    .linesScanned(linesScanned)
+                    .intervalMs(intervalMs)
+                    .histogram(aggregator.histogram())
+                    .histogramTruncated(aggregator.histogramTruncated())
+                    .field(field)
+                    .topValues(aggregator.topValues(top))
+                    .partial(partial)
+                    .bytesScanned(budget.bytesScanned())
+                    .maxBytes(budget.maxBytes())
+                    .budgetExhausted(budget.isExhausted())
+                    .build();
+        } finally {
+            // stop the current stop watch
+            if (watch.isRunning()) {
+                watch.stop();
+            }
+        }
+    }
+
+    /**
+     * Lists the log files from the catalog, so no request touches the disk however many files there are.
+     */
+    public ListFilesResponse listLogFiles(ListFilesRequest request, String reqId) {
         StopWatch watch = new StopWatch();
         try {
             watch.start();
             logger.info("Starting request {} to list files", reqId);
-            List<String> fileList = getFullFileList();
+            boolean recursive = Boolean.TRUE.equals(request.getRecursive());
+            String sort = request.getSort() == null ? "name" : request.getSort();
+            boolean descending = request.getOrder() == null ? !sort.equals("name") : request.getOrder().equals("desc");
+            int limit = request.getLimit() == null ? Constants.DEFAULT_FILES_LIMIT : request.getLimit();
+            long offset = request.getOffset() == null ? 0 : request.getOffset();
+            List<LogFileInfo> files = logFileCatalog.files().stream()
+                    .filter(file -> recursive || file.path().indexOf('/') < 0)
+                    .sorted(fileOrder(sort, descending))
+                    .toList();
+            List<LogFileInfo> page = files.subList((int) Math.min(offset, files.size()), (int) Math.min(offset + limit, files.size()));
             watch.stop();
 
             // This is a swallowed return. In this situation the controller already returned the proper timeout error
@@ -104,8 +432,15 @@ public class LogService {
                 return ListFilesResponse.builder().build();
             }
             logger.info("request id {} took {} ms", reqId, watch.getTotalTimeMillis());
+            logMetrics.recordRequest("files", LogMetrics.CACHE_NONE, watch.getTotalTimeNanos());
             return ListFilesResponse.builder()
-                    .files(fileList)
+                    .files(page.stream().map(LogFileInfo::path).toList())
+                    .details(page.stream().map(LogService::toDetails).toList())
+                    .offset(offset)
+                    .limit(limit)
+                    .total(files.size())
+                    .hasMore(offset + page.size() < files.size())
+                    .nextOffset(offset + page.size())
                     .build();
         } finally {
             // stop the current stop watch
@@ -119,6 +454,10 @@ public class LogService {
         if (fileName == null || fileName.isBlank()) {
             logger.warn("No file specified, defaulting to syslog or messages...");
             for (String logFile : Constants.DEFAULT_LOG_FILES) {
+                Optional<LogFileInfo> cataloged = logFileCatalog.find(logFile);
+                if (cataloged.isPresent()) {
+                    return cataloged.get().file();
+                }
                 File file = new File(String.format("%s/%s", logPath, logFile));
                 if (file.exists()) {
                     return file;
@@ -127,6 +466,12 @@ public class LogService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "syslog or messages log file does not exist!");
         }
 
+        // cataloged files are regular files inside the log directory, reached without following links
+        Optional<LogFileInfo> cataloged = logFileCatalog.find(fileName);
+        if (cataloged.isPresent()) {
+            return cataloged.get().file();
+        }
+        // not cataloged yet, or a path the catalog leaves out, so check it on disk
         File file = new File(String.format("%s/%s", logPath, fileName));
         String canonicalFileName = file.getCanonicalFile().toString();
         if (!canonicalFileName.startsWith(logPath)) {
@@ -140,95 +485,420 @@ public class LogService {
         return file;
     }
 
-    private List<String> getFullFileList() {
-        File logDirectory = new File(logPath);
-        File[] files = logDirectory.listFiles(f ->
-                f.isFile() && !f.getName().endsWith(".gz") && !f.getName().startsWith("."));
-        if (files == null) {
-            return List.of();
+    private static Comparator<LogFileInfo> fileOrder(String sort, boolean descending) {
+        Comparator<LogFileInfo> order = switch (sort) {
+            case "size" -> Comparator.comparingLong(LogFileInfo::size);
+            case "modified" -> Comparator.comparingLong(LogFileInfo::lastModified);
+            default -> Comparator.comparing(LogFileInfo::path);
+        };
+        // ties keep the name order whichever way the rest is sorted
+        return (descending ? order.reversed() : order).thenComparing(LogFileInfo::path);
+    }
+
+    private static LogFileDetails toDetails(LogFileInfo file) {
+        return LogFileDetails.builder()
+                .path(file.path())
+                .size(file.size())
+                .lastModified(file.lastModified())
+                .rotationGroup(file.rotationGroup())
+                .generation(file.generation())
+                .compressed(file.compressed())
+                .estimatedLines(file.estimatedLines())
+                .build();
+    }
+
+    /**
+     * A cursor only fits the file it was issued for. Appending to the file keeps it valid since the bytes before
+     * the cursor do not move, rotation and truncation do not.
+     */
+    private void validateCursor(ScanCursor cursor, FileSnapshot snapshot, String fileName) {
+        if (cursor.fileId() != snapshot.fileId() || cursor.position() > snapshot.size()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    String.format("File %s was rotated or truncated, start a new search", fileName));
         }
-        List<String> fileList = Arrays.stream(files).map(File::getName).toList();
-        // This is a swallowed return. In this situation the controller already returned the proper timeout error
-        if (Thread.currentThread().isInterrupted()) {
-            return List.of();
+    }
+
+    /**
+     * A partial page continues where the scan stopped, a full page continues at its last line so that the
+     * match that told us there is more is found again by the next page.
+     */
+    private String nextCursor(LogPage page, FileSnapshot snapshot, long offset, long matchesBefore) {
+        int fileId = page.getFileId() == null ? snapshot.fileId() : page.getFileId();
+        if (page.getResumePosition() != null) {
+            return new ScanCursor(fileId, page.getResumePosition(), matchesBefore + page.getMatchesScanned()).encode();
+        }
+        if (Boolean.TRUE.equals(page.getHasMore()) && page.getLastLinePosition() != null) {
+            return new ScanCursor(fileId, page.getLastLinePosition(), offset + page.getLogs().size()).encode();
         }
-        return fileList;
+        return null;
     }
 
-    private LogPage processLogsInReverse(File file, String searchTerm, int limit, long offset) throws IOException {
-        List<String> logs = new ArrayList<>();
-        byte[] chunk = new byte[CHUNK_SIZE];
-        StringBuilder currentLine = new StringBuilder();
-        int linesFound = 0;
-        int linesSkipped = 0;
-        boolean hasMore = false;
+    private void writeLogStream(File file,
+                                LineMatcher matcher,
+                                LineParser fieldsParser,
+                                List<ScanRange> ranges,
+                                int limit,
+                                long offset,
+                                long matchesBefore,
+                                FileSnapshot snapshot,
+                                Deadline deadline,
+                                ScanBudget budget,
+                                LineWriter writer) throws IOException {
+        long startedAt = System.nanoTime();
+        // headers are already sent, so the stream always ends with a trailer at the stop point instead of failing at the deadline
+        ReverseScan scan = new ReverseScan(file, matcher, offset - matchesBefore, limit, Deadline.none(), partialStopAt(true, deadline), budget)
+                .run(ranges, new ReverseScan.LineConsumer() {
+                    @Override
+                    public void accept(ReverseLineReader reader) throws IOException {
+                        if (fieldsParser == null) {
+                            writer.writeLine(reader.buffer(), reader.lineStartInBuffer(), reader.lineEndInBuffer());
+                        } else {
+                            writer.writeLine(reader.buffer(), reader.lineStartInBuffer(), reader.lineEndInBuffer(),
+                                    fieldsParser.fields(reader.buffer(), reader.lineStartInBuffer(), reader.lineEndInBuffer()));
+                        }
+                    }
 
-        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
-            long filePointer = raf.length();
-            while (filePointer > 0 && (linesFound < limit || !hasMore)) {
-                // This is a swallowed return. In this situation the controller already returned the proper timeout error
-                if (Thread.currentThread().isInterrupted()) {
-                    return LogPage.builder().build();
-                }
-                int bytesToRead = (int) Math.min(CHUNK_SIZE, filePointer);
-                filePointer -= bytesToRead;
-                raf.seek(filePointer);
-                raf.readFully(chunk, 0, bytesToRead);
-                for (int i = bytesToRead - 1; i >= 0; i--) {
-                    char c = (char) chunk[i];
-                    if (c == '\n') {
-                        if (!currentLine.isEmpty()) {
-                            String line = currentLine.reverse().toString();
-                            currentLine.setLength(0);
-                            if (searchTerm == null || line.toLowerCase().contains(searchTerm)) {
-                                if (linesSkipped < offset) {
-                                    linesSkipped++;
-                                    continue;
-                                }
-                                if (linesFound < limit) {
-                                    logs.add(line.trim());
-                                    linesFound++;
-                                } else {
-                                    hasMore = true;
-                                    break;
-                                }
-                            }
+                    @Override
+                    public void checkpoint() throws IOException {
+                        // a rare term would otherwise sit in the buffer until the end of the scan
+                        if (writer.hasPending()) {
+                            writer.flush();
                         }
-                    } else {
-                        currentLine.append(c);
                     }
+                });
+
+        // same cursors as a JSON page: resume where the scan stopped, or at the last line sent when the page is full
+        boolean partial = scan.resumePosition() != null;
+        String nextCursor = null;
+        if (partial) {
+            nextCursor = new ScanCursor(snapshot.fileId(), scan.resumePosition(), matchesBefore + scan.matchesScanned()).encode();
+        } else if (scan.hasMore() && scan.lastLinePosition() != null) {
+            nextCursor = new ScanCursor(snapshot.fileId(), scan.lastLinePosition(), offset + scan.returned()).encode();
+        }
+        writer.writeTrailer(ListEntriesResponse.builder()
+                .hasMore(partial || scan.hasMore())
+                .offset(offset)
+                .limit(limit)
+                .nextOffset(offset + scan.returned())
+                .nextCursor(nextCursor)
+                .partial(partial)
+                .bytesScanned(budget.bytesScanned())
+                .maxBytes(budget.maxBytes())
+                .budgetExhausted(budget.isExhausted())
+                .build());
+        writer.flush();
+        logMetrics.recordScan("stream", scan.linesScanned(), budget.bytesScanned(), scan.matchesScanned());
+        logMetrics.recordRequest("stream", LogMetrics.CACHE_NONE, System.nanoTime() - startedAt);
+    }
+
+    /**
+     * Searches generations of a log newest first as if they were one file. A cursor names the generation by its
+     * inode, which survives the renames of a rotation, so paging keeps working while the log rotates and never
+     * decompresses the generations before the one it resumes in.
+     */
+    private LogPage searchGenerations(List<File> generations,
+                                      LineMatcher matcher,
+                                      TimeRange timeRange,
+                                      TimestampParser timestampParser,
+                                      int limit,
+                                      long offset,
+                                      ScanCursor cursor,
+                                      String fileName,
+                                      Deadline deadline,
+                                      Deadline stopAt,
+                                      ScanBudget budget) throws IOException, InterruptedException {
+        List<String> logs = new ArrayList<>();
+        long toSkip = offset;
+        long matchesScanned = 0;
+        long linesScanned = 0;
+        long bytesScanned = 0;
+        Integer lastFileId = null;
+        Long lastLinePosition = null;
+        boolean resuming = cursor != null;
+        for (File generation : generations) {
+            int fileId = FileSnapshot.of(generation).fileId();
+            if (resuming && fileId != cursor.fileId()) {
+                continue;
+            }
+            deadline.check();
+            File readable = LogGenerations.isCompressed(generation) ? decompressedFileCache.decompress(generation, deadline) : generation;
+            long startPosition = readable.length();
+            if (resuming) {
+                if (cursor.position() > startPosition) {
+                    break;
                 }
+                startPosition = cursor.position();
+                resuming = false;
             }
+
+            // a generation that was written entirely outside the time range is not read at all
+            ScanRange window = timeWindow(readable, timeRange, timestampParser, startPosition);
+            if (window.start() == window.end()) {
+                continue;
+            }
+            LogPage page = searchLogsInReverse(readable, matcher, limit - logs.size(), toSkip, window.start(), window.end(), deadline, stopAt, budget);
+            logs.addAll(page.getLogs());
+            toSkip -= page.getMatchesScanned() - page.getLogs().size();
+            matchesScanned += page.getMatchesScanned();
+            linesScanned += page.getLinesScanned();
+            bytesScanned += page.getBytesScanned();
+            if (!page.getLogs().isEmpty()) {
+                lastFileId = fileId;
+                lastLinePosition = page.getLastLinePosition();
+            }
+            if (page.getResumePosition() != null) {
+                return LogPage.builder()
+                        .logs(logs)
+                        .hasMore(true)
+                        .resumePosition(page.getResumePosition())
+                        .matchesScanned(matchesScanned)
+                        .linesScanned(linesScanned)
+                        .bytesScanned(bytesScanned)
+                        .fileId(fileId)
+                        .build();
+            }
+            if (page.getHasMore()) {
+                // the page may have filled up in a newer generation, the next one continues after its last line
+                return LogPage.builder()
+                        .logs(logs)
+                        .hasMore(true)
+                        .matchesScanned(matchesScanned)
+                        .linesScanned(linesScanned)
+                        .bytesScanned(bytesScanned)
+                        .lastLinePosition(lastLinePosition)
+                        .fileId(lastFileId)
+                        .build();
+            }
+        }
+        if (resuming) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    String.format("The generation of %s the cursor points to no longer exists, start a new search", fileName));
+        }
+        return LogPage.builder()
+                .logs(logs)
+                .hasMore(false)
+                .matchesScanned(matchesScanned)
+                .linesScanned(linesScanned)
+                .bytesScanned(bytesScanned)
+                .build();
+    }
+
+    /**
+     * Scans only the blocks of {@code window} that the token index can't rule out for the search term. Without
+     * an index, or when the term may be in most of the window, the whole window is scanned instead.
+     */
+    private LogPage searchIndexed(File file,
+                                  String searchTerm,
+                                  LineMatcher matcher,
+                                  int limit,
+                                  long offset,
+                                  ScanRange window,
+                                  Deadline deadline,
+                                  Deadline stopAt,
+                                  ScanBudget budget) throws IOException, InterruptedException {
+        Optional<List<ScanRange>> ranges = indexedRanges(file, searchTerm, window);
+        if (ranges.isEmpty()) {
+            return searchLogsInReverse(file, matcher, limit, offset, window.start(), window.end(), deadline, stopAt, budget);
+        }
+        List<String> logs = new ArrayList<>();
+        long toSkip = offset;
+        long matchesScanned = 0;
+        long linesScanned = 0;
+        long bytesScanned = 0;
+        Long lastLinePosition = null;
+        for (ScanRange range : ranges.get()) {
+            LogPage page = processLogsInReverse(file, matcher, limit - logs.size(), toSkip, range.start(), range.end(), deadline, stopAt, budget);
+            logs.addAll(page.getLogs());
+            toSkip -= page.getMatchesScanned() - page.getLogs().size();
+            matchesScanned += page.getMatchesScanned();
+            linesScanned += page.getLinesScanned();
+            bytesScanned += page.getBytesScanned();
+            if (page.getLastLinePosition() != null) {
+                lastLinePosition = page.getLastLinePosition();
+            }
+            if (page.getResumePosition() != null || page.getHasMore()) {
+                return LogPage.builder()
+                        .logs(logs)
+                        .hasMore(true)
+                        .resumePosition(page.getResumePosition())
+                        .matchesScanned(matchesScanned)
+                        .linesScanned(linesScanned)
+                        .bytesScanned(bytesScanned)
+                        .lastLinePosition(lastLinePosition)
+                        .build();
+            }
+        }
+        return LogPage.builder()
+                .logs(logs)
+                .hasMore(false)
+                .matchesScanned(matchesScanned)
+                .linesScanned(linesScanned)
+                .bytesScanned(bytesScanned)
+                .lastLinePosition(lastLinePosition)
+                .build();
+    }
+
+    /**
+     * Returns the ranges of {@code window} the token index can't rule out for the search term, or empty when
+     * there is no index or the term may be in most of the window.
+     */
+    private Optional<List<ScanRange>> indexedRanges(File file, String searchTerm, ScanRange window) throws IOException {
+        long windowBytes = window.end() - window.start();
+        return tokenIndexManager.scanRanges(file, searchTerm, window.end())
+                .map(list -> list.stream()
+                        .filter(range -> range.end() > window.start())
+                        .map(range -> new ScanRange(Math.max(range.start(), window.start()), range.end()))
+                        .toList())
+                .filter(list -> list.stream().mapToLong(range -> range.end() - range.start()).sum() <= windowBytes / 2);
+    }
+
+    private LineMatcher filterFields(LineMatcher matcher, LineParser lineParser, String filter) {
+        if (filter == null || filter.isBlank()) {
+            return matcher;
+        }
+        try {
+            return new FieldFilterMatcher(matcher, lineParser, FieldFilter.parse(filter));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
+    }
 
-        // process the first line of the file since there are no more \n characters to process
-        hasMore = processFirstLine(linesFound, limit, currentLine, searchTerm, logs, hasMore);
+    /**
+     * Parses the fields of the lines of a page. The lines are already decoded, so this only runs for the lines
+     * that are returned, never while scanning.
+     */
+    private List<Map<String, String>> parseFields(LineParser lineParser, List<String> lines) {
+        List<Map<String, String>> fields = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            fields.add(lineParser.fields(buffer, 0, buffer.limit()));
+        }
+        return fields;
+    }
 
-        logger.info("Number of logs retrieved: {}", logs.size());
+    /**
+     * A request can ask for a smaller budget than the configured one, never a larger one.
+     */
+    private ScanBudget scanBudget(Long maxBytes) {
+        return ScanBudget.of(maxBytes == null ? maxScanBytes : Math.min(maxBytes, maxScanBytes));
+    }
+
+    /**
+     * Returns the part of the file below {@code endPosition} that can hold lines in the time range, found by
+     * binary searching the timestamps, or all of it when there is no time range.
+     */
+    private ScanRange timeWindow(File file, TimeRange timeRange, TimestampParser timestampParser, long endPosition) throws IOException {
+        if (timeRange == null) {
+            return new ScanRange(0, endPosition);
+        }
+        return TimeWindow.locate(file, timestampParser, timeRange, endPosition);
+    }
+
+    private LogPage searchLogsInReverse(File file,
+                                        LineMatcher matcher,
+                                        int limit,
+                                        long offset,
+                                        long lowerBound,
+                                        long startPosition,
+                                        Deadline deadline,
+                                        Deadline stopAt,
+                                        ScanBudget budget) throws IOException, InterruptedException {
+        // a budget smaller than the file limits the search to its newest part, which may not be worth splitting up
+        if (parallelLogSearcher.shouldSearchInParallel(matcher, Math.min(startPosition - lowerBound, budget.remaining()))) {
+            return parallelLogSearcher.search(file, matcher, limit, offset, lowerBound, startPosition, deadline, stopAt, budget);
+        }
+        return processLogsInReverse(file, matcher, limit, offset, lowerBound, startPosition, deadline, stopAt, budget);
+    }
+
+    /**
+     * A file only grew by whole lines since it was cached when it is the same inode, it is larger, and the
+     * cached region ended on a newline. Anything else (rotation, truncation, a line that was still being
+     * written) needs a full scan.
+     */
+    private boolean isAppendOnly(File file, FileSnapshot cached, FileSnapshot current) throws IOException {
+        if (cached == null || !current.isSameFile(cached) || current.size() <= cached.size()) {
+            return false;
+        }
+        if (cached.size() == 0) {
+            return true;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(cached.size() - 1);
+            return raf.read() == '\n';
+        }
+    }
+
+    /**
+     * Builds the first page of a file that was only appended to by scanning the appended bytes and putting
+     * the new matches in front of the cached ones. When the budget or the time of a partial search runs out
+     * within the appended bytes the page is partial like any other, the cursor continues through the rest of the file.
+     */
+    private LogPage mergeAppended(File file,
+                                  LineMatcher matcher,
+                                  int limit,
+                                  CacheEntry<ListEntriesResponse> cachedEntry,
+                                  FileSnapshot snapshot,
+                                  Deadline deadline,
+                                  Deadline stopAt,
+                                  ScanBudget budget) throws IOException {
+        ListEntriesResponse cached = cachedEntry.getValue();
+        LogPage appended = processLogsInReverse(file, matcher, limit, 0, cachedEntry.getSnapshot().size(), snapshot.size(), deadline, stopAt, budget);
+        if (appended.getResumePosition() != null) {
+            return appended;
+        }
+        List<String> logs = new ArrayList<>(appended.getLogs());
+        int fromCache = Math.min(limit - logs.size(), cached.getLogs().size());
+        logs.addAll(cached.getLogs().subList(0, fromCache));
+        boolean hasMore = appended.getHasMore()
+                || fromCache < cached.getLogs().size()
+                || Boolean.TRUE.equals(cached.getHasMore());
         return LogPage.builder()
                 .logs(logs)
                 .hasMore(hasMore)
+                // positions of cached lines are not kept, so only a page of appended lines gets a cursor
+                .lastLinePosition(fromCache == 0 ? appended.getLastLinePosition() : null)
+                .linesScanned(appended.getLinesScanned())
+                .bytesScanned(appended.getBytesScanned())
                 .build();
     }
 
-    private boolean processFirstLine(int linesFound,
-                                     int limit,
-                                     StringBuilder currentLine,
-                                     String searchTerm,
-                                     List<String> logs,
-                                     boolean hasMore) {
-        boolean updatedHasMore = hasMore;
-        if (linesFound < limit && !currentLine.isEmpty()) {
-            String line = currentLine.reverse().toString();
-            if (searchTerm == null || line.toLowerCase().contains(searchTerm)) {
-                logs.add(line.trim());
-            }
-        } else if (!updatedHasMore) {
-            String line = currentLine.reverse().toString();
-            if (searchTerm == null || line.toLowerCase().contains(searchTerm)) {
-                updatedHasMore = true;
-            }
+    /**
+     * Scans backwards from {@code startPosition}. When {@code stopAt} is set and passes, or the next line would
+     * go over the budget, the scan stops early and the page records where it stopped so the search can be resumed.
+     */
+    private LogPage processLogsInReverse(File file,
+                                         LineMatcher matcher,
+                                         int limit,
+                                         long offset,
+                                         long lowerBound,
+                                         long startPosition,
+                                         Deadline deadline,
+                                         Deadline stopAt,
+                                         ScanBudget budget) throws IOException {
+        List<String> logs = new ArrayList<>();
+        ReverseScan scan = new ReverseScan(file, matcher, offset, limit, deadline, stopAt, budget)
+                .run(List.of(new ScanRange(lowerBound, startPosition)), reader -> logs.add(reader.line().trim()));
+
+        logger.info("Number of logs retrieved: {}", logs.size());
+        return LogPage.builder()
+                .logs(logs)
+                .hasMore(scan.hasMore())
+                .resumePosition(scan.resumePosition())
+                .lastLinePosition(scan.lastLinePosition())
+                .matchesScanned(scan.matchesScanned())
+                .linesScanned(scan.linesScanned())
+                .bytesScanned(scan.bytesScanned())
+                .build();
+    }
+
+    /**
+     * Partial searches stop a little before the deadline so the matches found so far can still be returned.
+     * Returns null when the search is not partial and runs until the deadline.
+     */
+    private static Deadline partialStopAt(boolean partial, Deadline deadline) {
+        if (!partial) {
+            return null;
         }
-        return updatedHasMore;
+        return deadline.earlier(Math.min(Constants.PARTIAL_RESULT_MARGIN_IN_MS, deadline.remaining(TimeUnit.MILLISECONDS) / 10), TimeUnit.MILLISECONDS);
     }
 }
@@ -0,0 +1,157 @@
+package com.example.logcollector.service;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.exception.DeadlineExceededException;
+import com.example.logcollector.model.logs.LogEntry;
+import com.example.logcollector.service.matcher.LineMatcher;
+import com.example.logcollector.service.reader.ReverseLineReader;
+import com.example.logcollector.service.time.TimestampParser;
+import com.example.logcollector.util.Deadline;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Searches several files at once and merges their matches newest first by timestamp. Every file is read
+ * backwards on its own virtual thread into a small queue, and a heap holding the newest unmerged line of every
+ * file picks the next line. A file is never read much further than the lines the merge actually takes from it:
+ * its reader blocks once its queue is full and is stopped as soon as the merge has enough lines.
+ */
+@Component
+public class MultiFileSearcher {
+    private static final Comparator<Line> NEWEST_FIRST = Comparator.comparingLong(Line::timestamp).reversed()
+            .thenComparingInt(Line::file);
+
+    private final TimestampParser timestampParser;
+    private final int prefetchLines;
+
+    public MultiFileSearcher() {
+        this(TimestampParser.DEFAULT, Constants.MULTI_SEARCH_PREFETCH_LINES);
+    }
+
+    public MultiFileSearcher(TimestampParser timestampParser, int prefetchLines) {
+        this.timestampParser = timestampParser;
+        this.prefetchLines = prefetchLines;
+    }
+
+    /**
+     * Returns the newest {@code count} matching lines across all files.
+     */
+    public List<LogEntry> search(List<File> files, LineMatcher matcher, int count, Deadline deadline)
+            throws IOException, InterruptedException {
+        List<BlockingQueue<Line>> queues = new ArrayList<>(files.size());
+        List<Future<?>> readers = new ArrayList<>(files.size());
+        AtomicBoolean done = new AtomicBoolean();
+        List<LogEntry> entries = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (int i = 0; i < files.size(); i++) {
+                    // no file can contribute more than count lines, so it never has to read further ahead than that
+                    BlockingQueue<Line> queue = new ArrayBlockingQueue<>(Math.max(1, Math.min(count, prefetchLines)));
+                    queues.add(queue);
+                    int file = i;
+                    readers.add(executor.submit(() -> read(file, files.get(file), matcher, count, queue, done, deadline)));
+                }
+
+                PriorityQueue<Line> heap = new PriorityQueue<>(NEWEST_FIRST);
+                for (BlockingQueue<Line> queue : queues) {
+                    Line head = take(queue, deadline);
+                    if (head != null) {
+                        heap.add(head);
+                    }
+                }
+                while (entries.size() < count && !heap.isEmpty()) {
+                    Line newest = heap.poll();
+                    entries.add(LogEntry.builder()
+                            .fileName(files.get(newest.file()).getName())
+                            .line(newest.line())
+                            .timestamp(newest.parsed() ? newest.timestamp() : null)
+                            .build());
+                    Line next = take(queues.get(newest.file()), deadline);
+                    if (next != null) {
+                        heap.add(next);
+                    }
+                }
+            } finally {
+                done.set(true);
+                readers.forEach(reader -> reader.cancel(true));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Takes the next line of a file, or returns null when the file has no more matches.
+     */
+    private Line take(BlockingQueue<Line> queue, Deadline deadline) throws IOException, InterruptedException {
+        Line line = queue.poll(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        if (line == null) {
+            throw new DeadlineExceededException();
+        }
+        if (line.error() instanceof IOException ioe) {
+            throw ioe;
+        }
+        if (line.error() instanceof RuntimeException re) {
+            throw re;
+        }
+        return line.line() == null ? null : line;
+    }
+
+    private void read(int file,
+                      File path,
+                      LineMatcher matcher,
+                      int count,
+                      BlockingQueue<Line> queue,
+                      AtomicBoolean done,
+                      Deadline deadline) {
+        try {
+            try (ReverseLineReader reader = new ReverseLineReader(path, 0, path.length(), Constants.INITIAL_READ_WINDOW_SIZE, Constants.READ_WINDOW_SIZE)) {
+                // lines without a timestamp of their own sort with the newer line read before them
+                long timestamp = Long.MAX_VALUE;
+                long linesScanned = 0;
+                int matches = 0;
+                while (matches < count && !done.get() && reader.next()) {
+                    if ((++linesScanned & (Constants.DEADLINE_CHECK_INTERVAL_LINES - 1)) == 0) {
+                        deadline.check();
+                    }
+                    if (!matcher.matches(reader.buffer(), reader.lineStartInBuffer(), reader.lineEndInBuffer())) {
+                        continue;
+                    }
+                    long parsed = timestampParser.parse(reader.buffer(), reader.lineStartInBuffer(), reader.lineEndInBuffer());
+                    if (parsed != TimestampParser.NO_TIMESTAMP) {
+                        timestamp = parsed;
+                    }
+                    queue.put(new Line(file, timestamp, parsed != TimestampParser.NO_TIMESTAMP, reader.line().trim(), null));
+                    matches++;
+                }
+            }
+            queue.put(new Line(file, Long.MIN_VALUE, false, null, null));
+        } catch (InterruptedException e) {
+            // the merge has all the lines it needs
+        } catch (IOException | RuntimeException e) {
+            try {
+                queue.put(new Line(file, Long.MIN_VALUE, false, null, e));
+            } catch (InterruptedException ignored) {
+                // the merge already stopped
+            }
+        }
+    }
+
+    /**
+     * A matching line of one file. A line without text marks the end of the file, or a failure when it has an error.
+     */
+    private record Line(int file, long timestamp, boolean parsed, String line, Exception error) {
+    }
+}
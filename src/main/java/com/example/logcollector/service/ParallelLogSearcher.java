@@ -0,0 +1,286 @@
+package com.example.logcollector.service;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.exception.DeadlineExceededException;
+import com.example.logcollector.model.logs.LogPage;
+import com.example.logcollector.service.matcher.LineMatcher;
+import com.example.logcollector.service.reader.ReverseLineReader;
+import com.example.logcollector.util.Deadline;
+import com.example.logcollector.util.ScanBudget;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches a large file on all cores. The file is split into segments that start on a line boundary, each
+ * segment is scanned newest-first on its own task, and the segments are then walked newest-first to build
+ * the page. Once the newer segments hold enough matches for the page, older segments are told to stop.
+ * A partial search that runs out of time returns the matches of the newest segments that finished. A scan
+ * budget smaller than the range only searches its newest part, and the page resumes where that part ends.
+ */
+@Component
+public class ParallelLogSearcher {
+    private static final int ALIGN_BUFFER_SIZE = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final long segmentSize;
+
+    public ParallelLogSearcher() {
+        this(Runtime.getRuntime().availableProcessors(), Constants.PARALLEL_SEGMENT_SIZE);
+    }
+
+    public ParallelLogSearcher(int parallelism, long segmentSize) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.segmentSize = segmentSize;
+    }
+
+    public boolean shouldSearchInParallel(LineMatcher matcher, long length) {
+        return matcher != LineMatcher.MATCH_ALL && length >= Constants.PARALLEL_SEARCH_MIN_FILE_SIZE && pool.getParallelism() > 1;
+    }
+
+    public LogPage search(File file,
+                          LineMatcher matcher,
+                          int limit,
+                          long offset,
+                          long lowerBound,
+                          long startPosition,
+                          Deadline deadline,
+                          Deadline stopAt,
+                          ScanBudget budget) throws IOException, InterruptedException {
+        long budgetBound = budgetBound(file, lowerBound, startPosition, budget.remaining());
+        long[] boundaries = segmentBoundaries(file, budgetBound, startPosition);
+        int segments = boundaries.length - 1;
+        // one more match than the page needs, to find out whether there are more
+        long needed = offset > Long.MAX_VALUE - limit - 1 ? Long.MAX_VALUE : offset + limit + 1;
+        AtomicInteger lastNeededSegment = new AtomicInteger(segments - 1);
+
+        List<Future<SegmentMatches>> futures = new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            int segment = i;
+            futures.add(pool.submit(() -> scanSegment(file, matcher, boundaries[segment + 1], boundaries[segment],
+                    needed, segment, lastNeededSegment, deadline)));
+        }
+
+        List<SegmentMatches> results = new ArrayList<>();
+        Deadline waitUntil = stopAt == null ? deadline : stopAt;
+        Long resumePosition = null;
+        long total = 0;
+        try {
+            for (int i = 0; i < segments && total < needed; i++) {
+                SegmentMatches matches;
+                try {
+                    matches = futures.get(i).get(waitUntil.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    if (stopAt == null || deadline.isExpired()) {
+                        throw new DeadlineExceededException();
+                    }
+                    // every segment before this one finished, so the search can resume at this segment's end
+                    resumePosition = boundaries[i];
+                    break;
+                }
+                results.add(matches);
+                total += matches.count();
+                if (total >= needed) {
+                    lastNeededSegment.set(i);
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (e.getCause() instanceof ResponseStatusException rse) {
+                throw rse;
+            }
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error occurred");
+        } finally {
+            lastNeededSegment.set(-1);
+            futures.forEach(future -> future.cancel(false));
+        }
+
+        if (resumePosition == null && total < needed && budgetBound > lowerBound) {
+            // every segment finished without filling the page, the lines below the budget are left for the next one
+            budget.exhaust();
+            resumePosition = budgetBound;
+        }
+        LogPage page = buildPage(file, results, limit, offset);
+        budget.use(page.getBytesScanned());
+        if (resumePosition != null) {
+            // fewer matches than the page needs were found, so all of them were either skipped or returned
+            page.setResumePosition(resumePosition);
+        }
+        return page;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private SegmentMatches scanSegment(File file,
+                                       LineMatcher matcher,
+                                       long lowerBound,
+                                       long upperBound,
+                                       long needed,
+                                       int segment,
+                                       AtomicInteger lastNeededSegment,
+                                       Deadline deadline) throws IOException {
+        SegmentMatches matches = new SegmentMatches();
+        long linesScanned = 0;
+        try (ReverseLineReader reader = new ReverseLineReader(file, lowerBound, upperBound, Constants.INITIAL_READ_WINDOW_SIZE, Constants.READ_WINDOW_SIZE)) {
+            while (matches.count() < needed && reader.next()) {
+                if (segment > lastNeededSegment.get()) {
+                    break;
+                }
+                if ((++linesScanned & (Constants.DEADLINE_CHECK_INTERVAL_LINES - 1)) == 0) {
+                    deadline.check();
+                }
+                if (matcher.matches(reader.buffer(), reader.lineStartInBuffer(), reader.lineEndInBuffer())) {
+                    matches.add(reader.lineStart(), reader.lineEnd());
+                }
+            }
+            matches.linesScanned = linesScanned;
+            matches.bytesScanned = reader.bytesRead();
+        }
+        return matches;
+    }
+
+    private LogPage buildPage(File file, List<SegmentMatches> results, int limit, long offset) throws IOException {
+        List<String> logs = new ArrayList<>();
+        boolean hasMore = false;
+        long skipped = 0;
+        long linesScanned = 0;
+        long bytesScanned = 0;
+        Long lastLinePosition = null;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (SegmentMatches matches : results) {
+                linesScanned += matches.linesScanned;
+                bytesScanned += matches.bytesScanned;
+                for (int i = 0; i < matches.count() && !hasMore; i++) {
+                    if (skipped < offset) {
+                        skipped++;
+                    } else if (logs.size() == limit) {
+                        hasMore = true;
+                    } else {
+                        logs.add(readLine(channel, matches.start(i), matches.end(i)).trim());
+                        lastLinePosition = matches.start(i);
+                    }
+                }
+            }
+        }
+        return LogPage.builder()
+                .logs(logs)
+                .hasMore(hasMore)
+                .lastLinePosition(lastLinePosition)
+                .matchesScanned(skipped + logs.size())
+                .linesScanned(linesScanned)
+                .bytesScanned(bytesScanned)
+                .build();
+    }
+
+    private String readLine(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the start of the first whole line within {@code maxBytes} of {@code startPosition}, or
+     * {@code lowerBound} when the budget covers the whole range or a single line is larger than it.
+     */
+    private long budgetBound(File file, long lowerBound, long startPosition, long maxBytes) throws IOException {
+        if (startPosition - lowerBound <= maxBytes) {
+            return lowerBound;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long aligned = nextLineStart(channel, ByteBuffer.allocate(ALIGN_BUFFER_SIZE), startPosition - maxBytes, startPosition);
+            return aligned < startPosition ? aligned : lowerBound;
+        }
+    }
+
+    /**
+     * Returns segment boundaries from newest to oldest, starting with {@code startPosition} and ending with
+     * {@code lowerBound}. Every boundary in between is moved forward to the start of the next line.
+     */
+    private long[] segmentBoundaries(File file, long lowerBound, long startPosition) throws IOException {
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(startPosition);
+        ByteBuffer buffer = ByteBuffer.allocate(ALIGN_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (long nominal = startPosition - segmentSize; nominal > lowerBound; nominal -= segmentSize) {
+                long aligned = nextLineStart(channel, buffer, nominal, boundaries.getLast());
+                if (aligned > lowerBound && aligned < boundaries.getLast()) {
+                    boundaries.add(aligned);
+                }
+            }
+        }
+        boundaries.add(lowerBound);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long nextLineStart(FileChannel channel, ByteBuffer buffer, long from, long limit) throws IOException {
+        long position = from - 1;
+        while (position < limit) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return limit;
+    }
+
+    private static class SegmentMatches {
+        private long[] positions = new long[32];
+        private int count;
+        private long linesScanned;
+        private long bytesScanned;
+
+        void add(long start, long end) {
+            if (count * 2 == positions.length) {
+                positions = Arrays.copyOf(positions, positions.length * 2);
+            }
+            positions[count * 2] = start;
+            positions[count * 2 + 1] = end;
+            count++;
+        }
+
+        int count() {
+            return count;
+        }
+
+        long start(int i) {
+            return positions[i * 2];
+        }
+
+        long end(int i) {
+            return positions[i * 2 + 1];
+        }
+    }
+}
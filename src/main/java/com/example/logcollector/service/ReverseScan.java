@@ -0,0 +1,153 @@
+package com.example.logcollector.service;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.index.ScanRange;
+import com.example.logcollector.service.matcher.LineMatcher;
+import com.example.logcollector.service.reader.ReverseLineReader;
+import com.example.logcollector.util.Deadline;
+import com.example.logcollector.util.ScanBudget;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static com.example.logcollector.constants.Constants.INITIAL_READ_WINDOW_SIZE;
+import static com.example.logcollector.constants.Constants.READ_WINDOW_SIZE;
+
+/**
+ * The scan behind pages, streams and aggregations. Reads ranges of a file newest first and hands the matching
+ * lines after the first {@code skip} to a consumer, at most {@code limit} of them. When {@code stopAt} is set and
+ * passes, or the next line would go over the budget, the scan stops early and records where it stopped so the
+ * search can be resumed.
+ */
+class ReverseScan {
+    private final File file;
+    private final LineMatcher matcher;
+    private final long skip;
+    private final long limit;
+    private final Deadline deadline;
+    private final Deadline stopAt;
+    private final ScanBudget budget;
+    private long linesScanned;
+    private long linesSkipped;
+    private long returned;
+    private long bytesScanned;
+    private boolean hasMore;
+    private Long resumePosition;
+    private Long lastLinePosition;
+
+    /**
+     * Receives the lines a scan returns. The reader is positioned on the line only for the duration of the call.
+     */
+    interface LineConsumer {
+        void accept(ReverseLineReader reader) throws IOException;
+
+        /**
+         * Called every {@link Constants#DEADLINE_CHECK_INTERVAL_LINES} lines scanned, whether they matched or not.
+         */
+        default void checkpoint() throws IOException {
+        }
+    }
+
+    ReverseScan(File file, LineMatcher matcher, long skip, long limit, Deadline deadline, Deadline stopAt, ScanBudget budget) {
+        this.file = file;
+        this.matcher = matcher;
+        this.skip = skip;
+        this.limit = limit;
+        this.deadline = deadline;
+        this.stopAt = stopAt;
+        this.budget = budget;
+    }
+
+    /**
+     * Scans the ranges one after the other until the scan is done with them, the page is full or it stopped early.
+     */
+    ReverseScan run(List<ScanRange> ranges, LineConsumer consumer) throws IOException {
+        for (ScanRange range : ranges) {
+            if (!scan(range, consumer)) {
+                break;
+            }
+        }
+        return this;
+    }
+
+    private boolean scan(ScanRange range, LineConsumer consumer) throws IOException {
+        long allowed = budget.remaining();
+        // the first line of a request is always read so that every page moves the cursor
+        boolean progressed = budget.bytesScanned() > 0;
+        long previousLineStart = range.end();
+        try (ReverseLineReader reader = new ReverseLineReader(file, range.start(), range.end(), INITIAL_READ_WINDOW_SIZE, READ_WINDOW_SIZE)) {
+            while (reader.next()) {
+                // stop as soon as the client is no longer waiting, checked in batches to keep the clock off the hot path
+                if ((++linesScanned & (Constants.DEADLINE_CHECK_INTERVAL_LINES - 1)) == 0) {
+                    deadline.check();
+                    if (stopAt != null && stopAt.isExpired()) {
+                        resumePosition = reader.lineEnd();
+                        break;
+                    }
+                    consumer.checkpoint();
+                }
+                if (reader.bytesRead() > allowed && (progressed || linesScanned > 1)) {
+                    budget.exhaust();
+                    // the newlines after this line were read, the next page starts with them so no byte counts twice
+                    resumePosition = previousLineStart;
+                    break;
+                }
+                previousLineStart = reader.lineStart();
+                if (!matcher.matches(reader.buffer(), reader.lineStartInBuffer(), reader.lineEndInBuffer())) {
+                    continue;
+                }
+                if (linesSkipped < skip) {
+                    linesSkipped++;
+                    continue;
+                }
+                if (returned == limit) {
+                    hasMore = true;
+                    break;
+                }
+                consumer.accept(reader);
+                returned++;
+                lastLinePosition = reader.lineStart();
+            }
+            // the line the scan stopped at was not looked at
+            long read = resumePosition != null ? reader.bytesRead() - (resumePosition - reader.lineStart()) : reader.bytesRead();
+            bytesScanned += read;
+            budget.use(read);
+        }
+        return resumePosition == null && !hasMore;
+    }
+
+    long linesScanned() {
+        return linesScanned;
+    }
+
+    /**
+     * Matches skipped and returned, the matches the next page no longer has to look at.
+     */
+    long matchesScanned() {
+        return linesSkipped + returned;
+    }
+
+    long returned() {
+        return returned;
+    }
+
+    long bytesScanned() {
+        return bytesScanned;
+    }
+
+    boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Where the scan stopped before it was done, or null when it finished or the page filled up.
+     */
+    Long resumePosition() {
+        return resumePosition;
+    }
+
+    Long lastLinePosition() {
+        return lastLinePosition;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.logcollector.service.aggregate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving sketch of the most frequent values in a stream, in memory bounded by {@code capacity} whatever
+ * the number of distinct values. An unseen value replaces the least counted one and inherits its count as
+ * {@code error}, so a reported count overestimates the true count by at most its error. Any value seen more
+ * than {@code total / capacity} times is guaranteed to be kept. The counters form a min-heap on count so
+ * finding the one to replace is O(1) and an increment is O(log capacity).
+ */
+public class HeavyHitters {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private int size;
+
+    public HeavyHitters(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    public void add(String value) {
+        Counter counter = counters.get(value);
+        if (counter != null) {
+            counter.count++;
+            siftDown(counter.heapIndex);
+            return;
+        }
+        if (size < capacity) {
+            counter = new Counter(value, 1, 0);
+            counter.heapIndex = size;
+            heap[size++] = counter;
+            counters.put(value, counter);
+            siftUp(counter.heapIndex);
+            return;
+        }
+        // the minimum stays at the root, its slot is reused for the new value
+        Counter evicted = heap[0];
+        counters.remove(evicted.value);
+        evicted.error = evicted.count;
+        evicted.count++;
+        evicted.value = value;
+        counters.put(value, evicted);
+        siftDown(0);
+    }
+
+    /**
+     * Returns up to {@code n} values, most frequent first.
+     */
+    public List<Estimate> top(int n) {
+        List<Estimate> estimates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            estimates.add(new Estimate(heap[i].value, heap[i].count, heap[i].error));
+        }
+        estimates.sort(Comparator.comparingLong(Estimate::count).reversed().thenComparing(Estimate::value));
+        return estimates.size() > n ? estimates.subList(0, n) : estimates;
+    }
+
+    public record Estimate(String value, long count, long error) {
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+
+    private static class Counter {
+        private String value;
+        private long count;
+        private long error;
+        private int heapIndex;
+
+        private Counter(String value, long count, long error) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.logcollector.service.aggregate;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.model.logs.FieldCount;
+import com.example.logcollector.model.logs.HistogramBucket;
+import com.example.logcollector.service.parse.LineParser;
+import com.example.logcollector.service.time.TimeRange;
+import com.example.logcollector.service.time.TimestampParser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Counts matched lines in one pass: a total, a histogram of fixed width time buckets and the most frequent
+ * values of one field. Memory is bounded by the bucket limit and the heavy hitters capacity, not by the
+ * number of lines.
+ */
+public class LogAggregator {
+    private static final Pattern INTERVAL = Pattern.compile("(\\d{1,6})(ms|s|m|h|d)");
+
+    private final TimestampParser timestampParser;
+    private final TimeRange timeRange;
+    private final long intervalMs;
+    private final LineParser lineParser;
+    private final String field;
+    private final LongCountMap histogram = new LongCountMap(Constants.MAX_AGGREGATE_BUCKETS);
+    private final HeavyHitters topValues;
+    private long matches;
+    private long untimestamped;
+    private boolean histogramTruncated;
+
+    /**
+     * @param timeRange lines with a timestamp outside of it are not counted, may be null
+     * @param field the field to find the top values of as read by {@code lineParser}, may be null
+     */
+    public LogAggregator(TimestampParser timestampParser, TimeRange timeRange, long intervalMs, LineParser lineParser, String field) {
+        this.timestampParser = timestampParser;
+        this.timeRange = timeRange;
+        this.intervalMs = intervalMs;
+        this.lineParser = lineParser;
+        this.field = field;
+        this.topValues = field == null ? null : new HeavyHitters(Constants.HEAVY_HITTERS_CAPACITY);
+    }
+
+    /**
+     * Parses an interval such as {@code 500ms}, {@code 30s}, {@code 5m}, {@code 1h} or {@code 1d} into
+     * milliseconds.
+     */
+    public static long parseInterval(String interval) {
+        Matcher matcher = INTERVAL.matcher(interval);
+        if (!matcher.matches() || Long.parseLong(matcher.group(1)) == 0) {
+            throw new IllegalArgumentException("Invalid interval: " + interval);
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "ms" -> amount;
+            case "s" -> amount * 1000;
+            case "m" -> amount * 60 * 1000;
+            case "h" -> amount * 60 * 60 * 1000;
+            default -> amount * 24 * 60 * 60 * 1000;
+        };
+    }
+
+    /**
+     * Counts a line that matched the filter, unless its timestamp is outside of the time range.
+     */
+    public void add(ByteBuffer buffer, int start, int end) {
+        long timestamp = timestampParser.parse(buffer, start, end);
+        if (timestamp == TimestampParser.NO_TIMESTAMP) {
+            untimestamped++;
+        } else if (timeRange != null && !timeRange.contains(timestamp)) {
+            return;
+        } else if (!histogram.increment(Math.floorDiv(timestamp, intervalMs) * intervalMs)) {
+            histogramTruncated = true;
+        }
+        matches++;
+        if (topValues != null) {
+            String value = lineParser.value(buffer, start, end, field);
+            if (value != null) {
+                topValues.add(value);
+            }
+        }
+    }
+
+    public long matches() {
+        return matches;
+    }
+
+    public long untimestamped() {
+        return untimestamped;
+    }
+
+    public boolean histogramTruncated() {
+        return histogramTruncated;
+    }
+
+    public List<HistogramBucket> histogram() {
+        List<HistogramBucket> buckets = new ArrayList<>(histogram.size());
+        histogram.forEach((start, count) -> buckets.add(HistogramBucket.builder().start(start).count(count).build()));
+        buckets.sort(Comparator.comparingLong(HistogramBucket::getStart));
+        return buckets;
+    }
+
+    public List<FieldCount> topValues(int n) {
+        if (topValues == null) {
+            return null;
+        }
+        return topValues.top(n).stream()
+                .map(estimate -> FieldCount.builder().value(estimate.value()).count(estimate.count()).error(estimate.error()).build())
+                .toList();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.logcollector.service.aggregate;
+
+import java.util.Arrays;
+
+/**
+ * Counts per {@code long} key in two primitive arrays with open addressing, so counting a line allocates
+ * nothing. Holds at most {@code capacity} keys; {@link #increment} returns false for a new key once it is full.
+ */
+public class LongCountMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long[] keys;
+    private final long[] counts;
+    private final int capacity;
+    private final int mask;
+    private int size;
+
+    public LongCountMap(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2; // at most half full
+        this.keys = new long[tableSize];
+        this.counts = new long[tableSize];
+        this.capacity = capacity;
+        this.mask = tableSize - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Adds one to the count of {@code key}, which must not be {@link Long#MIN_VALUE}.
+     */
+    public boolean increment(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                counts[slot]++;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == capacity) {
+            return false;
+        }
+        keys[slot] = key;
+        counts[slot] = 1;
+        size++;
+        return true;
+    }
+
+    public long get(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls {@code consumer} with every key and its count, in no particular order.
+     */
+    public void forEach(KeyCountConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface KeyCountConsumer {
+        void accept(long key, long count);
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
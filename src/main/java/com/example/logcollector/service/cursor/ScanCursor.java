@@ -0,0 +1,35 @@
+package com.example.logcollector.service.cursor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Where the previous page of a search stopped: every line at or after {@code position} has been scanned and
+ * holds {@code matches} matching lines. Clients get it as an opaque string and send it back to continue the
+ * scan at that byte instead of starting at the end of the file and skipping earlier matches again.
+ */
+public record ScanCursor(int fileId, long position, long matches) {
+    public String encode() {
+        String cursor = String.format("%d:%d:%d", fileId, position, matches);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ScanCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length == 3) {
+                ScanCursor decoded = new ScanCursor(
+                        Integer.parseInt(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                if (decoded.position() >= 0 && decoded.matches() >= 0) {
+                    return decoded;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // falls through to the error below, NumberFormatException is an IllegalArgumentException too
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.logcollector.service.matcher;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Case-insensitive substring search for ASCII search terms using Boyer-Moore-Horspool over the raw line bytes.
+ * The needle and the skip table are folded to lower case once, and bytes of the line are folded through a
+ * lookup table as they are compared, so no copy of the line is ever made.
+ */
+public class CaseInsensitiveMatcher implements LineMatcher {
+    private static final byte[] FOLD = new byte[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            FOLD[i] = (byte) (i >= 'A' && i <= 'Z' ? i + ('a' - 'A') : i);
+        }
+    }
+
+    private final byte[] needle;
+    private final int[] skip = new int[256];
+
+    public CaseInsensitiveMatcher(String searchTerm) {
+        byte[] bytes = searchTerm.getBytes(StandardCharsets.US_ASCII);
+        needle = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            needle[i] = FOLD[bytes[i] & 0xFF];
+        }
+        int last = needle.length - 1;
+        for (int i = 0; i < 256; i++) {
+            skip[i] = needle.length;
+        }
+        for (int i = 0; i < last; i++) {
+            skip[needle[i] & 0xFF] = last - i;
+        }
+    }
+
+    @Override
+    public boolean matches(ByteBuffer buffer, int start, int end) {
+        int length = needle.length;
+        if (length == 0) {
+            return true;
+        }
+        int last = length - 1;
+        for (int i = start; i <= end - length; ) {
+            byte tail = FOLD[buffer.get(i + last) & 0xFF];
+            if (tail == needle[last]) {
+                int j = last - 1;
+                while (j >= 0 && FOLD[buffer.get(i + j) & 0xFF] == needle[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return true;
+                }
+            }
+            i += skip[tail & 0xFF];
+        }
+        return false;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.logcollector.service.matcher;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fallback for search terms with non-ASCII characters, where case folding has to be done on decoded text.
+ */
+public class DecodingMatcher implements LineMatcher {
+    private final String searchTerm;
+
+    public DecodingMatcher(String searchTerm) {
+        this.searchTerm = searchTerm.toLowerCase();
+    }
+
+    @Override
+    public boolean matches(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8).toLowerCase().contains(searchTerm);
+    }
+}
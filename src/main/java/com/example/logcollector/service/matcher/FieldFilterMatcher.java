@@ -0,0 +1,27 @@
+package com.example.logcollector.service.matcher;
+
+import com.example.logcollector.service.parse.FieldFilter;
+import com.example.logcollector.service.parse.LineParser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps the lines of another matcher whose fields pass a {@link FieldFilter}. The other matcher runs first, so
+ * the fields are only looked up for lines that already contain the search term.
+ */
+public class FieldFilterMatcher implements LineMatcher {
+    private final LineMatcher delegate;
+    private final LineParser parser;
+    private final FieldFilter filter;
+
+    public FieldFilterMatcher(LineMatcher delegate, LineParser parser, FieldFilter filter) {
+        this.delegate = delegate;
+        this.parser = parser;
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean matches(ByteBuffer buffer, int start, int end) {
+        return delegate.matches(buffer, start, end) && filter.matches(parser, buffer, start, end);
+    }
+}
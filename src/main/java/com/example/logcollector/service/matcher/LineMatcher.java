@@ -0,0 +1,22 @@
+package com.example.logcollector.service.matcher;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decides whether a line should be returned, looking at the raw bytes of the line in {@code [start, end)}.
+ */
+public interface LineMatcher {
+    LineMatcher MATCH_ALL = (buffer, start, end) -> true;
+
+    boolean matches(ByteBuffer buffer, int start, int end);
+
+    static LineMatcher forSearchTerm(String searchTerm) {
+        if (searchTerm == null || searchTerm.isEmpty()) {
+            return MATCH_ALL;
+        }
+        if (searchTerm.chars().allMatch(c -> c < 0x80)) {
+            return new CaseInsensitiveMatcher(searchTerm);
+        }
+        return new DecodingMatcher(searchTerm);
+    }
+}
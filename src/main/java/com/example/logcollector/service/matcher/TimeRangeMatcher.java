@@ -0,0 +1,32 @@
+package com.example.logcollector.service.matcher;
+
+import com.example.logcollector.service.time.TimeRange;
+import com.example.logcollector.service.time.TimestampParser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps the lines of another matcher whose timestamp is inside a time range. Lines without a timestamp, such as
+ * the continuation lines of a stack trace, are kept, since which entry they belong to is not known when reading
+ * backwards.
+ */
+public class TimeRangeMatcher implements LineMatcher {
+    private final LineMatcher delegate;
+    private final TimestampParser parser;
+    private final TimeRange range;
+
+    public TimeRangeMatcher(LineMatcher delegate, TimestampParser parser, TimeRange range) {
+        this.delegate = delegate;
+        this.parser = parser;
+        this.range = range;
+    }
+
+    @Override
+    public boolean matches(ByteBuffer buffer, int start, int end) {
+        if (!delegate.matches(buffer, start, end)) {
+            return false;
+        }
+        long timestamp = parser.parse(buffer, start, end);
+        return timestamp == TimestampParser.NO_TIMESTAMP || range.contains(timestamp);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.logcollector.service.parse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Conditions on the fields of a line, all of which must hold, written as a comma separated list such as
+ * {@code severity>=warn,program=sshd}. The operators are {@code = != > >= < <=}. Severities compare by how
+ * severe they are, so {@code severity>=warn} keeps warnings, errors and worse. Other fields compare as numbers
+ * when the value is a number, and as strings otherwise, with {@code =} and {@code !=} ignoring case like a
+ * {@code field:value} query term. A line without the field only passes a {@code !=} condition.
+ */
+public class FieldFilter {
+    private static final Pattern CONDITION = Pattern.compile("\\s*([A-Za-z_@][A-Za-z0-9_.@-]*)\\s*(>=|<=|!=|=|>|<)\\s*(.*?)\\s*");
+
+    private final List<Condition> conditions;
+
+    private FieldFilter(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * Parses a filter, throwing {@link IllegalArgumentException} when it is not valid.
+     */
+    public static FieldFilter parse(String filter) {
+        List<Condition> conditions = new ArrayList<>();
+        for (String condition : filter.split(",")) {
+            Matcher matcher = CONDITION.matcher(condition);
+            if (!matcher.matches() || matcher.group(3).isEmpty()) {
+                throw new IllegalArgumentException("Invalid filter condition: " + condition);
+            }
+            conditions.add(Condition.of(matcher.group(1), Operator.of(matcher.group(2)), matcher.group(3)));
+        }
+        return new FieldFilter(conditions);
+    }
+
+    public boolean matches(LineParser parser, ByteBuffer buffer, int start, int end) {
+        for (Condition condition : conditions) {
+            if (!condition.matches(parser, buffer, start, end)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private enum Operator {
+        EQUAL, NOT_EQUAL, GREATER, GREATER_OR_EQUAL, LESS, LESS_OR_EQUAL;
+
+        static Operator of(String operator) {
+            return switch (operator) {
+                case "=" -> EQUAL;
+                case "!=" -> NOT_EQUAL;
+                case ">" -> GREATER;
+                case ">=" -> GREATER_OR_EQUAL;
+                case "<" -> LESS;
+                default -> LESS_OR_EQUAL;
+            };
+        }
+
+        boolean holds(int comparison) {
+            return switch (this) {
+                case EQUAL -> comparison == 0;
+                case NOT_EQUAL -> comparison != 0;
+                case GREATER -> comparison > 0;
+                case GREATER_OR_EQUAL -> comparison >= 0;
+                case LESS -> comparison < 0;
+                case LESS_OR_EQUAL -> comparison <= 0;
+            };
+        }
+    }
+
+    private record Condition(String field, Operator operator, String value, byte[] valueBytes, int severity, Double number) {
+        static Condition of(String field, Operator operator, String value) {
+            int severity = Severity.UNKNOWN;
+            if (Fields.SEVERITY.equals(field)) {
+                severity = Severity.of(value);
+                if (severity == Severity.UNKNOWN) {
+                    throw new IllegalArgumentException("Unknown severity: " + value);
+                }
+            }
+            return new Condition(field, operator, value, value.getBytes(StandardCharsets.UTF_8), severity, parseNumber(value));
+        }
+
+        boolean matches(LineParser parser, ByteBuffer buffer, int start, int end) {
+            if (severity != Severity.UNKNOWN) {
+                int lineSeverity = parser.severity(buffer, start, end);
+                // lower syslog severities are more severe
+                return lineSeverity == Severity.UNKNOWN ? operator == Operator.NOT_EQUAL : operator.holds(Integer.compare(severity, lineSeverity));
+            }
+            long location = parser.locate(buffer, start, end, field);
+            if (location == LineParser.NOT_FOUND) {
+                return operator == Operator.NOT_EQUAL;
+            }
+            if (operator == Operator.EQUAL || operator == Operator.NOT_EQUAL) {
+                int valueStart = LineParser.rangeStart(location);
+                int valueEnd = LineParser.rangeEnd(location);
+                boolean equal;
+                if (equalsIgnoreCase(buffer, valueStart, valueEnd)) {
+                    equal = true;
+                } else if (number != null) {
+                    equal = number.equals(parseNumber(parser.decode(buffer, location)));
+                } else {
+                    // escaped and non-ASCII values are the only ones that can still be equal once decoded
+                    equal = needsDecoding(buffer, valueStart, valueEnd) && parser.decode(buffer, location).equalsIgnoreCase(value);
+                }
+                return equal == (operator == Operator.EQUAL);
+            }
+            String decoded = parser.decode(buffer, location);
+            Double lineNumber = parseNumber(decoded);
+            if (number != null) {
+                return lineNumber != null && operator.holds(Double.compare(lineNumber, number));
+            }
+            return operator.holds(decoded.compareTo(value));
+        }
+
+        private boolean equalsIgnoreCase(ByteBuffer buffer, int start, int end) {
+            if (end - start != valueBytes.length) {
+                return false;
+            }
+            for (int i = 0; i < valueBytes.length; i++) {
+                byte b = buffer.get(start + i);
+                byte expected = valueBytes[i];
+                if (b != expected && (!isLetter(b) || (b | 0x20) != (expected | 0x20))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean needsDecoding(ByteBuffer buffer, int start, int end) {
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b == '\\' || b < 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isLetter(byte b) {
+            return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z');
+        }
+
+        private static Double parseNumber(String value) {
+            if (value.isEmpty() || !(Character.isDigit(value.charAt(0)) || value.charAt(0) == '-')) {
+                return null;
+            }
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
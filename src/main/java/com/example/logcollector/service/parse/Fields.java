@@ -0,0 +1,17 @@
+package com.example.logcollector.service.parse;
+
+/**
+ * Field names every parser understands, whatever the line calls them.
+ */
+public final class Fields {
+    public static final String TIMESTAMP = "timestamp";
+    public static final String HOST = "host";
+    public static final String PROGRAM = "program";
+    public static final String PID = "pid";
+    public static final String SEVERITY = "severity";
+    public static final String FACILITY = "facility";
+    public static final String MESSAGE = "message";
+
+    private Fields() {
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.logcollector.service.parse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses lines that each hold one JSON object. Looking up a field walks the top level keys, comparing each key
+ * to the field name without decoding it and skipping the values of other keys, so only the bytes up to the
+ * field are read. A dotted name such as {@code log.level} is looked up as a key first and then as a path into
+ * nested objects. The common fields can be named however the application names them, {@code severity} also
+ * finds {@code level}, {@code program} finds {@code app}, {@code logger} or {@code service}, and so on.
+ */
+public class JsonLineParser implements LineParser {
+    private static final Map<String, List<String>> ALIASES = Map.of(
+            Fields.TIMESTAMP, List.of("timestamp", "@timestamp", "time", "ts"),
+            Fields.HOST, List.of("host", "hostname"),
+            Fields.PROGRAM, List.of("program", "app", "logger", "service"),
+            Fields.PID, List.of("pid"),
+            Fields.SEVERITY, List.of("severity", "level", "log.level", "lvl"),
+            Fields.MESSAGE, List.of("message", "msg"));
+
+    @Override
+    public long locate(ByteBuffer buffer, int start, int end, String field) {
+        List<String> names = ALIASES.get(field);
+        if (names == null) {
+            return locatePath(buffer, start, end, field);
+        }
+        for (String name : names) {
+            long location = locatePath(buffer, start, end, name);
+            if (location != NOT_FOUND) {
+                return location;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Returns the severity of the level field, a name such as {@code warn} or one of the numeric levels of
+     * bunyan and pino (10 trace to 60 fatal).
+     */
+    @Override
+    public int severity(ByteBuffer buffer, int start, int end) {
+        long location = locate(buffer, start, end, Fields.SEVERITY);
+        if (location == NOT_FOUND) {
+            return Severity.UNKNOWN;
+        }
+        int valueStart = LineParser.rangeStart(location);
+        int valueEnd = LineParser.rangeEnd(location);
+        if (valueEnd - valueStart == 2 && isDigit(buffer.get(valueStart)) && buffer.get(valueStart + 1) == '0') {
+            return switch (buffer.get(valueStart)) {
+                case '1', '2' -> 7;
+                case '3' -> 6;
+                case '4' -> 4;
+                case '5' -> 3;
+                case '6' -> 2;
+                default -> Severity.UNKNOWN;
+            };
+        }
+        return Severity.of(buffer, valueStart, valueEnd);
+    }
+
+    @Override
+    public Map<String, String> fields(ByteBuffer buffer, int start, int end) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        int position = skipSpaces(buffer, start, end);
+        if (position == end || buffer.get(position) != '{') {
+            return fields;
+        }
+        position++;
+        while (true) {
+            position = skipSpaces(buffer, position, end);
+            if (position == end || buffer.get(position) != '"') {
+                return fields;
+            }
+            int keyEnd = stringEnd(buffer, position, end);
+            String key = decode(buffer, LineParser.range(position + 1, keyEnd));
+            position = skipSpaces(buffer, keyEnd + 1, end);
+            if (position == end || buffer.get(position) != ':') {
+                return fields;
+            }
+            int valueStart = skipSpaces(buffer, position + 1, end);
+            int valueEnd = valueEnd(buffer, valueStart, end);
+            if (valueEnd > end || valueEnd == valueStart) {
+                return fields;
+            }
+            fields.put(key, decode(buffer, valueRange(buffer, valueStart, valueEnd)));
+            position = skipSpaces(buffer, valueEnd, end);
+            if (position == end || buffer.get(position) != ',') {
+                return fields;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Decodes a value, undoing JSON string escapes. Values that contain no backslash are only copied.
+     */
+    @Override
+    public String decode(ByteBuffer buffer, long location) {
+        return unescape(LineParser.super.decode(buffer, location));
+    }
+
+    private static String unescape(String raw) {
+        if (raw.indexOf('\\') < 0) {
+            return raw;
+        }
+        StringBuilder decoded = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 == raw.length()) {
+                decoded.append(c);
+                continue;
+            }
+            char escaped = raw.charAt(++i);
+            switch (escaped) {
+                case 'n' -> decoded.append('\n');
+                case 't' -> decoded.append('\t');
+                case 'r' -> decoded.append('\r');
+                case 'b' -> decoded.append('\b');
+                case 'f' -> decoded.append('\f');
+                case 'u' -> {
+                    if (i + 4 < raw.length()) {
+                        decoded.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    }
+                }
+                default -> decoded.append(escaped);
+            }
+        }
+        return decoded.toString();
+    }
+
+    private long locatePath(ByteBuffer buffer, int start, int end, String path) {
+        long location = locateKey(buffer, start, end, path);
+        int dot = path.indexOf('.');
+        if (location != NOT_FOUND || dot < 0) {
+            return location;
+        }
+        long parent = locateKey(buffer, start, end, path.substring(0, dot));
+        if (parent == NOT_FOUND || buffer.get(LineParser.rangeStart(parent)) != '{') {
+            return NOT_FOUND;
+        }
+        return locatePath(buffer, LineParser.rangeStart(parent), LineParser.rangeEnd(parent), path.substring(dot + 1));
+    }
+
+    /**
+     * Finds the value of a top level key of the object in {@code [start, end)}. Strings are returned without
+     * their quotes, objects, arrays and literals as they are.
+     */
+    private static long locateKey(ByteBuffer buffer, int start, int end, String key) {
+        int position = skipSpaces(buffer, start, end);
+        if (position == end || buffer.get(position) != '{') {
+            return NOT_FOUND;
+        }
+        position++;
+        while (true) {
+            position = skipSpaces(buffer, position, end);
+            if (position == end || buffer.get(position) != '"') {
+                return NOT_FOUND;
+            }
+            int keyEnd = stringEnd(buffer, position, end);
+            if (keyEnd >= end) {
+                return NOT_FOUND;
+            }
+            boolean found = keyEquals(buffer, position + 1, keyEnd, key);
+            position = skipSpaces(buffer, keyEnd + 1, end);
+            if (position == end || buffer.get(position) != ':') {
+                return NOT_FOUND;
+            }
+            int valueStart = skipSpaces(buffer, position + 1, end);
+            int valueEnd = valueEnd(buffer, valueStart, end);
+            if (valueEnd > end || valueEnd == valueStart) {
+                return NOT_FOUND;
+            }
+            if (found) {
+                return valueRange(buffer, valueStart, valueEnd);
+            }
+            position = skipSpaces(buffer, valueEnd, end);
+            if (position == end || buffer.get(position) != ',') {
+                return NOT_FOUND;
+            }
+            position++;
+        }
+    }
+
+    private static long valueRange(ByteBuffer buffer, int valueStart, int valueEnd) {
+        return buffer.get(valueStart) == '"' ? LineParser.range(valueStart + 1, valueEnd - 1) : LineParser.range(valueStart, valueEnd);
+    }
+
+    private static boolean keyEquals(ByteBuffer buffer, int start, int end, String key) {
+        if (end - start != key.length()) {
+            // escaped or non-ASCII keys have a different length in bytes, compare them decoded
+            return hasEscapeOrNonAscii(buffer, start, end) && decodeKey(buffer, start, end).equals(key);
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (buffer.get(start + i) != key.charAt(i)) {
+                return hasEscapeOrNonAscii(buffer, start, end) && decodeKey(buffer, start, end).equals(key);
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasEscapeOrNonAscii(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '\\' || b < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String decodeKey(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return unescape(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the index of the closing quote of the string that starts at {@code position}, or {@code end}.
+     */
+    private static int stringEnd(ByteBuffer buffer, int position, int end) {
+        position++;
+        while (position < end && buffer.get(position) != '"') {
+            position += buffer.get(position) == '\\' ? 2 : 1;
+        }
+        return Math.min(position, end);
+    }
+
+    /**
+     * Returns the index after the value that starts at {@code position}, or more than {@code end} when the
+     * value is not closed.
+     */
+    private static int valueEnd(ByteBuffer buffer, int position, int end) {
+        if (position == end) {
+            return position;
+        }
+        byte first = buffer.get(position);
+        if (first == '"') {
+            int closing = stringEnd(buffer, position, end);
+            return closing == end ? end + 1 : closing + 1;
+        }
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            while (position < end) {
+                byte b = buffer.get(position);
+                if (b == '"') {
+                    position = stringEnd(buffer, position, end);
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return position + 1;
+                }
+                position++;
+            }
+            return end + 1;
+        }
+        while (position < end) {
+            byte b = buffer.get(position);
+            if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\t' || b == '\r') {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private static int skipSpaces(ByteBuffer buffer, int position, int end) {
+        while (position < end) {
+            byte b = buffer.get(position);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.logcollector.service.parse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Reads the fields of a structured line straight from its bytes in {@code [start, end)}. Fields are found
+ * lazily: looking one up only walks the line as far as that field and decodes nothing, so a filter on one
+ * field never builds the whole record. A located value is a range of the buffer packed into a long, see
+ * {@link #range}.
+ */
+public interface LineParser {
+    long NOT_FOUND = -1;
+
+    /**
+     * Returns where the raw value of {@code field} is, or {@link #NOT_FOUND}. Escaped values still have to go
+     * through {@link #decode}.
+     */
+    long locate(ByteBuffer buffer, int start, int end, String field);
+
+    /**
+     * Returns the syslog severity of the line, see {@link Severity}.
+     */
+    int severity(ByteBuffer buffer, int start, int end);
+
+    /**
+     * Returns every field of the line, decoded. Used for the lines of a response, never while scanning.
+     */
+    Map<String, String> fields(ByteBuffer buffer, int start, int end);
+
+    default String decode(ByteBuffer buffer, long location) {
+        byte[] bytes = new byte[rangeEnd(location) - rangeStart(location)];
+        buffer.get(rangeStart(location), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the decoded value of {@code field}, or null when the line doesn't have it. {@code severity} is
+     * always returned as the syslog name, whichever level name the line used.
+     */
+    default String value(ByteBuffer buffer, int start, int end, String field) {
+        if (Fields.SEVERITY.equals(field)) {
+            int severity = severity(buffer, start, end);
+            return severity == Severity.UNKNOWN ? null : Severity.name(severity);
+        }
+        long location = locate(buffer, start, end, field);
+        return location == NOT_FOUND ? null : decode(buffer, location);
+    }
+
+    static long range(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    static int rangeStart(long range) {
+        return (int) (range >>> 32);
+    }
+
+    static int rangeEnd(long range) {
+        return (int) range;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.logcollector.service.parse;
+
+import com.example.logcollector.constants.Constants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Picks the parser for a file by its name. Files matching one of the JSON globs hold one JSON object per line,
+ * every other file is read as syslog.
+ */
+@Component
+public class LineParsers {
+    private final LineParser syslogParser = new SyslogLineParser();
+    private final LineParser jsonParser = new JsonLineParser();
+    private final List<PathMatcher> jsonFiles;
+
+    public LineParsers() {
+        this(Constants.DEFAULT_JSON_LOG_FILES);
+    }
+
+    /**
+     * @param jsonFiles comma separated globs matched against the file name, e.g. {@code *.json*,app-*.log}
+     */
+    @Autowired
+    public LineParsers(@Value("${log-collector.parsers.json-files:" + Constants.DEFAULT_JSON_LOG_FILES + "}") String jsonFiles) {
+        this.jsonFiles = Arrays.stream(jsonFiles.split(","))
+                .map(String::trim)
+                .filter(glob -> !glob.isEmpty())
+                .map(glob -> FileSystems.getDefault().getPathMatcher("glob:" + glob))
+                .toList();
+    }
+
+    public LineParser forFile(File file) {
+        Path name = Path.of(file.getName());
+        for (PathMatcher jsonFile : jsonFiles) {
+            if (jsonFile.matches(name)) {
+                return jsonParser;
+            }
+        }
+        return syslogParser;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.logcollector.service.parse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Syslog severities, 0 (emerg) to 7 (debug), and the level names applications use for them.
+ */
+public final class Severity {
+    public static final int UNKNOWN = -1;
+
+    private static final String[] NAMES = {"emerg", "alert", "crit", "err", "warning", "notice", "info", "debug"};
+    private static final byte[][] LEVEL_NAMES = {
+            ascii("EMERG"), ascii("EMERGENCY"), ascii("PANIC"), ascii("ALERT"), ascii("CRIT"), ascii("CRITICAL"),
+            ascii("FATAL"), ascii("ERR"), ascii("ERROR"), ascii("WARN"), ascii("WARNING"), ascii("NOTICE"),
+            ascii("INFO"), ascii("DEBUG"), ascii("TRACE")};
+    private static final int[] LEVEL_SEVERITIES = {0, 0, 0, 1, 2, 2, 2, 3, 3, 4, 4, 5, 6, 7, 7};
+
+    private Severity() {
+    }
+
+    public static String name(int severity) {
+        return NAMES[severity];
+    }
+
+    /**
+     * Returns the severity of a level name such as {@code warn}, {@code ERROR} or {@code crit}, or
+     * {@link #UNKNOWN}.
+     */
+    public static int of(String level) {
+        byte[] bytes = level.getBytes(StandardCharsets.UTF_8);
+        return of(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Returns the severity of the level name in {@code [start, end)}, ignoring case and the brackets and colon
+     * level names are often wrapped in ({@code [ERROR]}, {@code <warn>}, {@code INFO:}), or {@link #UNKNOWN}.
+     */
+    public static int of(ByteBuffer buffer, int start, int end) {
+        while (start < end && isPunctuation(buffer.get(start))) {
+            start++;
+        }
+        while (end > start && isPunctuation(buffer.get(end - 1))) {
+            end--;
+        }
+        for (int level = 0; level < LEVEL_NAMES.length; level++) {
+            if (equalsIgnoreCase(buffer, start, end, LEVEL_NAMES[level])) {
+                return LEVEL_SEVERITIES[level];
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static boolean equalsIgnoreCase(ByteBuffer buffer, int start, int end, byte[] upperCaseName) {
+        if (end - start != upperCaseName.length) {
+            return false;
+        }
+        for (int i = 0; i < upperCaseName.length; i++) {
+            byte b = buffer.get(start + i);
+            if (b >= 'a' && b <= 'z') {
+                b -= 'a' - 'A';
+            }
+            if (b != upperCaseName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPunctuation(byte b) {
+        return b == '[' || b == ']' || b == '<' || b == '>' || b == '(' || b == ')' || b == ':';
+    }
+
+    private static byte[] ascii(String name) {
+        return name.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.logcollector.service.parse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses syslog lines, both the BSD format of RFC 3164, {@code [<PRI>]timestamp host tag[pid]: message} with
+ * either the classic {@code Mmm dd HH:mm:ss} or an ISO 8601 timestamp, and RFC 5424,
+ * {@code <PRI>1 timestamp host app procid msgid [structured data] message}. Any other field name is read from
+ * a {@code name=value} or {@code name="value"} pair in the line, which includes RFC 5424 structured data
+ * parameters. Lines that start with a space, like the continuation lines of a stack trace, have no header.
+ */
+public class SyslogLineParser implements LineParser {
+    public static final String MSGID = "msgid";
+
+    private static final int BSD_TIMESTAMP_LENGTH = 15; // Mmm dd HH:mm:ss
+    private static final int MAX_LEVEL_WORDS = 8; // a level name after this many words is part of the message
+    private static final String[] FACILITIES = {"kern", "user", "mail", "daemon", "auth", "syslog", "lpr", "news",
+            "uucp", "cron", "authpriv", "ftp", "ntp", "security", "console", "solaris-cron",
+            "local0", "local1", "local2", "local3", "local4", "local5", "local6", "local7"};
+
+    // header parts in the order they appear in a line
+    private static final int TIMESTAMP_PART = 0;
+    private static final int HOST_PART = 1;
+    private static final int PROGRAM_PART = 2;
+    private static final int PID_PART = 3;
+    private static final int MSGID_PART = 4;
+    private static final int MESSAGE_PART = 5;
+
+    @Override
+    public long locate(ByteBuffer buffer, int start, int end, String field) {
+        return switch (field) {
+            case Fields.TIMESTAMP -> header(buffer, start, end, TIMESTAMP_PART);
+            case Fields.HOST -> header(buffer, start, end, HOST_PART);
+            case Fields.PROGRAM -> header(buffer, start, end, PROGRAM_PART);
+            case Fields.PID -> header(buffer, start, end, PID_PART);
+            case MSGID -> header(buffer, start, end, MSGID_PART);
+            case Fields.MESSAGE -> header(buffer, start, end, MESSAGE_PART);
+            case Fields.SEVERITY, Fields.FACILITY -> NOT_FOUND;
+            default -> keyValue(buffer, start, end, field);
+        };
+    }
+
+    @Override
+    public String value(ByteBuffer buffer, int start, int end, String field) {
+        if (Fields.FACILITY.equals(field)) {
+            int priority = priority(buffer, start, end);
+            return priority < 0 ? null : FACILITIES[priority >> 3];
+        }
+        return LineParser.super.value(buffer, start, end, field);
+    }
+
+    /**
+     * Returns the severity from the {@code <PRI>} prefix, or else from the first of the leading words that is
+     * a level name such as {@code ERROR}, {@code [warn]} or {@code FATAL:}.
+     */
+    @Override
+    public int severity(ByteBuffer buffer, int start, int end) {
+        int priority = priority(buffer, start, end);
+        if (priority >= 0) {
+            return priority & 7;
+        }
+        int position = start;
+        for (int word = 0; word < MAX_LEVEL_WORDS && position < end; word++) {
+            position = skipSpaces(buffer, position, end);
+            int wordEnd = tokenEnd(buffer, position, end);
+            int severity = Severity.of(buffer, position, wordEnd);
+            if (severity != Severity.UNKNOWN) {
+                return severity;
+            }
+            position = wordEnd;
+        }
+        return Severity.UNKNOWN;
+    }
+
+    @Override
+    public Map<String, String> fields(ByteBuffer buffer, int start, int end) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String field : new String[]{Fields.TIMESTAMP, Fields.HOST, Fields.PROGRAM, Fields.PID, MSGID, Fields.FACILITY, Fields.SEVERITY}) {
+            String value = value(buffer, start, end, field);
+            if (value != null) {
+                fields.put(field, value);
+            }
+        }
+        long structuredData = structuredData(buffer, start, end);
+        if (structuredData != NOT_FOUND) {
+            addParameters(buffer, LineParser.rangeStart(structuredData), LineParser.rangeEnd(structuredData), fields);
+        }
+        String message = value(buffer, start, end, Fields.MESSAGE);
+        if (message != null) {
+            fields.put(Fields.MESSAGE, message);
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the value of the {@code <PRI>} prefix, or -1 when the line has none.
+     */
+    private static int priority(ByteBuffer buffer, int start, int end) {
+        if (start == end || buffer.get(start) != '<') {
+            return -1;
+        }
+        int priority = 0;
+        int position = start + 1;
+        while (position < end && isDigit(buffer.get(position)) && position - start <= 3) {
+            priority = priority * 10 + buffer.get(position++) - '0';
+        }
+        return position > start + 1 && position < end && buffer.get(position) == '>' && priority < 192 ? priority : -1;
+    }
+
+    private static int afterPriority(ByteBuffer buffer, int start, int end) {
+        if (priority(buffer, start, end) < 0) {
+            return start;
+        }
+        int position = start;
+        while (buffer.get(position) != '>') {
+            position++;
+        }
+        return position + 1;
+    }
+
+    /**
+     * Returns where the RFC 5424 header starts, after the priority and version, or -1 for other lines.
+     */
+    private static int rfc5424HeaderStart(ByteBuffer buffer, int start, int end) {
+        int position = afterPriority(buffer, start, end);
+        if (position == start) {
+            return -1;
+        }
+        int versionEnd = position;
+        while (versionEnd < end && isDigit(buffer.get(versionEnd))) {
+            versionEnd++;
+        }
+        return versionEnd > position && versionEnd < end && buffer.get(versionEnd) == ' ' ? versionEnd + 1 : -1;
+    }
+
+    private static long header(ByteBuffer buffer, int start, int end, int part) {
+        if (start == end || isBlank(buffer.get(start))) {
+            return NOT_FOUND;
+        }
+        int rfc5424Start = rfc5424HeaderStart(buffer, start, end);
+        return rfc5424Start >= 0 ? rfc5424Header(buffer, rfc5424Start, end, part) : rfc3164Header(buffer, afterPriority(buffer, start, end), end, part);
+    }
+
+    private static long rfc5424Header(ByteBuffer buffer, int position, int end, int part) {
+        // timestamp, host, app, procid and msgid are single tokens, "-" when the value is missing
+        for (int current = TIMESTAMP_PART; current <= MSGID_PART; current++) {
+            int tokenEnd = tokenEnd(buffer, position, end);
+            if (current == part) {
+                boolean missing = tokenEnd == position || (tokenEnd == position + 1 && buffer.get(position) == '-');
+                return missing ? NOT_FOUND : LineParser.range(position, tokenEnd);
+            }
+            position = Math.min(tokenEnd + 1, end);
+        }
+        position = structuredDataEnd(buffer, position, end);
+        if (position < end && buffer.get(position) == ' ') {
+            position++;
+        }
+        // the message may start with a UTF-8 byte order mark
+        if (end - position >= 3 && buffer.get(position) == (byte) 0xEF && buffer.get(position + 1) == (byte) 0xBB && buffer.get(position + 2) == (byte) 0xBF) {
+            position += 3;
+        }
+        return position < end ? LineParser.range(position, end) : NOT_FOUND;
+    }
+
+    private static long rfc3164Header(ByteBuffer buffer, int position, int end, int part) {
+        int timestampEnd = end - position > BSD_TIMESTAMP_LENGTH && isLetter(buffer.get(position)) && buffer.get(position + 3) == ' '
+                ? position + BSD_TIMESTAMP_LENGTH
+                : tokenEnd(buffer, position, end);
+        if (part == TIMESTAMP_PART) {
+            return timestampEnd > position ? LineParser.range(position, timestampEnd) : NOT_FOUND;
+        }
+        int hostStart = skipSpaces(buffer, timestampEnd, end);
+        int hostEnd = tokenEnd(buffer, hostStart, end);
+        if (part == HOST_PART) {
+            return hostEnd > hostStart ? LineParser.range(hostStart, hostEnd) : NOT_FOUND;
+        }
+
+        // the tag is the program, optionally followed by [pid], and always ends with a colon
+        int tagStart = skipSpaces(buffer, hostEnd, end);
+        int programEnd = tagStart;
+        while (programEnd < end && buffer.get(programEnd) != '[' && buffer.get(programEnd) != ':' && buffer.get(programEnd) != ' ') {
+            programEnd++;
+        }
+        int pidStart = -1;
+        int tagEnd = programEnd;
+        if (programEnd < end && buffer.get(programEnd) == '[') {
+            pidStart = programEnd + 1;
+            tagEnd = pidStart;
+            while (tagEnd < end && buffer.get(tagEnd) != ']') {
+                tagEnd++;
+            }
+            tagEnd++;
+        }
+        boolean hasTag = programEnd > tagStart && tagEnd < end && buffer.get(tagEnd) == ':';
+        return switch (part) {
+            case PROGRAM_PART -> hasTag ? LineParser.range(tagStart, programEnd) : NOT_FOUND;
+            case PID_PART -> hasTag && pidStart >= 0 && tagEnd - 1 > pidStart ? LineParser.range(pidStart, tagEnd - 1) : NOT_FOUND;
+            case MESSAGE_PART -> {
+                int messageStart = hasTag ? skipSpaces(buffer, tagEnd + 1, end) : tagStart;
+                yield messageStart < end ? LineParser.range(messageStart, end) : NOT_FOUND;
+            }
+            default -> NOT_FOUND;
+        };
+    }
+
+    private static long structuredData(ByteBuffer buffer, int start, int end) {
+        int position = rfc5424HeaderStart(buffer, start, end);
+        if (position < 0) {
+            return NOT_FOUND;
+        }
+        for (int token = TIMESTAMP_PART; token <= MSGID_PART; token++) {
+            position = Math.min(tokenEnd(buffer, position, end) + 1, end);
+        }
+        int dataEnd = structuredDataEnd(buffer, position, end);
+        return dataEnd > position && buffer.get(position) == '[' ? LineParser.range(position, dataEnd) : NOT_FOUND;
+    }
+
+    /**
+     * Skips structured data, either {@code -} or one or more {@code [id name="value" ...]} elements.
+     */
+    private static int structuredDataEnd(ByteBuffer buffer, int position, int end) {
+        if (position < end && buffer.get(position) == '-') {
+            return position + 1;
+        }
+        while (position < end && buffer.get(position) == '[') {
+            boolean quoted = false;
+            position++;
+            while (position < end && (quoted || buffer.get(position) != ']')) {
+                byte b = buffer.get(position);
+                if (b == '\\') {
+                    position++;
+                } else if (b == '"') {
+                    quoted = !quoted;
+                }
+                position++;
+            }
+            position++;
+        }
+        return Math.min(position, end);
+    }
+
+    private static void addParameters(ByteBuffer buffer, int position, int end, Map<String, String> fields) {
+        while (position < end) {
+            // parameter names end at =, the element id and names are separated by spaces
+            int nameStart = position;
+            while (position < end && buffer.get(position) != '=' && buffer.get(position) != ' ' && buffer.get(position) != ']') {
+                position++;
+            }
+            if (position + 1 < end && buffer.get(position) == '=' && buffer.get(position + 1) == '"') {
+                String name = decodeRaw(buffer, nameStart, position);
+                int valueStart = position + 2;
+                int valueEnd = quotedEnd(buffer, valueStart, end);
+                fields.put(name, decodeRaw(buffer, valueStart, valueEnd).replaceAll("\\\\([\"\\\\\\]])", "$1"));
+                position = valueEnd + 1;
+            } else {
+                position++;
+            }
+            while (position < end && (buffer.get(position) == ' ' || buffer.get(position) == '[' || buffer.get(position) == ']')) {
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Finds the value of a {@code name=value} or {@code name="quoted value"} pair, the same pairs a
+     * {@code name:value} query term matches. The name must start the line or follow a space or one of
+     * {@code ,;{([}.
+     */
+    private static long keyValue(ByteBuffer buffer, int start, int end, String field) {
+        int length = field.length();
+        for (int position = start; position + length < end; position++) {
+            if ((position > start && !isDelimiter(buffer.get(position - 1))) || buffer.get(position + length) != '='
+                    || !startsWith(buffer, position, field)) {
+                continue;
+            }
+            int valueStart = position + length + 1;
+            int valueEnd;
+            if (valueStart < end && buffer.get(valueStart) == '"') {
+                valueStart++;
+                valueEnd = quotedEnd(buffer, valueStart, end);
+            } else {
+                valueEnd = valueStart;
+                while (valueEnd < end && !isValueEnd(buffer.get(valueEnd))) {
+                    valueEnd++;
+                }
+            }
+            return valueEnd > valueStart ? LineParser.range(valueStart, valueEnd) : NOT_FOUND;
+        }
+        return NOT_FOUND;
+    }
+
+    private static int quotedEnd(ByteBuffer buffer, int position, int end) {
+        while (position < end && buffer.get(position) != '"') {
+            position += buffer.get(position) == '\\' ? 2 : 1;
+        }
+        return Math.min(position, end);
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int position, String field) {
+        for (int i = 0; i < field.length(); i++) {
+            if (buffer.get(position + i) != field.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decodeRaw(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int skipSpaces(ByteBuffer buffer, int position, int end) {
+        while (position < end && buffer.get(position) == ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private static int tokenEnd(ByteBuffer buffer, int position, int end) {
+        while (position < end && buffer.get(position) != ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z');
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ' ' || b == '\t' || b == ',' || b == ';' || b == '{' || b == '(' || b == '[';
+    }
+
+    private static boolean isValueEnd(byte b) {
+        return b == ' ' || b == '\t' || b == ',' || b == ';' || b == '}' || b == ')' || b == ']';
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.logcollector.service.query;
+
+import com.example.logcollector.util.Deadline;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.List;
+
+public class AndNode implements QueryNode {
+    private final QueryNode[] children;
+    private final int cost;
+
+    public AndNode(List<QueryNode> children) {
+        this.children = children.stream().sorted(Comparator.comparingInt(QueryNode::cost)).toArray(QueryNode[]::new);
+        this.cost = children.stream().mapToInt(QueryNode::cost).sum();
+    }
+
+    private AndNode(QueryNode[] children, int cost) {
+        this.children = children;
+        this.cost = cost;
+    }
+
+    @Override
+    public boolean matches(ByteBuffer buffer, int start, int end) {
+        for (QueryNode child : children) {
+            if (!child.matches(buffer, start, end)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int cost() {
+        return cost;
+    }
+
+    @Override
+    public QueryNode withDeadline(Deadline deadline) {
+        QueryNode[] bound = new QueryNode[children.length];
+        for (int i = 0; i < children.length; i++) {
+            bound[i] = children[i].withDeadline(deadline);
+        }
+        return new AndNode(bound, cost);
+    }
+}
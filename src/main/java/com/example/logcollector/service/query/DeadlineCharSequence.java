@@ -0,0 +1,43 @@
+package com.example.logcollector.service.query;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.util.Deadline;
+
+/**
+ * A line handed to a regex that checks the deadline every {@link Constants#REGEX_DEADLINE_CHECK_INTERVAL_CHARS}
+ * characters read. A regex reads the line through {@link #charAt}, so however it backtracks it throws once the
+ * deadline passes instead of running on after the client gave up.
+ */
+class DeadlineCharSequence implements CharSequence {
+    private final CharSequence chars;
+    private final Deadline deadline;
+    private long reads;
+
+    DeadlineCharSequence(CharSequence chars, Deadline deadline) {
+        this.chars = chars;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if ((++reads & (Constants.REGEX_DEADLINE_CHECK_INTERVAL_CHARS - 1)) == 0) {
+            deadline.check();
+        }
+        return chars.charAt(index);
+    }
+
+    @Override
+    public int length() {
+        return chars.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new DeadlineCharSequence(chars.subSequence(start, end), deadline);
+    }
+
+    @Override
+    public String toString() {
+        return chars.toString();
+    }
+}
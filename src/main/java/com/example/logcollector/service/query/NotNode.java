@@ -0,0 +1,28 @@
+package com.example.logcollector.service.query;
+
+import com.example.logcollector.util.Deadline;
+
+import java.nio.ByteBuffer;
+
+public class NotNode implements QueryNode {
+    private final QueryNode child;
+
+    public NotNode(QueryNode child) {
+        this.child = child;
+    }
+
+    @Override
+    public boolean matches(ByteBuffer buffer, int start, int end) {
+        return !child.matches(buffer, start, end);
+    }
+
+    @Override
+    public int cost() {
+        return child.cost();
+    }
+
+    @Override
+    public QueryNode withDeadline(Deadline deadline) {
+        return new NotNode(child.withDeadline(deadline));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.logcollector.service.query;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.service.matcher.LineMatcher;
+import com.example.logcollector.util.Deadline;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the search term and query of a request into one {@link LineMatcher}. Compiled queries are kept
+ * in a small LRU map so repeated queries (paging, dashboards) are only parsed once.
+ */
+@Component
+public class QueryCompiler {
+    private final Map<String, QueryNode> compiledQueries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, QueryNode> eldest) {
+            return size() > Constants.MAX_COMPILED_QUERIES;
+        }
+    });
+
+    public LineMatcher compile(String searchTerm, String query) {
+        return compile(searchTerm, query, null);
+    }
+
+    /**
+     * Compiles the query bound to the deadline of a request, so a regex stops on a long line once it passes.
+     */
+    public LineMatcher compile(String searchTerm, String query, Deadline deadline) {
+        if (query == null || query.isBlank()) {
+            return LineMatcher.forSearchTerm(searchTerm);
+        }
+        QueryNode compiled = compiledQueries.get(query);
+        if (compiled == null) {
+            compiled = QueryParser.parse(query);
+            compiledQueries.put(query, compiled);
+        }
+        if (deadline != null) {
+            compiled = compiled.withDeadline(deadline);
+        }
+        if (searchTerm == null || searchTerm.isEmpty()) {
+            return compiled;
+        }
+        return new AndNode(List.of(new TermNode(searchTerm), compiled));
+    }
+}
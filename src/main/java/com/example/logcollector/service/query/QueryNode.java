@@ -0,0 +1,24 @@
+package com.example.logcollector.service.query;
+
+import com.example.logcollector.service.matcher.LineMatcher;
+import com.example.logcollector.util.Deadline;
+
+/**
+ * A node of a compiled query. The cost is a rough relative estimate of how expensive it is to evaluate
+ * the node on one line, used to order the children of AND and OR nodes so cheap literal checks run first.
+ */
+public interface QueryNode extends LineMatcher {
+    int LITERAL_COST = 1;
+    int DECODING_COST = 4;
+    int REGEX_COST = 16;
+
+    int cost();
+
+    /**
+     * Returns this node bound to the deadline of one request. Compiled queries are shared between requests, so
+     * nodes that can run for a long time on a single line keep the deadline in a copy instead of in themselves.
+     */
+    default QueryNode withDeadline(Deadline deadline) {
+        return this;
+    }
+}
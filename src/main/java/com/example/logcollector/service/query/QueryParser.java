@@ -0,0 +1,285 @@
+package com.example.logcollector.service.query;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Parses a query into a tree of {@link QueryNode}s.
+ * <pre>
+ * query   := and (OR and)*
+ * and     := unary ([AND] unary)*
+ * unary   := (NOT | '-') unary | '(' query ')' | term
+ * term    := word | "phrase" | /regex/[i] | field:value | field:"value"
+ * </pre>
+ * Words and phrases are case-insensitive substrings. {@code field:value} only matches {@code field=value}
+ * (optionally quoted) as a whole key/value pair, e.g. {@code user:root} matches {@code user=root} but not
+ * {@code user=rooted}.
+ */
+public class QueryParser {
+    private static final Pattern FIELD_TERM = Pattern.compile("[A-Za-z_][A-Za-z0-9_.-]*:.*");
+    private static final int MIN_PREFILTER_LENGTH = 3;
+
+    private final String query;
+    private int position;
+
+    private QueryParser(String query) {
+        this.query = query;
+    }
+
+    public static QueryNode parse(String query) {
+        QueryParser parser = new QueryParser(query);
+        QueryNode node = parser.parseOr();
+        parser.skipWhitespace();
+        if (parser.position < query.length()) {
+            throw parser.error("unexpected '" + query.charAt(parser.position) + "'");
+        }
+        return node;
+    }
+
+    private QueryNode parseOr() {
+        List<QueryNode> children = new ArrayList<>();
+        children.add(parseAnd());
+        while (consumeKeyword("OR")) {
+            children.add(parseAnd());
+        }
+        return children.size() == 1 ? children.getFirst() : new OrNode(children);
+    }
+
+    private QueryNode parseAnd() {
+        List<QueryNode> children = new ArrayList<>();
+        children.add(parseUnary());
+        while (true) {
+            if (consumeKeyword("AND")) {
+                children.add(parseUnary());
+            } else if (startsUnary()) {
+                children.add(parseUnary());
+            } else {
+                break;
+            }
+        }
+        return children.size() == 1 ? children.getFirst() : new AndNode(children);
+    }
+
+    private QueryNode parseUnary() {
+        skipWhitespace();
+        if (consumeKeyword("NOT")) {
+            return new NotNode(parseUnary());
+        }
+        if (peek() == '-') {
+            position++;
+            return new NotNode(parseUnary());
+        }
+        if (peek() == '(') {
+            position++;
+            QueryNode node = parseOr();
+            skipWhitespace();
+            if (peek() != ')') {
+                throw error("missing ')'");
+            }
+            position++;
+            return node;
+        }
+        return parseTerm();
+    }
+
+    private QueryNode parseTerm() {
+        skipWhitespace();
+        char c = peek();
+        if (c == 0 || c == ')') {
+            throw error("expected a term");
+        }
+        if (c == '"') {
+            return new TermNode(readQuoted());
+        }
+        if (c == '/') {
+            return readRegex();
+        }
+        String word = readWord();
+        if (FIELD_TERM.matcher(word).matches() && (!word.endsWith(":") || peek() == '"')) {
+            int colon = word.indexOf(':');
+            String field = word.substring(0, colon);
+            String value = colon == word.length() - 1 ? readQuoted() : word.substring(colon + 1);
+            return fieldTerm(field, value);
+        }
+        return new TermNode(word);
+    }
+
+    private QueryNode fieldTerm(String field, String value) {
+        Pattern pattern = Pattern.compile("(?<![^\\s,;{(\\[])" + Pattern.quote(field) + "=(\"?)" + Pattern.quote(value)
+                + "\\1(?=[\\s,;)}\\]]|$)", Pattern.CASE_INSENSITIVE);
+        List<QueryNode> children = new ArrayList<>();
+        children.add(new TermNode(value));
+        children.add(new RegexNode(pattern, isAscii(field) ? field + "=" : null));
+        return new AndNode(children);
+    }
+
+    private QueryNode readRegex() {
+        int start = position;
+        position++;
+        StringBuilder regex = new StringBuilder();
+        while (position < query.length() && query.charAt(position) != '/') {
+            char c = query.charAt(position++);
+            if (c == '\\' && position < query.length() && query.charAt(position) == '/') {
+                c = query.charAt(position++);
+            } else if (c == '\\' && position < query.length()) {
+                regex.append(c);
+                c = query.charAt(position++);
+            }
+            regex.append(c);
+        }
+        if (position >= query.length()) {
+            position = start;
+            throw error("unterminated regex");
+        }
+        position++;
+        int flags = 0;
+        if (peek() == 'i') {
+            flags = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+            position++;
+        }
+        try {
+            return new RegexNode(Pattern.compile(regex.toString(), flags), requiredLiteral(regex.toString()));
+        } catch (PatternSyntaxException e) {
+            throw error("invalid regex " + e.getDescription());
+        }
+    }
+
+    /**
+     * Returns the longest run of plain characters that every match of the regex has to contain, or null if
+     * there is none that is safe to extract.
+     */
+    static String requiredLiteral(String regex) {
+        if (regex.contains("|") || regex.contains("(?")) {
+            return null;
+        }
+        String best = "";
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+            boolean literal = depth == 0 && c < 0x80 && (Character.isLetterOrDigit(c) || " _-=:,;\"'<>@#%&!~`".indexOf(c) >= 0);
+            if (literal && next != '?' && next != '*' && next != '{') {
+                run.append(c);
+                if (next == '+') {
+                    best = longer(best, run);
+                    run.setLength(0);
+                }
+                continue;
+            }
+            best = longer(best, run);
+            run.setLength(0);
+            switch (c) {
+                case '\\' -> i++;
+                case '(' -> depth++;
+                case ')' -> depth = Math.max(0, depth - 1);
+                case '[' -> i = skipCharacterClass(regex, i);
+                case '{' -> i = Math.max(i, regex.indexOf('}', i));
+                default -> {
+                }
+            }
+        }
+        best = longer(best, run);
+        return best.length() >= MIN_PREFILTER_LENGTH ? best : null;
+    }
+
+    private static int skipCharacterClass(String regex, int open) {
+        int i = open + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        while (i < regex.length() && regex.charAt(i) != ']') {
+            if (regex.charAt(i) == '\\') {
+                i++;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static String longer(String best, StringBuilder run) {
+        return run.length() > best.length() ? run.toString() : best;
+    }
+
+    private static boolean isAscii(String value) {
+        return value.chars().allMatch(c -> c < 0x80);
+    }
+
+    private String readQuoted() {
+        int start = position;
+        position++;
+        StringBuilder value = new StringBuilder();
+        while (position < query.length() && query.charAt(position) != '"') {
+            char c = query.charAt(position++);
+            if (c == '\\' && position < query.length()) {
+                c = query.charAt(position++);
+            }
+            value.append(c);
+        }
+        if (position >= query.length()) {
+            position = start;
+            throw error("unterminated quote");
+        }
+        position++;
+        if (value.isEmpty()) {
+            throw error("empty phrase");
+        }
+        return value.toString();
+    }
+
+    private String readWord() {
+        int start = position;
+        while (position < query.length()) {
+            char c = query.charAt(position);
+            if (Character.isWhitespace(c) || c == '(' || c == ')' || (c == '"' && position > start)) {
+                break;
+            }
+            position++;
+        }
+        return query.substring(start, position);
+    }
+
+    private boolean startsUnary() {
+        skipWhitespace();
+        char c = peek();
+        return c != 0 && c != ')' && !atKeyword("OR");
+    }
+
+    private boolean consumeKeyword(String keyword) {
+        skipWhitespace();
+        if (atKeyword(keyword)) {
+            position += keyword.length();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean atKeyword(String keyword) {
+        int end = position + keyword.length();
+        return query.startsWith(keyword, position)
+                && (end == query.length() || Character.isWhitespace(query.charAt(end)) || query.charAt(end) == '(');
+    }
+
+    private void skipWhitespace() {
+        while (position < query.length() && Character.isWhitespace(query.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        return position < query.length() ? query.charAt(position) : 0;
+    }
+
+    private ResponseStatusException error(String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                String.format("Invalid query at position %d: %s", position, message));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.logcollector.service.query;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.service.matcher.CaseInsensitiveMatcher;
+import com.example.logcollector.util.Deadline;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Regular expression term. The line is only decoded when the prefilter, a literal the regex cannot match
+ * without, is found in the raw bytes. At most {@link Constants#MAX_REGEX_LINE_BYTES} of a line are decoded,
+ * and once bound to a deadline the regex gives up on a line when the deadline passes, since a pattern that
+ * backtracks badly can take far longer on one line than the scan takes between deadline checks.
+ */
+public class RegexNode implements QueryNode {
+    private final Pattern pattern;
+    private final CaseInsensitiveMatcher prefilter;
+    private final Deadline deadline;
+
+    public RegexNode(Pattern pattern, String requiredLiteral) {
+        this(pattern, requiredLiteral == null ? null : new CaseInsensitiveMatcher(requiredLiteral), null);
+    }
+
+    private RegexNode(Pattern pattern, CaseInsensitiveMatcher prefilter, Deadline deadline) {
+        this.pattern = pattern;
+        this.prefilter = prefilter;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public boolean matches(ByteBuffer buffer, int start, int end) {
+        if (prefilter != null && !prefilter.matches(buffer, start, end)) {
+            return false;
+        }
+        byte[] bytes = new byte[Math.min(end - start, Constants.MAX_REGEX_LINE_BYTES)];
+        buffer.get(start, bytes);
+        String line = new String(bytes, StandardCharsets.UTF_8);
+        return pattern.matcher(deadline == null ? line : new DeadlineCharSequence(line, deadline)).find();
+    }
+
+    @Override
+    public int cost() {
+        return REGEX_COST;
+    }
+
+    @Override
+    public QueryNode withDeadline(Deadline deadline) {
+        return new RegexNode(pattern, prefilter, deadline);
+    }
+}
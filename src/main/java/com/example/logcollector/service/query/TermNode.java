@@ -0,0 +1,27 @@
+package com.example.logcollector.service.query;
+
+import com.example.logcollector.service.matcher.CaseInsensitiveMatcher;
+import com.example.logcollector.service.matcher.LineMatcher;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Case-insensitive substring term.
+ */
+public class TermNode implements QueryNode {
+    private final LineMatcher matcher;
+
+    public TermNode(String term) {
+        this.matcher = LineMatcher.forSearchTerm(term);
+    }
+
+    @Override
+    public boolean matches(ByteBuffer buffer, int start, int end) {
+        return matcher.matches(buffer, start, end);
+    }
+
+    @Override
+    public int cost() {
+        return matcher instanceof CaseInsensitiveMatcher ? LITERAL_COST : DECODING_COST;
+    }
+}
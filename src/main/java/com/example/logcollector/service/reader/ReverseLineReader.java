@@ -0,0 +1,193 @@
+package com.example.logcollector.service.reader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the lines of a file from the end to the start. The file is memory mapped in windows and newlines
+ * are found eight bytes at a time, so scanning a line does not allocate anything. Empty lines are skipped.
+ * The bytes of the current line can be inspected with {@link #buffer()}, {@link #lineStartInBuffer()} and
+ * {@link #lineEndInBuffer()}; it is only decoded into a String when {@link #line()} is called.
+ * <p>
+ * Windows can start small and double with every window read, up to a maximum. A page of common lines is then
+ * found in the first few kilobytes without mapping megabytes it never looks at, while a selective search that
+ * keeps reading soon maps large windows and needs few of them.
+ */
+public class ReverseLineReader implements Closeable {
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private final FileChannel channel;
+    private final long lowerBound;
+    private final long startPosition;
+    private final int maxWindowSize;
+    private int windowSize;
+    private MappedByteBuffer buffer;
+    private long windowStart;
+    private long position;
+    private long lineStart;
+    private long lineEnd;
+
+    public ReverseLineReader(File file, long startPosition, int windowSize) throws IOException {
+        this(file, 0, startPosition, windowSize);
+    }
+
+    /**
+     * Reads only the lines between {@code lowerBound} and {@code startPosition}. The lower bound is treated as
+     * the start of the file, so it should be the start of a line.
+     */
+    public ReverseLineReader(File file, long lowerBound, long startPosition, int windowSize) throws IOException {
+        this(file, lowerBound, startPosition, windowSize, windowSize);
+    }
+
+    /**
+     * Maps {@code initialWindowSize} bytes first and doubles the window each time the next one is mapped, until it
+     * reaches {@code maxWindowSize}.
+     */
+    public ReverseLineReader(File file, long lowerBound, long startPosition, int initialWindowSize, int maxWindowSize) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.lowerBound = lowerBound;
+        this.windowSize = Math.min(initialWindowSize, maxWindowSize);
+        this.maxWindowSize = maxWindowSize;
+        this.position = Math.max(lowerBound, Math.min(startPosition, channel.size()));
+        this.startPosition = position;
+        this.windowStart = position;
+    }
+
+    /**
+     * Moves to the previous non-empty line. Returns false once the start of the file (or the lower bound)
+     * has been reached.
+     */
+    public boolean next() throws IOException {
+        long end = position;
+        while (true) {
+            if (end == lowerBound) {
+                position = lowerBound;
+                return false;
+            }
+            if (end <= windowStart) {
+                map(Math.max(lowerBound, end - windowSize), end);
+                windowSize = (int) Math.min(maxWindowSize, 2L * windowSize);
+            }
+            if (buffer.get((int) (end - 1 - windowStart)) != '\n') {
+                break;
+            }
+            end--;
+        }
+
+        long searchEnd = end;
+        while (true) {
+            int newline = lastIndexOfNewline((int) (searchEnd - windowStart));
+            if (newline >= 0) {
+                lineStart = windowStart + newline + 1;
+                break;
+            }
+            if (windowStart == lowerBound) {
+                lineStart = lowerBound;
+                break;
+            }
+            // the line crosses the start of the window, remap so that the whole line stays addressable
+            searchEnd = windowStart;
+            long start = Math.max(lowerBound, windowStart - windowSize);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Line starting before byte " + windowStart + " is too long to read");
+            }
+            map(start, end);
+        }
+        lineEnd = end;
+        position = lineStart;
+        return true;
+    }
+
+    public MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    public int lineStartInBuffer() {
+        return (int) (lineStart - windowStart);
+    }
+
+    public int lineEndInBuffer() {
+        return (int) (lineEnd - windowStart);
+    }
+
+    /**
+     * Byte position in the file where the current line starts.
+     */
+    public long lineStart() {
+        return lineStart;
+    }
+
+    /**
+     * Byte position in the file just after the current line.
+     */
+    public long lineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * Number of bytes between the start position and the current line, or the lower bound once every line was
+     * read.
+     */
+    public long bytesRead() {
+        return startPosition - position;
+    }
+
+    /**
+     * Size of the next window that will be mapped.
+     */
+    public int windowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Decodes the current line as UTF-8.
+     */
+    public String line() {
+        int start = lineStartInBuffer();
+        byte[] bytes = new byte[lineEndInBuffer() - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void map(long start, long end) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        windowStart = start;
+    }
+
+    /**
+     * Finds the last '\n' before {@code to} in the current window. Eight bytes are checked per step using
+     * the exact zero-byte test on {@code word ^ 0x0A0A...}, which has no false positives so the highest set
+     * bit is the last newline.
+     */
+    private int lastIndexOfNewline(int to) {
+        int i = to;
+        while (i >= 8) {
+            long x = buffer.getLong(i - 8) ^ NEWLINES;
+            long zeroes = ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+            if (zeroes != 0) {
+                return i - 8 + ((63 - Long.numberOfLeadingZeros(zeroes)) >>> 3);
+            }
+            i -= 8;
+        }
+        while (i > 0) {
+            i--;
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.logcollector.service.stream;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Writes matched lines in the compact {@value Constants#LINES_MEDIA_TYPE} encoding. Every line is sent as the
+ * number of leading bytes it shares with the line before it and the bytes that follow, so the timestamp, host
+ * and program that neighbouring log lines repeat are sent once. The line bytes are copied as they are, with no
+ * escaping. Each record starts with a type byte, and lengths are unsigned LEB128 varints:
+ * <ul>
+ *     <li>{@code 'L'} shared length, suffix length, suffix bytes: a line</li>
+ *     <li>{@code 'F'} length, JSON object: the parsed fields of the line before it</li>
+ *     <li>{@code 'T'} length, JSON object: the trailer with the paging fields, always the last record</li>
+ * </ul>
+ * Only the first {@value Constants#FRONT_CODING_MAX_PREFIX} bytes of a line are kept to compare the next line
+ * to, so memory use does not depend on how long the lines are.
+ */
+public class FrontCodedLineWriter implements LineWriter {
+    private static final ObjectMapper MAPPER = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    public static final byte LINE = 'L';
+    public static final byte FIELDS = 'F';
+    public static final byte TRAILER = 'T';
+    private static final int MAX_RECORD_HEADER = 1 + 5 + 5; // type byte and two varints
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private final byte[] previous = new byte[Constants.FRONT_CODING_MAX_PREFIX];
+    private int previousLength;
+    private int position;
+
+    public FrontCodedLineWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public void writeLine(ByteBuffer source, int start, int end) throws IOException {
+        while (start < end && (source.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (source.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        int length = end - start;
+        int shared = 0;
+        int maxShared = Math.min(previousLength, length);
+        while (shared < maxShared && source.get(start + shared) == previous[shared]) {
+            shared++;
+        }
+        // shared bytes are already in previous, only the rest of the kept prefix changes
+        int kept = Math.min(length, previous.length);
+        source.get(start + shared, previous, shared, Math.max(0, kept - shared));
+        previousLength = kept;
+
+        ensureCapacity(MAX_RECORD_HEADER);
+        buffer[position++] = LINE;
+        writeVarint(shared);
+        writeVarint(length - shared);
+        for (int i = start + shared; i < end; ) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            int count = Math.min(end - i, buffer.length - position);
+            source.get(i, buffer, position, count);
+            position += count;
+            i += count;
+        }
+    }
+
+    @Override
+    public void writeLine(ByteBuffer source, int start, int end, Map<String, String> fields) throws IOException {
+        writeLine(source, start, end);
+        writeRecord(FIELDS, MAPPER.writeValueAsBytes(fields));
+    }
+
+    @Override
+    public void writeTrailer(ListEntriesResponse trailer) throws IOException {
+        writeRecord(TRAILER, MAPPER.writeValueAsBytes(trailer));
+    }
+
+    @Override
+    public boolean hasPending() {
+        return position > 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void writeRecord(byte type, byte[] json) throws IOException {
+        ensureCapacity(MAX_RECORD_HEADER);
+        buffer[position++] = type;
+        writeVarint(json.length);
+        if (json.length > buffer.length - position) {
+            flushBuffer();
+            out.write(json);
+            return;
+        }
+        System.arraycopy(json, 0, buffer, position, json.length);
+        position += json.length;
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.logcollector.service.stream;
+
+import com.example.logcollector.model.logs.ListEntriesResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Writes the matched lines of a streamed page straight from the reader's buffer, followed by a trailer with the
+ * paging fields. Implementations buffer their output until {@link #flush()}.
+ */
+public interface LineWriter {
+    /**
+     * Writes the line in {@code [start, end)} of {@code source}, trimmed like the lines of a JSON page.
+     */
+    void writeLine(ByteBuffer source, int start, int end) throws IOException;
+
+    /**
+     * Writes the line along with its parsed fields.
+     */
+    void writeLine(ByteBuffer source, int start, int end, Map<String, String> fields) throws IOException;
+
+    /**
+     * Writes the closing record that carries the paging fields of the response, without the lines.
+     */
+    void writeTrailer(ListEntriesResponse trailer) throws IOException;
+
+    boolean hasPending();
+
+    void flush() throws IOException;
+}
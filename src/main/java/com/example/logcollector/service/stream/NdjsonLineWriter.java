@@ -0,0 +1,173 @@
+package com.example.logcollector.service.stream;
+
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Writes matched lines as newline delimited JSON, one {@code {"line":"..."}} object per line, escaping the
+ * bytes straight from the reader's buffer so a line is never decoded into a String. Valid UTF-8 is copied as it
+ * is apart from the characters JSON requires to be escaped, and each malformed sequence is replaced with U+FFFD,
+ * the same as decoding the line into a String does. Output is collected in a fixed size buffer, so memory use
+ * does not depend on how many or how long the lines are.
+ */
+public class NdjsonLineWriter implements LineWriter {
+    private static final ObjectMapper MAPPER = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private static final byte[] LINE_PREFIX = "{\"line\":\"".getBytes();
+    private static final byte[] LINE_SUFFIX = "\"}\n".getBytes();
+    private static final byte[] FIELDS_PREFIX = "\",\"fields\":".getBytes();
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] REPLACEMENT = {(byte) 0xEF, (byte) 0xBF, (byte) 0xBD};
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+
+    public NdjsonLineWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public void writeLine(ByteBuffer source, int start, int end) throws IOException {
+        writeEscapedLine(source, start, end);
+        write(LINE_SUFFIX);
+    }
+
+    /**
+     * Writes the line along with its parsed fields, {@code {"line":"...","fields":{...}}}.
+     */
+    @Override
+    public void writeLine(ByteBuffer source, int start, int end, Map<String, String> fields) throws IOException {
+        writeEscapedLine(source, start, end);
+        write(FIELDS_PREFIX);
+        write(MAPPER.writeValueAsBytes(fields));
+        write(new byte[]{'}', '\n'});
+    }
+
+    private void writeEscapedLine(ByteBuffer source, int start, int end) throws IOException {
+        while (start < end && (source.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (source.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        write(LINE_PREFIX);
+        for (int i = start; i < end; i++) {
+            byte b = source.get(i);
+            if (position + 6 > buffer.length) {
+                flushBuffer();
+            }
+            if (b < 0) {
+                int length = sequenceLength(source, i, end);
+                if (length > 0) {
+                    for (int j = 0; j < length; j++) {
+                        buffer[position++] = source.get(i + j);
+                    }
+                } else {
+                    System.arraycopy(REPLACEMENT, 0, buffer, position, REPLACEMENT.length);
+                    position += REPLACEMENT.length;
+                    length = -length;
+                }
+                i += length - 1;
+            } else if (b == '"' || b == '\\') {
+                buffer[position++] = '\\';
+                buffer[position++] = b;
+            } else if (b >= 0 && b < ' ') {
+                buffer[position++] = '\\';
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[b >> 4];
+                buffer[position++] = HEX[b & 0xF];
+            } else {
+                buffer[position++] = b;
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the UTF-8 sequence starting with the non-ASCII byte at {@code i}, or minus the length
+     * of its malformed part when it is not valid: a byte that cannot start a sequence, an overlong encoding, a
+     * surrogate or a sequence cut short. Malformed parts are sized the way the JDK's decoder sizes them, so each
+     * becomes one replacement character just as it does in a decoded String.
+     */
+    private static int sequenceLength(ByteBuffer source, int i, int end) {
+        int lead = source.get(i) & 0xFF;
+        int length;
+        int secondMin = 0x80;
+        int secondMax = 0xBF;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            length = 2;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            length = 3;
+            if (lead == 0xE0) {
+                secondMin = 0xA0;
+            }
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            length = 4;
+            if (lead == 0xF0) {
+                secondMin = 0x90;
+            } else if (lead == 0xF4) {
+                secondMax = 0x8F;
+            }
+        } else {
+            return -1;
+        }
+        for (int j = 1; j < length; j++) {
+            if (i + j >= end) {
+                return -j;
+            }
+            int next = source.get(i + j) & 0xFF;
+            int min = j == 1 ? secondMin : 0x80;
+            int max = j == 1 ? secondMax : 0xBF;
+            if (next < min || next > max) {
+                return -j;
+            }
+        }
+        if (lead == 0xED && (source.get(i + 1) & 0xFF) >= 0xA0) {
+            // a surrogate is replaced as a whole
+            return -3;
+        }
+        return length;
+    }
+
+    @Override
+    public void writeTrailer(ListEntriesResponse trailer) throws IOException {
+        write(MAPPER.writeValueAsBytes(trailer));
+        write(new byte[]{'\n'});
+    }
+
+    @Override
+    public boolean hasPending() {
+        return position > 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        if (position + bytes.length > buffer.length) {
+            flushBuffer();
+        }
+        if (bytes.length > buffer.length) {
+            out.write(bytes);
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.logcollector.service.tail;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.file.FileSnapshot;
+import com.example.logcollector.service.matcher.LineMatcher;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Follows files that clients are tailing. There is a single reader per file no matter how many clients
+ * follow it: every poll stats the file, reads only the bytes appended since the last poll and fans the
+ * complete lines out to each subscription, which applies its own matcher. Subscriptions write to their
+ * clients on virtual threads, a poll only queues the lines so one slow client can't hold up the others.
+ */
+@Component
+public class TailFollower {
+    private static final Logger logger = LoggerFactory.getLogger(TailFollower.class);
+
+    private final Map<String, FileTail> tails = new ConcurrentHashMap<>();
+    // one per subscription, taken before it is registered and given back when it closes
+    private final Semaphore slots = new Semaphore(Constants.MAX_TAIL_SUBSCRIBERS);
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Executor sender;
+    private final int maxQueuedLines;
+
+    public TailFollower() {
+        this.sender = senders;
+        this.maxQueuedLines = Constants.TAIL_MAX_QUEUED_LINES;
+    }
+
+    TailFollower(Executor sender, int maxQueuedLines) {
+        this.sender = sender;
+        this.maxQueuedLines = maxQueuedLines;
+    }
+
+    public TailSubscription subscribe(File file, LineMatcher matcher, SseEmitter emitter) throws IOException {
+        if (!slots.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many clients are following log files");
+        }
+        boolean registered = false;
+        try {
+            String path = file.getCanonicalPath();
+            FileSnapshot snapshot = FileSnapshot.of(file);
+            long position = lastCompleteLineEnd(file, snapshot.size());
+            while (true) {
+                FileTail tail = tails.computeIfAbsent(path, key -> new FileTail(file, snapshot, position));
+                synchronized (tail) {
+                    if (tail.removed) {
+                        continue;
+                    }
+                    // from here on the subscription gives the slot back when it closes
+                    TailSubscription subscription = new TailSubscription(emitter, matcher, tail.position, sender, maxQueuedLines, slots::release);
+                    registered = true;
+                    tail.subscriptions.add(subscription);
+                    emitter.onCompletion(subscription::close);
+                    emitter.onTimeout(subscription::close);
+                    emitter.onError(error -> subscription.close());
+                    return subscription;
+                }
+            }
+        } finally {
+            if (!registered) {
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * Subscriptions that are still open, a closed one stops counting right away rather than at the next poll.
+     */
+    public int subscriberCount() {
+        return Constants.MAX_TAIL_SUBSCRIBERS - slots.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    @Scheduled(fixedDelay = Constants.TAIL_POLL_INTERVAL_IN_MS)
+    public void poll() {
+        tails.forEach(this::poll);
+    }
+
+    private void poll(String path, FileTail tail) {
+        synchronized (tail) {
+            tail.subscriptions.removeIf(TailSubscription::isClosed);
+            if (tail.subscriptions.isEmpty()) {
+                tail.removed = true;
+                tails.remove(path, tail);
+                return;
+            }
+            try {
+                FileSnapshot snapshot = FileSnapshot.of(tail.file);
+                if (!snapshot.isSameFile(tail.snapshot) || snapshot.size() < tail.position) {
+                    logger.info("{} was rotated or truncated, following the new file from the start", path);
+                    tail.position = 0;
+                }
+                tail.snapshot = snapshot;
+                if (snapshot.size() > tail.position) {
+                    readAppended(tail, snapshot.size());
+                }
+            } catch (IOException e) {
+                // the file can briefly be missing while it is being rotated
+                logger.debug("Could not poll {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Following starts after the last complete line, a partially written line is sent once it is finished.
+     */
+    private long lastCompleteLineEnd(File file, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long end = size;
+            while (end > 0) {
+                long start = Math.max(0, end - buffer.capacity());
+                buffer.clear();
+                buffer.limit((int) (end - start));
+                channel.read(buffer, start);
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        return start + i + 1;
+                    }
+                }
+                end = start;
+            }
+        }
+        return 0;
+    }
+
+    private void readAppended(FileTail tail, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - tail.position, Constants.TAIL_MAX_READ_BYTES));
+        try (FileChannel channel = FileChannel.open(tail.file.toPath(), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, tail.position + buffer.position()) <= 0) {
+                    break;
+                }
+            }
+        }
+        int read = buffer.position();
+        int end = read;
+        while (end > 0 && buffer.get(end - 1) != '\n') {
+            end--;
+        }
+        if (end == 0) {
+            if (read < buffer.capacity()) {
+                // only part of a line has been written so far
+                return;
+            }
+            end = read;
+        }
+
+        List<int[]> lines = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                if (i > lineStart) {
+                    lines.add(new int[]{lineStart, i});
+                }
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < end) {
+            lines.add(new int[]{lineStart, end});
+        }
+        tail.position += end;
+        dispatch(tail, buffer, lines);
+    }
+
+    private void dispatch(FileTail tail, ByteBuffer buffer, List<int[]> lines) {
+        String[] decoded = new String[lines.size()];
+        for (TailSubscription subscription : tail.subscriptions) {
+            List<String> matched = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                int[] line = lines.get(i);
+                if (subscription.getMatcher().matches(buffer, line[0], line[1])) {
+                    if (decoded[i] == null) {
+                        decoded[i] = new String(buffer.array(), line[0], line[1] - line[0], StandardCharsets.UTF_8).trim();
+                    }
+                    matched.add(decoded[i]);
+                }
+            }
+            subscription.offer(matched);
+        }
+    }
+
+    private static class FileTail {
+        private final File file;
+        private final List<TailSubscription> subscriptions = new CopyOnWriteArrayList<>();
+        private FileSnapshot snapshot;
+        private long position;
+        private boolean removed;
+
+        FileTail(File file, FileSnapshot snapshot, long position) {
+            this.file = file;
+            this.snapshot = snapshot;
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.logcollector.service.tail;
+
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.example.logcollector.service.matcher.LineMatcher;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One client following a file. Lines appended before the initial page has been sent are held back so the
+ * client always receives the page first and then every line after it exactly once.
+ * <p>
+ * Events are queued and written to the client on the sender executor, so a slow client never holds up the
+ * follower. A client that lets more than {@code maxQueuedLines} lines pile up has fallen behind and is
+ * disconnected, it can reconnect and continue from a fresh page.
+ * <p>
+ * {@code onClose} runs once, the first time the subscription is closed for whatever reason.
+ */
+public class TailSubscription {
+    public static final String PAGE_EVENT = "page";
+    public static final String LINES_EVENT = "lines";
+
+    private final SseEmitter emitter;
+    @Getter
+    private final LineMatcher matcher;
+    @Getter
+    private final long startPosition;
+    private final Executor sender;
+    private final int maxQueuedLines;
+    private final List<String> pending = new ArrayList<>();
+    private final Deque<Event> queue = new ArrayDeque<>();
+    private int queuedLines;
+    private boolean started;
+    private boolean sending;
+    private boolean fellBehind;
+    private final Runnable onClose;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public TailSubscription(SseEmitter emitter, LineMatcher matcher, long startPosition, Executor sender, int maxQueuedLines, Runnable onClose) {
+        this.emitter = emitter;
+        this.matcher = matcher;
+        this.startPosition = startPosition;
+        this.sender = sender;
+        this.maxQueuedLines = maxQueuedLines;
+        this.onClose = onClose;
+    }
+
+    public synchronized void start(ListEntriesResponse page) {
+        if (closed.get()) {
+            return;
+        }
+        started = true;
+        enqueue(new Event(PAGE_EVENT, page, 0));
+        if (!pending.isEmpty()) {
+            enqueue(new Event(LINES_EVENT, List.copyOf(pending), pending.size()));
+            pending.clear();
+        }
+    }
+
+    public synchronized void offer(List<String> lines) {
+        if (closed.get() || lines.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            pending.addAll(lines);
+            if (pending.size() > maxQueuedLines) {
+                fallBehind();
+            }
+            return;
+        }
+        enqueue(new Event(LINES_EVENT, lines, lines.size()));
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            onClose.run();
+        }
+    }
+
+    private void enqueue(Event event) {
+        // a single large batch is fine, it's lines piling up behind unsent ones that mean the client can't keep up
+        if (!queue.isEmpty() && queuedLines + event.lines() > maxQueuedLines) {
+            fallBehind();
+            return;
+        }
+        queue.add(event);
+        queuedLines += event.lines();
+        startSending();
+    }
+
+    /**
+     * Drops whatever is queued and has the sender end the response, so the client notices and reconnects.
+     */
+    private void fallBehind() {
+        close();
+        fellBehind = true;
+        pending.clear();
+        queue.clear();
+        queuedLines = 0;
+        startSending();
+    }
+
+    private void startSending() {
+        if (sending) {
+            return;
+        }
+        sending = true;
+        try {
+            sender.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            sending = false;
+            close();
+        }
+    }
+
+    /**
+     * Runs on the sender, one drain per subscription at a time so events arrive in order. The lock is only held
+     * to take the next event, never while writing to the client.
+     */
+    private void drain() {
+        while (true) {
+            Event event;
+            boolean complete;
+            synchronized (this) {
+                event = closed.get() ? null : queue.poll();
+                if (event == null) {
+                    sending = false;
+                    complete = fellBehind;
+                } else {
+                    queuedLines -= event.lines();
+                    complete = false;
+                }
+            }
+            if (event == null) {
+                if (complete) {
+                    emitter.complete();
+                }
+                return;
+            }
+            send(event);
+        }
+    }
+
+    private void send(Event event) {
+        try {
+            emitter.send(SseEmitter.event().name(event.name()).data(event.data(), MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // the client went away, the follower drops closed subscriptions on its next poll
+            close();
+        }
+    }
+
+    private record Event(String name, Object data, int lines) {
+    }
+}
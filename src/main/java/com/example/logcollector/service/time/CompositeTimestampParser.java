@@ -0,0 +1,26 @@
+package com.example.logcollector.service.time;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Tries each parser in order and returns the first timestamp found.
+ */
+public class CompositeTimestampParser implements TimestampParser {
+    private final TimestampParser[] parsers;
+
+    public CompositeTimestampParser(List<TimestampParser> parsers) {
+        this.parsers = parsers.toArray(TimestampParser[]::new);
+    }
+
+    @Override
+    public long parse(ByteBuffer buffer, int start, int end) {
+        for (TimestampParser parser : parsers) {
+            long timestamp = parser.parse(buffer, start, end);
+            if (timestamp != NO_TIMESTAMP) {
+                return timestamp;
+            }
+        }
+        return NO_TIMESTAMP;
+    }
+}
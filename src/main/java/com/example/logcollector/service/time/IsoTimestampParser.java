@@ -0,0 +1,89 @@
+package com.example.logcollector.service.time;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static com.example.logcollector.service.time.TimestampParser.digits;
+
+/**
+ * Parses ISO 8601 style timestamps such as {@code 2024-05-01T12:30:00.123+02:00} or {@code 2024-05-01 12:30:00},
+ * optionally wrapped in a leading '['. Timestamps without a zone are read in the zone the logs were written in.
+ */
+public class IsoTimestampParser implements TimestampParser {
+    private static final int MIN_LENGTH = 19; // yyyy-MM-ddTHH:mm:ss
+
+    private final ZoneId zone;
+
+    public IsoTimestampParser() {
+        this(ZoneId.systemDefault());
+    }
+
+    public IsoTimestampParser(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    @Override
+    public long parse(ByteBuffer buffer, int start, int end) {
+        int i = start < end && buffer.get(start) == '[' ? start + 1 : start;
+        if (end - i < MIN_LENGTH
+                || buffer.get(i + 4) != '-' || buffer.get(i + 7) != '-'
+                || (buffer.get(i + 10) != 'T' && buffer.get(i + 10) != ' ')
+                || buffer.get(i + 13) != ':' || buffer.get(i + 16) != ':') {
+            return NO_TIMESTAMP;
+        }
+        int year = digits(buffer, i, 4);
+        int month = digits(buffer, i + 5, 2);
+        int day = digits(buffer, i + 8, 2);
+        int hour = digits(buffer, i + 11, 2);
+        int minute = digits(buffer, i + 14, 2);
+        int second = digits(buffer, i + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return NO_TIMESTAMP;
+        }
+
+        int p = i + MIN_LENGTH;
+        int millis = 0;
+        if (p < end && (buffer.get(p) == '.' || buffer.get(p) == ',')) {
+            p++;
+            int scale = 100;
+            while (p < end && Character.isDigit(buffer.get(p))) {
+                millis += (buffer.get(p) - '0') * scale;
+                scale /= 10;
+                p++;
+            }
+        }
+
+        try {
+            LocalDateTime time = LocalDateTime.of(year, month, day, hour, minute, Math.min(second, 59));
+            ZoneOffset offset = parseOffset(buffer, p, end);
+            long epochSecond = offset != null ? time.toEpochSecond(offset) : time.atZone(zone).toEpochSecond();
+            return epochSecond * 1000 + millis;
+        } catch (DateTimeException e) {
+            // e.g. February 30th
+            return NO_TIMESTAMP;
+        }
+    }
+
+    private ZoneOffset parseOffset(ByteBuffer buffer, int p, int end) {
+        if (p >= end) {
+            return null;
+        }
+        byte sign = buffer.get(p);
+        if (sign == 'Z') {
+            return ZoneOffset.UTC;
+        }
+        if ((sign != '+' && sign != '-') || end - p < 5) {
+            return null;
+        }
+        int hours = digits(buffer, p + 1, 2);
+        int minutes = buffer.get(p + 3) == ':' ? (end - p >= 6 ? digits(buffer, p + 4, 2) : -1) : digits(buffer, p + 3, 2);
+        if (hours < 0 || minutes < 0) {
+            return null;
+        }
+        return ZoneOffset.ofHoursMinutes(sign == '-' ? -hours : hours, sign == '-' ? -minutes : minutes);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.logcollector.service.time;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses the timestamps journalctl writes: a leading epoch in seconds with a microsecond fraction
+ * ({@code -o short-unix}), or the {@code __REALTIME_TIMESTAMP} field in microseconds ({@code -o json} and
+ * {@code -o export}).
+ */
+public class JournaldTimestampParser implements TimestampParser {
+    private static final byte[] REALTIME_FIELD = "__REALTIME_TIMESTAMP".getBytes(StandardCharsets.US_ASCII);
+    private static final int MIN_EPOCH_DIGITS = 9;
+    private static final int MAX_EPOCH_DIGITS = 11;
+
+    @Override
+    public long parse(ByteBuffer buffer, int start, int end) {
+        long seconds = parseShortUnix(buffer, start, end);
+        if (seconds != NO_TIMESTAMP) {
+            return seconds;
+        }
+        int field = indexOf(buffer, start, end);
+        if (field < 0) {
+            return NO_TIMESTAMP;
+        }
+        // skip the separator between the name and the value, '=' in export format and '" : "' in json
+        int p = field + REALTIME_FIELD.length;
+        while (p < end && (buffer.get(p) == '"' || buffer.get(p) == ' ' || buffer.get(p) == ':' || buffer.get(p) == '=')) {
+            p++;
+        }
+        long micros = 0;
+        int digits = 0;
+        while (p < end && Character.isDigit(buffer.get(p)) && digits < 19) {
+            micros = micros * 10 + (buffer.get(p) - '0');
+            digits++;
+            p++;
+        }
+        return digits == 0 ? NO_TIMESTAMP : micros / 1000;
+    }
+
+    private long parseShortUnix(ByteBuffer buffer, int start, int end) {
+        long seconds = 0;
+        int p = start;
+        while (p < end && p - start <= MAX_EPOCH_DIGITS && Character.isDigit(buffer.get(p))) {
+            seconds = seconds * 10 + (buffer.get(p) - '0');
+            p++;
+        }
+        if (p - start < MIN_EPOCH_DIGITS || p - start > MAX_EPOCH_DIGITS || p >= end || buffer.get(p) != '.') {
+            return NO_TIMESTAMP;
+        }
+        p++;
+        int millis = 0;
+        int scale = 100;
+        while (p < end && Character.isDigit(buffer.get(p))) {
+            millis += (buffer.get(p) - '0') * scale;
+            scale /= 10;
+            p++;
+        }
+        return seconds * 1000 + millis;
+    }
+
+    private int indexOf(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i <= end - REALTIME_FIELD.length; i++) {
+            int j = 0;
+            while (j < REALTIME_FIELD.length && buffer.get(i + j) == REALTIME_FIELD[j]) {
+                j++;
+            }
+            if (j == REALTIME_FIELD.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.logcollector.service.time;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+import static com.example.logcollector.service.time.TimestampParser.digits;
+
+/**
+ * Parses the classic BSD syslog (RFC 3164) timestamp {@code Mmm dd HH:mm:ss}. It has no year, so the current
+ * year is assumed unless that puts the line more than a day in the future, in which case it is from last year.
+ * <p>
+ * The year and the zone offset in effect are looked up once and kept until the clock passes into another year
+ * or daylight saving period, so a line is converted with plain arithmetic. Only lines from near or across a
+ * daylight saving change are converted with the zone rules.
+ */
+public class SyslogTimestampParser implements TimestampParser {
+    private static final int LENGTH = 15; // Mmm dd HH:mm:ss
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+    private static final long ONE_DAY_IN_MS = 24 * 60 * 60 * 1000;
+    private static final long ONE_DAY_IN_SECONDS = 24 * 60 * 60;
+    private static final int[] DAYS_BEFORE_MONTH = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+
+    private final Clock clock;
+    // shared by every scan using this parser, replaced as a whole when it no longer covers the clock
+    private volatile Calendar calendar;
+
+    public SyslogTimestampParser() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public SyslogTimestampParser(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public long parse(ByteBuffer buffer, int start, int end) {
+        if (end - start < LENGTH || buffer.get(start + 3) != ' ' || buffer.get(start + 9) != ':' || buffer.get(start + 12) != ':') {
+            return NO_TIMESTAMP;
+        }
+        int month = month(buffer, start);
+        // days below 10 are padded with a space
+        int day = buffer.get(start + 4) == ' ' ? digits(buffer, start + 5, 1) : digits(buffer, start + 4, 2);
+        int hour = digits(buffer, start + 7, 2);
+        int minute = digits(buffer, start + 10, 2);
+        int second = digits(buffer, start + 13, 2);
+        if (month < 1 || day < 1 || day > 31 || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return NO_TIMESTAMP;
+        }
+
+        long now = clock.millis();
+        Calendar current = calendar(now);
+        long secondOfDay = hour * 3600L + minute * 60L + Math.min(second, 59);
+        long timestamp = toEpochMillis(current, current.year(), current.yearStartDay(), month, day, secondOfDay);
+        if (timestamp != NO_TIMESTAMP && timestamp > now + ONE_DAY_IN_MS) {
+            timestamp = toEpochMillis(current, current.year() - 1, current.previousYearStartDay(), month, day, secondOfDay);
+        }
+        return timestamp;
+    }
+
+    private long toEpochMillis(Calendar current, int year, long yearStartDay, int month, int day, long secondOfDay) {
+        boolean leap = Year.isLeap(year);
+        if (day > Month.of(month).length(leap)) {
+            // e.g. Feb 29 outside of a leap year
+            return NO_TIMESTAMP;
+        }
+        long epochDay = yearStartDay + DAYS_BEFORE_MONTH[month - 1] + (leap && month > 2 ? 1 : 0) + day - 1;
+        long epochSecond = epochDay * ONE_DAY_IN_SECONDS + secondOfDay - current.offsetSeconds();
+        if (epochSecond < current.offsetFrom() || epochSecond >= current.offsetUntil()) {
+            epochSecond = LocalDateTime.ofEpochSecond(epochDay * ONE_DAY_IN_SECONDS + secondOfDay, 0, ZoneOffset.UTC)
+                    .atZone(current.zone())
+                    .toEpochSecond();
+        }
+        return epochSecond * 1000;
+    }
+
+    private Calendar calendar(long now) {
+        Calendar current = calendar;
+        if (current == null || now < current.validFrom() || now >= current.validUntil()) {
+            current = Calendar.at(now, clock.getZone());
+            calendar = current;
+        }
+        return current;
+    }
+
+    private int month(ByteBuffer buffer, int start) {
+        for (int m = 0; m < 12; m++) {
+            if (buffer.get(start) == MONTHS.charAt(m * 3)
+                    && buffer.get(start + 1) == MONTHS.charAt(m * 3 + 1)
+                    && buffer.get(start + 2) == MONTHS.charAt(m * 3 + 2)) {
+                return m + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The current year and the zone offset in effect, valid while the clock is in {@code [validFrom, validUntil)}.
+     * The offset is used for lines in {@code [offsetFrom, offsetUntil)} epoch seconds, which stays a day clear of
+     * the daylight saving changes around now so a local time that is skipped or repeated never takes the fast path.
+     */
+    private record Calendar(ZoneId zone, int year, long yearStartDay, long previousYearStartDay, long offsetSeconds,
+                            long offsetFrom, long offsetUntil, long validFrom, long validUntil) {
+        static Calendar at(long now, ZoneId zone) {
+            ZoneRules rules = zone.getRules();
+            Instant instant = Instant.ofEpochMilli(now);
+            int year = LocalDate.ofInstant(instant, zone).getYear();
+            ZoneOffsetTransition previous = rules.previousTransition(instant);
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            long yearStart = LocalDate.of(year, 1, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+            long nextYearStart = LocalDate.of(year + 1, 1, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return new Calendar(zone, year,
+                    LocalDate.of(year, 1, 1).toEpochDay(),
+                    LocalDate.of(year - 1, 1, 1).toEpochDay(),
+                    rules.getOffset(instant).getTotalSeconds(),
+                    previous == null ? Long.MIN_VALUE : previous.toEpochSecond() + ONE_DAY_IN_SECONDS,
+                    next == null ? Long.MAX_VALUE : next.toEpochSecond() - ONE_DAY_IN_SECONDS,
+                    previous == null ? yearStart : Math.max(yearStart, previous.toEpochSecond() * 1000),
+                    next == null ? nextYearStart : Math.min(nextYearStart, next.toEpochSecond() * 1000));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.logcollector.service.time;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+/**
+ * An inclusive range of epoch milliseconds. Either end may be open.
+ */
+public record TimeRange(long from, long to) {
+    public boolean contains(long timestamp) {
+        return timestamp >= from && timestamp <= to;
+    }
+
+    /**
+     * Parses the {@code from} and {@code to} request parameters, each an ISO 8601 date time (with or without an
+     * offset) or epoch milliseconds. Returns null when neither is set.
+     */
+    public static TimeRange parse(String from, String to, ZoneId zone) {
+        if (isBlank(from) && isBlank(to)) {
+            return null;
+        }
+        TimeRange range = new TimeRange(
+                isBlank(from) ? Long.MIN_VALUE : parseTime(from, "from", zone),
+                isBlank(to) ? Long.MAX_VALUE : parseTime(to, "to", zone));
+        if (range.from() > range.to()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        return range;
+    }
+
+    private static long parseTime(String value, String name, ZoneId zone) {
+        String trimmed = value.trim();
+        try {
+            if (trimmed.chars().allMatch(Character::isDigit)) {
+                return Long.parseLong(trimmed);
+            }
+            if (trimmed.endsWith("Z") || trimmed.endsWith("z")) {
+                return Instant.parse(trimmed).toEpochMilli();
+            }
+            if (trimmed.length() > 19 && (trimmed.charAt(trimmed.length() - 6) == '+' || trimmed.charAt(trimmed.length() - 6) == '-')) {
+                return OffsetDateTime.parse(trimmed).toInstant().toEpochMilli();
+            }
+            return LocalDateTime.parse(trimmed).atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeException | NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Invalid %s time %s, expected ISO 8601 or epoch milliseconds", name, value));
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
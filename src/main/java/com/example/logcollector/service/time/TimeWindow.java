@@ -0,0 +1,110 @@
+package com.example.logcollector.service.time;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.index.ScanRange;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Finds the bytes of a log that hold a time range by binary searching the file for the range's edges. Log lines
+ * are written roughly in time order, so each edge is widened by {@link Constants#TIME_RANGE_SLACK_IN_MS} and a
+ * probe that finds no timestamp gives up the bytes it could not place rather than guess. The window is only
+ * ever too wide, the lines in it still have to be filtered by their own timestamp.
+ */
+public final class TimeWindow {
+    private TimeWindow() {
+    }
+
+    /**
+     * Returns the line aligned range of {@code [0, endPosition)} that can hold lines inside {@code range}.
+     */
+    public static ScanRange locate(File file, TimestampParser parser, TimeRange range, long endPosition) throws IOException {
+        long slack = Constants.TIME_RANGE_SLACK_IN_MS;
+        ByteBuffer buffer = ByteBuffer.allocate(Constants.TIME_RANGE_PROBE_BYTES);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long end = Math.min(endPosition, channel.size());
+            long start = range.from() < Long.MIN_VALUE + slack
+                    ? 0
+                    : firstLineAtOrAfter(channel, buffer, parser, range.from() - slack, end, true);
+            long stop = range.to() > Long.MAX_VALUE - slack - 1
+                    ? end
+                    : firstLineAtOrAfter(channel, buffer, parser, range.to() + slack + 1, end, false);
+            return new ScanRange(start, Math.max(start, stop));
+        }
+    }
+
+    /**
+     * Binary searches for the first line stamped at or after {@code timestamp}. The lines between the two
+     * probes the search converges on are kept, so the lower edge returns the low end and the upper edge the
+     * high end of what is left.
+     */
+    private static long firstLineAtOrAfter(FileChannel channel,
+                                           ByteBuffer buffer,
+                                           TimestampParser parser,
+                                           long timestamp,
+                                           long end,
+                                           boolean lowerEdge) throws IOException {
+        long low = 0;
+        long high = end;
+        while (high - low > buffer.capacity()) {
+            long mid = low + (high - low) / 2;
+            Probe probe = probe(channel, buffer, parser, mid, high);
+            if (probe == null) {
+                // nothing to compare with between mid and high, keep those bytes inside the window
+                if (lowerEdge) {
+                    high = mid;
+                } else {
+                    low = mid;
+                }
+            } else if (probe.timestamp() < timestamp) {
+                low = probe.nextLineStart();
+            } else {
+                high = probe.lineStart();
+            }
+        }
+        return lowerEdge ? low : high;
+    }
+
+    /**
+     * Reads forward from the first line that starts at or after {@code from} and returns the first line with a
+     * timestamp, or null if there is none within one buffer or before {@code limit}.
+     */
+    private static Probe probe(FileChannel channel, ByteBuffer buffer, TimestampParser parser, long from, long limit) throws IOException {
+        // start one byte early to tell whether from is already the start of a line
+        long readFrom = from - 1;
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), limit - readFrom));
+        while (buffer.hasRemaining() && channel.read(buffer, readFrom + buffer.position()) > 0) {
+            // keep reading until the buffer is full or the file ends
+        }
+        int length = buffer.position();
+        boolean reachedLimit = readFrom + length >= limit;
+        int lineStart = -1;
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(i) != '\n') {
+                continue;
+            }
+            if (lineStart >= 0 && i > lineStart) {
+                long timestamp = parser.parse(buffer, lineStart, i);
+                if (timestamp != TimestampParser.NO_TIMESTAMP) {
+                    return new Probe(readFrom + lineStart, readFrom + i + 1, timestamp);
+                }
+            }
+            lineStart = i + 1;
+        }
+        if (reachedLimit && lineStart >= 0 && lineStart < length) {
+            long timestamp = parser.parse(buffer, lineStart, length);
+            if (timestamp != TimestampParser.NO_TIMESTAMP) {
+                return new Probe(readFrom + lineStart, readFrom + length, timestamp);
+            }
+        }
+        return null;
+    }
+
+    private record Probe(long lineStart, long nextLineStart, long timestamp) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.logcollector.service.time;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Reads the timestamp at the start of a line straight from its bytes in {@code [start, end)}, without decoding
+ * the line. Returns epoch milliseconds, or {@link #NO_TIMESTAMP} when the line does not start with a timestamp
+ * this parser understands.
+ */
+public interface TimestampParser {
+    long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    TimestampParser DEFAULT = new CompositeTimestampParser(
+            List.of(new IsoTimestampParser(), new SyslogTimestampParser(), new JournaldTimestampParser()));
+
+    long parse(ByteBuffer buffer, int start, int end);
+
+    /**
+     * Returns the parser for a format name: {@code iso}, {@code syslog}, {@code journald}, or {@code auto} (the
+     * default) to try all of them.
+     */
+    static TimestampParser forFormat(String format) {
+        return switch (format == null ? "auto" : format) {
+            case "auto" -> DEFAULT;
+            case "iso" -> new IsoTimestampParser();
+            case "syslog" -> new SyslogTimestampParser();
+            case "journald" -> new JournaldTimestampParser();
+            default -> throw new IllegalArgumentException("Unknown timestamp format: " + format);
+        };
+    }
+
+    /**
+     * Parses the digits in {@code [start, start + count)}, or returns -1 if any of them is not a digit.
+     */
+    static int digits(ByteBuffer buffer, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.logcollector.util;
+
+import com.example.logcollector.exception.DeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time a request has to be answered by. It is created by the controller and passed down to
+ * every scan so work stops as soon as the client is no longer waiting for it, either because the time ran
+ * out or because the request was cancelled.
+ */
+public class Deadline {
+    private final long deadlineNanos;
+    private final boolean bounded;
+    private final Deadline parent;
+    private volatile boolean cancelled;
+
+    private Deadline(long deadlineNanos, boolean bounded, Deadline parent) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+        this.parent = parent;
+    }
+
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout), true, null);
+    }
+
+    public static Deadline none() {
+        return new Deadline(0, false, null);
+    }
+
+    /**
+     * A deadline that expires the given amount of time before this one, and is cancelled along with it.
+     */
+    public Deadline earlier(long amount, TimeUnit unit) {
+        return new Deadline(deadlineNanos - unit.toNanos(amount), bounded, this);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    public boolean isExpired() {
+        return isCancelled() || (bounded && System.nanoTime() - deadlineNanos >= 0);
+    }
+
+    public long remaining(TimeUnit unit) {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return unit.convert(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Throws if the deadline passed or the request was cancelled. Cheap enough to call every few hundred lines.
+     */
+    public void check() {
+        if (isExpired()) {
+            throw new DeadlineExceededException();
+        }
+    }
+}
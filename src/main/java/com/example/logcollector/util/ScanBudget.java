@@ -0,0 +1,58 @@
+package com.example.logcollector.util;
+
+/**
+ * The number of bytes a request may read from disk. Like a {@link Deadline} it is passed down to every scan
+ * of the request, which stops before the line that would go over the budget and records where it stopped so
+ * the search can be resumed with a new budget. A scan always reads at least one line, so paging through a
+ * file with a small budget still makes progress.
+ */
+public class ScanBudget {
+    private final long maxBytes;
+    private long bytesScanned;
+    private boolean exhausted;
+
+    private ScanBudget(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static ScanBudget of(long maxBytes) {
+        return new ScanBudget(maxBytes);
+    }
+
+    public static ScanBudget none() {
+        return new ScanBudget(Long.MAX_VALUE);
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Bytes that can still be read, zero once the budget is used up.
+     */
+    public long remaining() {
+        return Math.max(0, maxBytes - bytesScanned);
+    }
+
+    /**
+     * Counts bytes a scan read against the budget.
+     */
+    public void use(long bytes) {
+        bytesScanned += bytes;
+    }
+
+    public long bytesScanned() {
+        return bytesScanned;
+    }
+
+    /**
+     * Records that a scan stopped because the budget ran out, rather than because of the deadline or the page.
+     */
+    public void exhaust() {
+        exhausted = true;
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+}
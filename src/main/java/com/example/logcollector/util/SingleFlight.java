@@ -0,0 +1,77 @@
+package com.example.logcollector.util;
+
+import com.example.logcollector.exception.DeadlineExceededException;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent calls with the same key: the first caller runs the task and every caller that arrives
+ * while it is running waits for and shares its result. If the running caller is interrupted or runs out of
+ * time its result is not trusted, and one of the waiting callers runs the task again with its own deadline.
+ */
+public class SingleFlight<T> {
+    private final ConcurrentHashMap<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws IOException, InterruptedException;
+    }
+
+    public T execute(String key, Task<T> task) throws IOException, InterruptedException {
+        while (true) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            CompletableFuture<T> existing = inFlight.putIfAbsent(key, future);
+            if (existing == null) {
+                return run(key, future, task);
+            }
+            try {
+                return existing.get();
+            } catch (CancellationException e) {
+                // the caller running the task gave up, try to take over
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioe) {
+                    throw ioe;
+                }
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private T run(String key, CompletableFuture<T> future, Task<T> task) throws IOException, InterruptedException {
+        try {
+            T result = task.call();
+            if (Thread.currentThread().isInterrupted()) {
+                future.cancel(false);
+            } else {
+                future.complete(result);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        } catch (IOException | RuntimeException | Error e) {
+            if (Thread.currentThread().isInterrupted() || e instanceof DeadlineExceededException) {
+                future.cancel(false);
+            } else {
+                future.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.logcollector.util;
 
+import com.example.logcollector.exception.DeadlineExceededException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -8,32 +9,167 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 public class TimeoutExecutor {
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrentTasks;
+    private final long admissionWaitMillis;
+    private final LongAdder admittedTasks = new LongAdder();
+    private final LongAdder admissionWaitNanos = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+
+    public TimeoutExecutor() {
+        this.executor = Executors.newCachedThreadPool();
+        this.permits = null;
+        this.maxConcurrentTasks = Integer.MAX_VALUE;
+        this.admissionWaitMillis = 0;
+    }
+
+    /**
+     * @param virtualThreads      run every task on its own virtual thread instead of a pooled platform thread
+     * @param maxConcurrentTasks  how many tasks may run at once, a task keeps its permit until it really finishes
+     *                            even if the caller already timed out
+     * @param admissionWaitMillis how long a task may wait for a permit before it is rejected with 429
+     */
+    public TimeoutExecutor(boolean virtualThreads, int maxConcurrentTasks, long admissionWaitMillis) {
+        this.executor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool();
+        this.permits = new Semaphore(maxConcurrentTasks, true);
+        this.maxConcurrentTasks = maxConcurrentTasks;
+        this.admissionWaitMillis = admissionWaitMillis;
+    }
 
     public <T> T runWithTimeout(Callable<T> task, long timeout, TimeUnit unit) {
-        Future<T> future = executor.submit(task);
+        return runWithDeadline(task, Deadline.after(timeout, unit));
+    }
+
+    /**
+     * Runs the task until the deadline. When the caller gives up the deadline is cancelled as well, so a task
+     * that checks it stops scanning instead of running on in the background.
+     */
+    public <T> T runWithDeadline(Callable<T> task, Deadline deadline) {
+        Future<T> future = submit(task);
         try {
-            return future.get(timeout, unit);
+            return future.get(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
         } catch (TimeoutException e) {
+            deadline.cancel();
             future.cancel(true);
-            throw new ResponseStatusException(HttpStatus.REQUEST_TIMEOUT, "Log retrieval timed out");
+            throw new DeadlineExceededException();
         } catch (ExecutionException e) {
+            deadline.cancel();
             future.cancel(true);
             if (e.getCause() instanceof ResponseStatusException rse) {
                 throw rse;
             }
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error occurred");
         } catch (InterruptedException e) {
+            deadline.cancel();
+            future.cancel(true);
             Thread.currentThread().interrupt();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error occurred");
         }
     }
 
+    /**
+     * Takes a permit for work that runs outside this executor, such as a response body the servlet container
+     * writes after the controller returned. The work counts against the same limit as submitted tasks until the
+     * permit is closed.
+     */
+    public Permit admit() {
+        if (permits == null) {
+            return new Permit(null);
+        }
+        acquire();
+        return new Permit(permits);
+    }
+
+    public int availablePermits() {
+        return permits == null ? Integer.MAX_VALUE : permits.availablePermits();
+    }
+
+    public int queuedTasks() {
+        return permits == null ? 0 : permits.getQueueLength();
+    }
+
+    public int activeTasks() {
+        return permits == null ? 0 : maxConcurrentTasks - permits.availablePermits();
+    }
+
+    /**
+     * Tasks that got a permit, together with {@link #admissionWaitNanos()} the average time spent queueing.
+     */
+    public long admittedTasks() {
+        return admittedTasks.sum();
+    }
+
+    public long admissionWaitNanos() {
+        return admissionWaitNanos.sum();
+    }
+
+    public long rejectedTasks() {
+        return rejectedTasks.sum();
+    }
+
     public void shutdown() {
         executor.shutdown();
     }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        if (permits == null) {
+            return executor.submit(task);
+        }
+        acquire();
+        try {
+            return executor.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Log collector is shutting down");
+        }
+    }
+
+    private void acquire() {
+        long queuedAt = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(admissionWaitMillis, TimeUnit.MILLISECONDS)) {
+                rejectedTasks.increment();
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many log requests in progress, try again later");
+            }
+            admittedTasks.increment();
+            admissionWaitNanos.add(System.nanoTime() - queuedAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error occurred");
+        }
+    }
+
+    /**
+     * A permit taken with {@link #admit()}. Closing it more than once gives it back only once.
+     */
+    public static final class Permit implements AutoCloseable {
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() {
+            if (permits != null && released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
 }
@@ -1,15 +1,115 @@
 package com.example.logcollector.validation;
 
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.model.logs.AggregateLogsRequest;
 import com.example.logcollector.model.logs.ListEntriesRequest;
+import com.example.logcollector.model.logs.ListFilesRequest;
+import com.example.logcollector.model.logs.SearchLogsRequest;
+import com.example.logcollector.service.aggregate.LogAggregator;
+import com.example.logcollector.service.parse.FieldFilter;
+import com.example.logcollector.service.time.TimestampParser;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.regex.Pattern;
+
 @Component
 public class ListLogsRequestValidator {
+    private static final Pattern FIELD_NAME = Pattern.compile("[A-Za-z_@][A-Za-z0-9_.@-]{0,63}");
+
     public void validate(ListEntriesRequest request) {
-        if (request.getLimit() != null && (request.getLimit() < 1 || request.getLimit() > 1000)) {
+        validateCommon(request.getLimit(), request.getQuery(), request.getTimeoutMs());
+        validateTimestampFormat(request.getTimestampFormat());
+        validateFilter(request.getFilter());
+        validateMaxBytes(request.getMaxBytes());
+    }
+
+    public void validate(AggregateLogsRequest request) {
+        validateCommon(null, request.getQuery(), request.getTimeoutMs());
+        validateTimestampFormat(request.getTimestampFormat());
+        validateFilter(request.getFilter());
+        validateMaxBytes(request.getMaxBytes());
+        if (request.getTop() != null && (request.getTop() < 1 || request.getTop() > Constants.MAX_AGGREGATE_TOP)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Top must be between 1 and %d", Constants.MAX_AGGREGATE_TOP));
+        }
+        if (request.getInterval() != null) {
+            try {
+                LogAggregator.parseInterval(request.getInterval());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Interval must be a number followed by ms, s, m, h or d");
+            }
+        }
+        if (request.getField() != null && !FIELD_NAME.matcher(request.getField()).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field must be a field name such as program, host or severity");
+        }
+    }
+
+    public void validate(SearchLogsRequest request) {
+        if (request.getFileNames() == null || request.getFileNames().isEmpty() || request.getFileNames().size() > Constants.MAX_SEARCH_FILES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Between 1 and %d file names must be given", Constants.MAX_SEARCH_FILES));
+        }
+        validateCommon(request.getLimit(), request.getQuery(), request.getTimeoutMs());
+    }
+
+    public void validate(ListFilesRequest request) {
+        if (request.getLimit() != null && (request.getLimit() < 1 || request.getLimit() > Constants.MAX_FILES_LIMIT)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Limit must be between 1 and %d", Constants.MAX_FILES_LIMIT));
+        }
+        if (request.getOffset() != null && request.getOffset() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Offset must not be negative");
+        }
+        if (request.getSort() != null && !Constants.FILE_SORT_FIELDS.contains(request.getSort())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sort must be one of name, size or modified");
+        }
+        if (request.getOrder() != null && !request.getOrder().equals("asc") && !request.getOrder().equals("desc")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order must be asc or desc");
+        }
+    }
+
+    private void validateFilter(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return;
+        }
+        if (filter.length() > Constants.MAX_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Filter must be at most %d characters", Constants.MAX_QUERY_LENGTH));
+        }
+        try {
+            FieldFilter.parse(filter);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private void validateMaxBytes(Long maxBytes) {
+        if (maxBytes != null && maxBytes < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Max bytes must be at least 1");
+        }
+    }
+
+    private void validateTimestampFormat(String timestampFormat) {
+        try {
+            TimestampParser.forFormat(timestampFormat);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Timestamp format must be one of auto, iso, syslog or journald");
+        }
+    }
+
+    private void validateCommon(Integer limit, String query, Integer timeoutMs) {
+        if (limit != null && (limit < 1 || limit > 1000)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and 1000");
         }
+        if (query != null && query.length() > Constants.MAX_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Query must be at most %d characters", Constants.MAX_QUERY_LENGTH));
+        }
+        if (timeoutMs != null && (timeoutMs < 1 || timeoutMs > Constants.MAX_REQUEST_TIMEOUT_IN_SECONDS * 1000)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Timeout must be between 1 and %d ms", Constants.MAX_REQUEST_TIMEOUT_IN_SECONDS * 1000));
+        }
     }
 }
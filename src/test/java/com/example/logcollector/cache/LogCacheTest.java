@@ -47,6 +47,25 @@ public class LogCacheTest {
         assertEquals("||900|100", key);
     }
 
+    @Test
+    public void buildCacheKey_withMaxBytes_keysByBudget() {
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName("syslog")
+                .maxBytes(4096L)
+                .build();
+
+        assertEquals("syslog||0|100|b=4096", cache.buildCacheKey(request));
+    }
+
+    @Test
+    public void buildCacheKey_partialWithDifferentTimeouts_returnsDifferentKeys() {
+        ListEntriesRequest shortWait = ListEntriesRequest.builder().searchTerm("ERROR").partial(true).timeoutMs(100).build();
+        ListEntriesRequest longWait = ListEntriesRequest.builder().searchTerm("ERROR").partial(true).timeoutMs(60000).build();
+
+        assertEquals("|ERROR|0|100|partial=100", cache.buildCacheKey(shortWait));
+        assertNotEquals(cache.buildCacheKey(shortWait), cache.buildCacheKey(longWait));
+    }
+
     @Test
     public void get_fromKeyHasCacheValue_returnsValue() {
         ListEntriesResponse response = ListEntriesResponse.builder().build();
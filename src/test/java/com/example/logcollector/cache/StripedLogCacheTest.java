@@ -0,0 +1,162 @@
+package com.example.logcollector.cache;
+
+import com.example.logcollector.cache.entry.CacheEntry;
+import com.example.logcollector.cache.impl.StripedLogCache;
+import com.example.logcollector.file.FileSnapshot;
+import com.example.logcollector.model.logs.ListEntriesRequest;
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedLogCacheTest {
+    private static ListEntriesResponse responseOfSize(int lineLength) {
+        return ListEntriesResponse.builder().logs(List.of("x".repeat(lineLength))).build();
+    }
+
+    @Test
+    public void get_fromKeyHasCacheValue_returnsValue() {
+        StripedLogCache cache = new StripedLogCache(1024 * 1024, 4);
+        ListEntriesResponse response = responseOfSize(10);
+        cache.put("some-key", response);
+        assertEquals(response, cache.get("some-key"));
+        assertNull(cache.get("other-key"));
+    }
+
+    @Test
+    public void put_overByteBudget_evictsLeastRecentlyUsed() {
+        StripedLogCache cache = new StripedLogCache(2500, 1);
+        cache.put("a", responseOfSize(700));
+        cache.put("b", responseOfSize(700));
+        // touching a makes b the least recently used entry
+        assertNotNull(cache.get("a"));
+        cache.put("c", responseOfSize(700));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertTrue(cache.retainedBytes() <= 2500);
+    }
+
+    @Test
+    public void get_countsHitsMissesAndEvictions() {
+        StripedLogCache cache = new StripedLogCache(2500, 1);
+        cache.put("a", responseOfSize(700));
+        cache.put("b", responseOfSize(700));
+        cache.put("c", responseOfSize(700));
+        assertNotNull(cache.get("c"));
+        assertNull(cache.get("a"));
+
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void put_entryLargerThanStripe_isNotCached() {
+        StripedLogCache cache = new StripedLogCache(4000, 4);
+        cache.put("big", responseOfSize(2000));
+        assertNull(cache.get("big"));
+        assertEquals(0, cache.retainedBytes());
+    }
+
+    @Test
+    public void put_replaceKey_keepsRetainedBytesAccurate() {
+        StripedLogCache cache = new StripedLogCache(1024 * 1024, 1);
+        cache.put("a", responseOfSize(500));
+        long retained = cache.retainedBytes();
+        cache.put("a", responseOfSize(500));
+        assertEquals(retained, cache.retainedBytes());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictExpired_hasEntriesToRemove_succeeded() {
+        StripedLogCache cache = new StripedLogCache(1024 * 1024, 4, -1);
+        cache.put("a", responseOfSize(10));
+        cache.put("b", responseOfSize(10));
+        cache.evictExpired();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.retainedBytes());
+    }
+
+    @Test
+    public void getAndPut_concurrentAccess_staysWithinBudget() throws Exception {
+        StripedLogCache cache = new StripedLogCache(64 * 1024, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    String key = "key-" + ((i * 31 + thread) % 500);
+                    if (cache.get(key) == null) {
+                        cache.put(key, responseOfSize(100 + i % 400));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(cache.retainedBytes() <= 64 * 1024);
+    }
+
+    @Test
+    public void buildCacheKey_fromRequest_returnsKey() {
+        StripedLogCache cache = new StripedLogCache(1024, 1);
+        assertEquals("||900|100", cache.buildCacheKey(ListEntriesRequest.builder().offset(900L).build()));
+    }
+
+    @Test
+    public void getEntry_putWithSnapshot_neverExpires() {
+        StripedLogCache cache = new StripedLogCache(1024 * 1024, 4, -1);
+        FileSnapshot snapshot = new FileSnapshot("inode", 10, 20);
+        cache.put("a", responseOfSize(10), snapshot);
+        cache.evictExpired();
+
+        CacheEntry<ListEntriesResponse> entry = cache.getEntry("a");
+        assertNotNull(entry);
+        assertEquals(snapshot, entry.getSnapshot());
+    }
+
+    @Test
+    public void getEntry_snapshotChanged_returnsEntryButCountsMiss() {
+        StripedLogCache cache = new StripedLogCache(1024 * 1024, 4);
+        FileSnapshot cached = new FileSnapshot("inode", 10, 20);
+        cache.put("a", responseOfSize(10), cached);
+
+        assertNotNull(cache.getEntry("a", cached));
+        // the file grew, the entry is only good for merging with the appended lines
+        assertNotNull(cache.getEntry("a", new FileSnapshot("inode", 15, 30)));
+        assertNull(cache.getEntry("b", cached));
+
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    public void put_responseWithFields_countsFieldsInRetainedBytes() {
+        StripedLogCache cache = new StripedLogCache(1024 * 1024, 1);
+        List<String> logs = List.of("May  1 10:00:00 web01 sshd[42]: Accepted key");
+        cache.put("a", ListEntriesResponse.builder().logs(logs).build());
+        long withoutFields = cache.retainedBytes();
+        cache.put("a", ListEntriesResponse.builder().logs(logs)
+                .fields(List.of(Map.of("host", "web01", "program", "sshd", "pid", "42"))).build());
+
+        // at least the characters of every key and value
+        assertTrue(cache.retainedBytes() >= withoutFields + "hostweb01programsshdpid42".length());
+    }
+}
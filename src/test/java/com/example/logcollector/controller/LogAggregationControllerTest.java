@@ -0,0 +1,66 @@
+package com.example.logcollector.controller;
+
+import com.example.logcollector.model.logs.AggregateLogsRequest;
+import com.example.logcollector.model.logs.AggregateLogsResponse;
+import com.example.logcollector.service.LogService;
+import com.example.logcollector.util.Deadline;
+import com.example.logcollector.util.RequestIdGenerator;
+import com.example.logcollector.util.TimeoutExecutor;
+import com.example.logcollector.validation.ListLogsRequestValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+public class LogAggregationControllerTest {
+    private LogAggregationController controller;
+    @Mock
+    private LogService mockLogService;
+    @Mock
+    private ListLogsRequestValidator mockListLogsRequestValidator;
+    @Mock
+    private TimeoutExecutor mockTimeoutExecutor;
+    @Mock
+    private RequestIdGenerator mockRequestIdGenerator;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    public void init() {
+        mocks = openMocks(this);
+        when(mockRequestIdGenerator.generateRequestId()).thenReturn("test-request-id");
+        controller = new LogAggregationController(mockLogService, mockListLogsRequestValidator, mockTimeoutExecutor, mockRequestIdGenerator);
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    public void aggregateLogs_goesThroughPipeline_returnsResponse() {
+        when(mockTimeoutExecutor.runWithDeadline(any(Callable.class), any(Deadline.class)))
+                .thenReturn(AggregateLogsResponse.builder().matches(3L).build());
+        ResponseEntity<AggregateLogsResponse> response = controller.aggregateLogs(AggregateLogsRequest.builder().build());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3L, response.getBody().getMatches());
+    }
+
+    @Test
+    public void aggregateLogs_invalidRequest_throwsError() {
+        doThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST)).when(mockListLogsRequestValidator).validate(any(AggregateLogsRequest.class));
+        assertThrows(ResponseStatusException.class, () -> controller.aggregateLogs(AggregateLogsRequest.builder().build()));
+    }
+}
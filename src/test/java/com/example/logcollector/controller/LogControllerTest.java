@@ -2,8 +2,12 @@ package com.example.logcollector.controller;
 
 import com.example.logcollector.model.logs.ListEntriesRequest;
 import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.example.logcollector.model.logs.ListFilesRequest;
 import com.example.logcollector.model.logs.ListFilesResponse;
+import com.example.logcollector.model.logs.SearchLogsRequest;
+import com.example.logcollector.model.logs.SearchLogsResponse;
 import com.example.logcollector.service.LogService;
+import com.example.logcollector.util.Deadline;
 import com.example.logcollector.util.RequestIdGenerator;
 import com.example.logcollector.util.TimeoutExecutor;
 import com.example.logcollector.validation.ListLogsRequestValidator;
@@ -13,10 +17,16 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -53,18 +63,108 @@ public class LogControllerTest {
     @Test
     public void listLogEntries_goesThroughPipeline_returnsResponse() {
         doNothing().when(mockListLogsRequestValidator).validate(any(ListEntriesRequest.class));
-        when(mockTimeoutExecutor.runWithTimeout(any(Callable.class), anyLong(), any(TimeUnit.class)))
+        when(mockTimeoutExecutor.runWithDeadline(any(Callable.class), any(Deadline.class)))
                 .thenReturn(ListEntriesResponse.builder().logs(List.of("sample")).build());
         ResponseEntity<ListEntriesResponse> response = logController.listLogEntries(ListEntriesRequest.builder().build());
         assertNotNull(response.getBody());
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
+    @Test
+    public void streamLogEntries_goesThroughPipeline_returnsNdjsonBody() throws IOException {
+        StreamingResponseBody body = out -> out.write("{}\n".getBytes());
+        doNothing().when(mockListLogsRequestValidator).validate(any(ListEntriesRequest.class));
+        when(mockTimeoutExecutor.runWithDeadline(any(Callable.class), any(Deadline.class))).thenReturn(body);
+        when(mockTimeoutExecutor.admit()).thenReturn(new TimeoutExecutor().admit());
+        ResponseEntity<StreamingResponseBody> response = logController.streamLogEntries(ListEntriesRequest.builder().build());
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        response.getBody().writeTo(written);
+        assertEquals("{}\n", written.toString());
+        assertEquals("application/x-ndjson", String.valueOf(response.getHeaders().getContentType()));
+    }
+
+    @Test
+    public void streamCompactLogEntries_goesThroughPipeline_returnsLinesBody() throws IOException {
+        StreamingResponseBody body = out -> out.write(new byte[]{'T', 0});
+        doNothing().when(mockListLogsRequestValidator).validate(any(ListEntriesRequest.class));
+        when(mockTimeoutExecutor.runWithDeadline(any(Callable.class), any(Deadline.class))).thenReturn(body);
+        when(mockTimeoutExecutor.admit()).thenReturn(new TimeoutExecutor().admit());
+        ResponseEntity<StreamingResponseBody> response = logController.streamCompactLogEntries(ListEntriesRequest.builder().build());
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        response.getBody().writeTo(written);
+        assertArrayEquals(new byte[]{'T', 0}, written.toByteArray());
+        assertEquals("application/vnd.logcollector.lines", String.valueOf(response.getHeaders().getContentType()));
+    }
+
+    @Test
+    public void streamLogEntries_bodyNeverWritten_holdsNoPermit() throws Exception {
+        TimeoutExecutor boundedExecutor = new TimeoutExecutor(false, 1, 0);
+        LogController boundedController = new LogController(mockLogService, mockListLogsRequestValidator, boundedExecutor, mockRequestIdGenerator);
+        doNothing().when(mockListLogsRequestValidator).validate(any(ListEntriesRequest.class));
+        when(mockLogService.streamLogEntries(any(ListEntriesRequest.class), any(), any(Deadline.class), any()))
+                .thenReturn(out -> out.write("{}\n".getBytes()));
+
+        // e.g. the client disconnected or the async request timed out before the body was written
+        assertNotNull(boundedController.streamLogEntries(ListEntriesRequest.builder().build()).getBody());
+        assertEquals(1, boundedExecutor.availablePermits());
+        boundedExecutor.shutdown();
+    }
+
+    @Test
+    public void streamLogEntries_executorFull_rejectsUntilEarlierStreamIsWritten() throws Exception {
+        TimeoutExecutor boundedExecutor = new TimeoutExecutor(false, 1, 0);
+        LogController boundedController = new LogController(mockLogService, mockListLogsRequestValidator, boundedExecutor, mockRequestIdGenerator);
+        doNothing().when(mockListLogsRequestValidator).validate(any(ListEntriesRequest.class));
+        AtomicReference<ResponseEntity<StreamingResponseBody>> second = new AtomicReference<>();
+        AtomicInteger rejectedStatus = new AtomicInteger();
+        StreamingResponseBody firstBody = out -> {
+            // the first scan holds the only permit while it writes
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> second.get().getBody().writeTo(new ByteArrayOutputStream()));
+            rejectedStatus.set(exception.getStatusCode().value());
+            out.write("{}\n".getBytes());
+        };
+        StreamingResponseBody secondBody = out -> out.write("{}\n".getBytes());
+        when(mockLogService.streamLogEntries(any(ListEntriesRequest.class), any(), any(Deadline.class), any()))
+                .thenReturn(firstBody, secondBody);
+
+        ResponseEntity<StreamingResponseBody> first = boundedController.streamLogEntries(ListEntriesRequest.builder().build());
+        second.set(boundedController.streamLogEntries(ListEntriesRequest.builder().build()));
+        first.getBody().writeTo(new ByteArrayOutputStream());
+        assertEquals(429, rejectedStatus.get());
+
+        assertEquals(1, boundedExecutor.availablePermits());
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        second.get().getBody().writeTo(written);
+        assertEquals("{}\n", written.toString());
+        assertEquals(1, boundedExecutor.availablePermits());
+        boundedExecutor.shutdown();
+    }
+
+    @Test
+    public void searchLogs_goesThroughPipeline_returnsResponse() {
+        doNothing().when(mockListLogsRequestValidator).validate(any(SearchLogsRequest.class));
+        when(mockTimeoutExecutor.runWithDeadline(any(Callable.class), any(Deadline.class)))
+                .thenReturn(SearchLogsResponse.builder().entries(List.of()).build());
+        ResponseEntity<SearchLogsResponse> response = logController.searchLogs(SearchLogsRequest.builder().fileNames(List.of("syslog")).build());
+        assertNotNull(response.getBody());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    public void followLogEntries_goesThroughPipeline_returnsEmitter() {
+        SseEmitter emitter = new SseEmitter();
+        doNothing().when(mockListLogsRequestValidator).validate(any(ListEntriesRequest.class));
+        when(mockTimeoutExecutor.runWithDeadline(any(Callable.class), any(Deadline.class)))
+                .thenReturn(emitter);
+        assertSame(emitter, logController.followLogEntries(ListEntriesRequest.builder().build()));
+    }
+
     @Test
     public void listLogFiles_listFiles_returnsResponse() {
         when(mockTimeoutExecutor.runWithTimeout(any(Callable.class), anyLong(), any(TimeUnit.class)))
                 .thenReturn(ListFilesResponse.builder().files(List.of("sample")).build());
-        ResponseEntity<ListFilesResponse> response = logController.listLogFiles();
+        ResponseEntity<ListFilesResponse> response = logController.listLogFiles(ListFilesRequest.builder().build());
         assertNotNull(response.getBody());
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
@@ -0,0 +1,59 @@
+package com.example.logcollector.file;
+
+import com.example.logcollector.util.Deadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class DecompressedFileCacheTest {
+    @TempDir
+    private Path tempDir;
+
+    private DecompressedFileCache cache;
+
+    @AfterEach
+    public void afterEach() {
+        cache.shutdown();
+    }
+
+    private File gzip(String name, String content) throws IOException {
+        File file = tempDir.resolve(name).toFile();
+        try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    @Test
+    public void decompress_sameFileTwice_reusesCopy() throws Exception {
+        cache = new DecompressedFileCache(1024 * 1024);
+        File compressed = gzip("syslog.2.gz", "first line\nsecond line\n");
+
+        File decompressed = cache.decompress(compressed, Deadline.none());
+
+        assertEquals("first line\nsecond line\n", Files.readString(decompressed.toPath()));
+        assertSame(decompressed, cache.decompress(compressed, Deadline.none()));
+    }
+
+    @Test
+    public void decompress_overBudget_evictsLeastRecentlyUsed() throws Exception {
+        cache = new DecompressedFileCache(150);
+        File older = cache.decompress(gzip("syslog.2.gz", "a".repeat(100) + "\n"), Deadline.none());
+        cache.decompress(gzip("syslog.3.gz", "b".repeat(100) + "\n"), Deadline.none());
+
+        assertEquals(1, cache.size());
+        assertFalse(older.exists());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.logcollector.file;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogFileCatalogTest {
+    @TempDir
+    private Path tempDir;
+
+    private LogFileCatalog catalog;
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        if (catalog != null) {
+            catalog.close();
+        }
+    }
+
+    private Path write(String path, String content) throws IOException {
+        Path file = tempDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    private static void await(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.get());
+    }
+
+    @Test
+    public void files_walksSubdirectoriesAndSkipsHiddenFiles() throws IOException {
+        write("syslog", "a\nb\nc\n");
+        write("syslog.1", "old\n");
+        write("nginx/access.log.2.gz", "compressed");
+        write(".hidden", "x\n");
+        write(".cache/app.log", "x\n");
+        catalog = new LogFileCatalog(tempDir.toString());
+
+        List<String> paths = catalog.files().stream().map(LogFileInfo::path).sorted().toList();
+        assertEquals(List.of("nginx/access.log.2.gz", "syslog", "syslog.1"), paths);
+
+        LogFileInfo syslog = catalog.find("syslog").orElseThrow();
+        assertEquals(6, syslog.size());
+        assertEquals(3, syslog.estimatedLines());
+        assertEquals("syslog", catalog.find("syslog.1").orElseThrow().rotationGroup());
+        LogFileInfo access = catalog.find("nginx/access.log.2.gz").orElseThrow();
+        assertEquals("nginx/access.log", access.rotationGroup());
+        assertEquals(2, access.generation());
+        assertNull(access.estimatedLines());
+    }
+
+    @Test
+    public void estimatedLines_largeFile_extrapolatesFromSample() throws IOException {
+        write("big.log", "0123456789abcdef\n".repeat(10_000));
+        catalog = new LogFileCatalog(tempDir.toString());
+
+        long estimate = catalog.find("big.log").orElseThrow().estimatedLines();
+        assertTrue(Math.abs(estimate - 10_000) < 10, "estimate was " + estimate);
+    }
+
+    @Test
+    public void generations_usesCatalogedRotationGroup() throws IOException {
+        write("syslog", "new\n");
+        write("syslog.2.gz", "older");
+        write("syslog.1", "old\n");
+        write("syslogger", "other\n");
+        catalog = new LogFileCatalog(tempDir.toString());
+
+        List<String> names = catalog.generations(tempDir.resolve("syslog").toFile()).stream().map(File::getName).toList();
+        assertEquals(List.of("syslog", "syslog.1", "syslog.2.gz"), names);
+    }
+
+    @Test
+    public void start_watchesForCreatedModifiedAndDeletedFiles() throws IOException, InterruptedException {
+        write("syslog", "a\n");
+        catalog = new LogFileCatalog(tempDir.toString());
+        catalog.start();
+
+        write("auth.log", "b\n");
+        write("apps/new/app.log", "c\n");
+        Files.writeString(tempDir.resolve("syslog"), "a\nmore\n");
+        await(() -> catalog.find("auth.log").isPresent() && catalog.find("apps/new/app.log").isPresent());
+        await(() -> catalog.find("syslog").map(LogFileInfo::size).orElse(0L) == 7);
+
+        Files.delete(tempDir.resolve("auth.log"));
+        await(() -> catalog.find("auth.log").isEmpty());
+    }
+
+    @Test
+    public void rescan_dropsDeletedFiles() throws IOException {
+        write("syslog", "a\n");
+        write("kern.log", "b\n");
+        catalog = new LogFileCatalog(tempDir.toString());
+        assertEquals(2, catalog.files().size());
+
+        Files.delete(tempDir.resolve("kern.log"));
+        catalog.rescan();
+
+        Optional<LogFileInfo> kern = catalog.find("kern.log");
+        assertFalse(kern.isPresent());
+        assertEquals(1, catalog.size());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.logcollector.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LogGenerationsTest {
+    @TempDir
+    private Path tempDir;
+
+    private File touch(String name) throws IOException {
+        File file = tempDir.resolve(name).toFile();
+        file.createNewFile();
+        return file;
+    }
+
+    private List<String> names(List<File> files) {
+        return files.stream().map(File::getName).toList();
+    }
+
+    @Test
+    public void of_currentFile_returnsAllGenerationsNewestFirst() throws IOException {
+        File syslog = touch("syslog");
+        touch("syslog.10.gz");
+        touch("syslog.2.gz");
+        touch("syslog.1");
+        touch("syslogger");
+        touch("messages.1");
+
+        assertEquals(List.of("syslog", "syslog.1", "syslog.2.gz", "syslog.10.gz"), names(LogGenerations.of(syslog)));
+    }
+
+    @Test
+    public void of_olderGeneration_startsAtThatGeneration() throws IOException {
+        touch("kern.log");
+        touch("kern.log.1");
+        File second = touch("kern.log.2.gz");
+        touch("kern.log.3.gz");
+
+        assertEquals(List.of("kern.log.2.gz", "kern.log.3.gz"), names(LogGenerations.of(second)));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.logcollector.index;
+
+import com.example.logcollector.constants.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LineIndexManagerTest {
+    private static final long OFFSET = Constants.LINE_INDEX_INTERVAL + 50;
+
+    @TempDir
+    private Path tempDir;
+
+    private final LineIndexManager manager = new LineIndexManager();
+
+    @AfterEach
+    public void afterEach() {
+        manager.shutdown();
+    }
+
+    private File writeLines(String name, int count) throws IOException {
+        File file = tempDir.resolve(name).toFile();
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(String.format("line-%04d\n", i));
+            }
+        }
+        return file;
+    }
+
+    private Optional<SeekPoint> awaitSeekPoint(File file) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Optional<SeekPoint> seekPoint = manager.seekPoint(file, OFFSET);
+            if (seekPoint.isPresent()) {
+                return seekPoint;
+            }
+            Thread.sleep(20);
+        }
+        return Optional.empty();
+    }
+
+    @Test
+    public void seekPoint_moreFilesThanIndexes_evictsLeastRecentlyPaged() throws Exception {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i <= Constants.MAX_LINE_INDEXES; i++) {
+            files.add(writeLines("test-" + i + ".log", 2 * Constants.LINE_INDEX_INTERVAL));
+        }
+        for (File file : files.subList(0, Constants.MAX_LINE_INDEXES)) {
+            assertTrue(awaitSeekPoint(file).isPresent());
+        }
+        // paged again, so the second file is now the least recently paged one
+        assertTrue(manager.seekPoint(files.getFirst(), OFFSET).isPresent());
+
+        assertTrue(awaitSeekPoint(files.getLast()).isPresent());
+
+        assertTrue(manager.seekPoint(files.getFirst(), OFFSET).isPresent());
+        assertTrue(manager.seekPoint(files.get(1), OFFSET).isEmpty());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.logcollector.index;
+
+import com.example.logcollector.file.FileSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LineIndexTest {
+    private static final int INTERVAL = 10;
+
+    @TempDir
+    private Path tempDir;
+
+    private File writeLines(int count, boolean append) throws IOException {
+        File file = tempDir.resolve("test.log").toFile();
+        try (FileWriter writer = new FileWriter(file, append)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(String.format("line-%04d\n", i));
+            }
+        }
+        return file;
+    }
+
+    private LineIndex buildIndex(File file) throws IOException {
+        FileSnapshot snapshot = FileSnapshot.of(file);
+        LineIndex index = new LineIndex(snapshot.fileKey(), INTERVAL);
+        index.extend(file, snapshot.size());
+        return index;
+    }
+
+    @Test
+    public void extend_countsLines_returnsLineCount() throws IOException {
+        File file = writeLines(25, false);
+        LineIndex index = buildIndex(file);
+
+        assertEquals(25, index.getLineCount());
+        assertEquals(3, index.getCheckpointCount());
+        assertEquals(file.length(), index.getIndexedLength());
+    }
+
+    @Test
+    public void extend_skipsEmptyLines_returnsLineCount() throws IOException {
+        File file = tempDir.resolve("test.log").toFile();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("a\n\n\nb\n\nc");
+        }
+        assertEquals(3, buildIndex(file).getLineCount());
+    }
+
+    @Test
+    public void seek_deepOffset_returnsNearestCheckpoint() throws IOException {
+        File file = writeLines(25, false);
+        LineIndex index = buildIndex(file);
+
+        // 17 lines from the end is line 8, the next checkpoint is line 10 which starts at byte 100
+        SeekPoint seekPoint = index.seek(17);
+        assertEquals(100, seekPoint.position());
+        assertEquals(2, seekPoint.linesToSkip());
+    }
+
+    @Test
+    public void seek_offsetAfterLastCheckpoint_returnsEndOfFile() throws IOException {
+        File file = writeLines(25, false);
+        LineIndex index = buildIndex(file);
+
+        SeekPoint seekPoint = index.seek(3);
+        assertEquals(file.length(), seekPoint.position());
+        assertEquals(3, seekPoint.linesToSkip());
+    }
+
+    @Test
+    public void seek_offsetPastStartOfFile_returnsStartOfFile() throws IOException {
+        LineIndex index = buildIndex(writeLines(25, false));
+
+        SeekPoint seekPoint = index.seek(25);
+        assertEquals(0, seekPoint.position());
+        assertEquals(0, seekPoint.linesToSkip());
+    }
+
+    @Test
+    public void extend_fileGrows_indexesAppendedLines() throws IOException {
+        File file = writeLines(25, false);
+        LineIndex index = buildIndex(file);
+        writeLines(10, true);
+        FileSnapshot snapshot = FileSnapshot.of(file);
+
+        assertTrue(index.isValidFor(snapshot));
+        index.extend(file, snapshot.size());
+        assertEquals(35, index.getLineCount());
+        assertEquals(4, index.getCheckpointCount());
+    }
+
+    @Test
+    public void isValidFor_fileTruncated_returnsFalse() throws IOException {
+        File file = writeLines(25, false);
+        LineIndex index = buildIndex(file);
+        writeLines(5, false);
+
+        assertFalse(index.isValidFor(FileSnapshot.of(file)));
+    }
+}
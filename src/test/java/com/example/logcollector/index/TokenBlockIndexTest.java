@@ -0,0 +1,114 @@
+package com.example.logcollector.index;
+
+import com.example.logcollector.file.FileSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBlockIndexTest {
+    private static final int BLOCK_SIZE = 200;
+    private static final int BLOOM_BITS = 4096;
+
+    @TempDir
+    private Path tempDir;
+
+    private File writeLines(int count, int errorLine) throws IOException {
+        File file = tempDir.resolve("test.log").toFile();
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(i == errorLine ? String.format("line-%04d ERROR disk full\n", i) : String.format("line-%04d info ok\n", i));
+            }
+        }
+        return file;
+    }
+
+    private TokenBlockIndex buildIndex(File file) throws IOException {
+        FileSnapshot snapshot = FileSnapshot.of(file);
+        TokenBlockIndex index = new TokenBlockIndex(snapshot.fileKey(), BLOCK_SIZE, BLOOM_BITS);
+        index.extend(file, snapshot.size());
+        return index;
+    }
+
+    @Test
+    public void extend_splitsFileIntoLineAlignedBlocks() throws IOException {
+        File file = writeLines(100, -1);
+        TokenBlockIndex index = buildIndex(file);
+
+        // 18 byte lines, a block closes at the first newline after 200 bytes
+        assertEquals(8, index.getBlockCount());
+        assertEquals(8 * 216, index.getIndexedLength());
+    }
+
+    @Test
+    public void candidateRanges_termInOneBlock_returnsTailAndThatBlock() throws IOException {
+        File file = writeLines(100, 30);
+        TokenBlockIndex index = buildIndex(file);
+
+        List<ScanRange> ranges = index.candidateRanges("Disk FULL", file.length());
+
+        assertEquals(2, ranges.size());
+        assertEquals(new ScanRange(index.getIndexedLength(), file.length()), ranges.get(0));
+        ScanRange block = ranges.get(1);
+        long errorLineStart = 30 * 18;
+        assertTrue(block.start() <= errorLineStart && errorLineStart < block.end());
+    }
+
+    @Test
+    public void candidateRanges_commonTerm_joinsNeighbouringBlocks() throws IOException {
+        File file = writeLines(100, -1);
+        TokenBlockIndex index = buildIndex(file);
+
+        assertEquals(List.of(new ScanRange(0, file.length())), index.candidateRanges("info", file.length()));
+    }
+
+    @Test
+    public void candidateRanges_endPositionInsideIndex_skipsNewerBlocks() throws IOException {
+        File file = writeLines(100, 30);
+        TokenBlockIndex index = buildIndex(file);
+
+        long thirdBlockEnd = index.getBlockEnds()[2];
+
+        List<ScanRange> ranges = index.candidateRanges("disk full", thirdBlockEnd);
+
+        assertEquals(List.of(new ScanRange(2 * 216, thirdBlockEnd)), ranges);
+    }
+
+    @Test
+    public void writeTo_readFrom_roundTrips() throws IOException {
+        File file = writeLines(100, 30);
+        TokenBlockIndex index = buildIndex(file);
+        Path saved = tempDir.resolve("test.tbi");
+
+        index.writeTo(saved);
+        TokenBlockIndex loaded = TokenBlockIndex.readFrom(saved, BLOCK_SIZE, BLOOM_BITS);
+
+        assertNotNull(loaded);
+        assertTrue(loaded.isValidFor(file, FileSnapshot.of(file)));
+        assertEquals(index.getIndexedLength(), loaded.getIndexedLength());
+        assertEquals(index.candidateRanges("disk full", file.length()), loaded.candidateRanges("disk full", file.length()));
+        assertNull(TokenBlockIndex.readFrom(saved, BLOCK_SIZE * 2, BLOOM_BITS));
+    }
+
+    @Test
+    public void isValidFor_rewrittenStart_returnsFalse() throws IOException {
+        File file = writeLines(100, 30);
+        TokenBlockIndex index = buildIndex(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write("LINE".getBytes());
+        }
+
+        assertFalse(index.isValidFor(file, FileSnapshot.of(file)));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.logcollector.index;
+
+import com.example.logcollector.constants.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenIndexManagerTest {
+    @TempDir
+    private Path tempDir;
+
+    private TokenIndexManager manager;
+
+    @AfterEach
+    public void afterEach() {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    private File writeLines(int count) throws IOException {
+        File file = tempDir.resolve("test.log").toFile();
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(i == 30 ? String.format("line-%04d ERROR disk full\n", i) : String.format("line-%04d info ok\n", i));
+            }
+        }
+        return file;
+    }
+
+    private Optional<List<ScanRange>> awaitRanges(File file, String term) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Optional<List<ScanRange>> ranges = manager.scanRanges(file, term, file.length());
+            if (ranges.isPresent()) {
+                return ranges;
+            }
+            Thread.sleep(20);
+        }
+        return Optional.empty();
+    }
+
+    @Test
+    public void scanRanges_firstSearch_buildsIndexInBackground() throws Exception {
+        manager = new TokenIndexManager(true, tempDir.resolve("index"), 200, 4096, 0);
+        File file = writeLines(100);
+
+        assertTrue(manager.scanRanges(file, "disk full", file.length()).isEmpty());
+        Optional<List<ScanRange>> ranges = awaitRanges(file, "disk full");
+
+        assertTrue(ranges.isPresent());
+        assertEquals(2, ranges.get().size());
+        try (var saved = Files.list(tempDir.resolve("index"))) {
+            assertEquals(1, saved.count());
+        }
+    }
+
+    @Test
+    public void scanRanges_moreFilesThanIndexes_evictsLeastRecentlySearched() throws Exception {
+        manager = new TokenIndexManager(true, tempDir.resolve("index"), 200, 4096, 0);
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i <= Constants.MAX_TOKEN_INDEXES; i++) {
+            File file = tempDir.resolve("test-" + i + ".log").toFile();
+            Files.copy(writeLines(100).toPath(), file.toPath());
+            files.add(file);
+        }
+        for (File file : files.subList(0, Constants.MAX_TOKEN_INDEXES)) {
+            manager.scanRanges(file, "disk full", file.length());
+            assertTrue(awaitRanges(file, "disk full").isPresent());
+        }
+        // searched again, so the second file is now the least recently searched one
+        assertTrue(manager.scanRanges(files.getFirst(), "disk full", files.getFirst().length()).isPresent());
+
+        File last = files.getLast();
+        manager.scanRanges(last, "disk full", last.length());
+        assertTrue(awaitRanges(last, "disk full").isPresent());
+
+        try (var saved = Files.list(tempDir.resolve("index"))) {
+            assertEquals(Constants.MAX_TOKEN_INDEXES, saved.count());
+        }
+        assertTrue(manager.scanRanges(files.getFirst(), "disk full", files.getFirst().length()).isPresent());
+        assertTrue(manager.scanRanges(files.get(1), "disk full", files.get(1).length()).isEmpty());
+    }
+
+    @Test
+    public void scanRanges_shortTermOrDisabled_returnsEmpty() throws Exception {
+        File file = writeLines(100);
+        manager = new TokenIndexManager(true, null, 200, 4096, 0);
+        manager.scanRanges(file, "disk", file.length());
+        awaitRanges(file, "disk");
+
+        assertTrue(manager.scanRanges(file, "ok", file.length()).isEmpty());
+
+        TokenIndexManager disabled = new TokenIndexManager(false, null, 200, 4096, 0);
+        assertFalse(disabled.scanRanges(file, "disk full", file.length()).isPresent());
+        disabled.shutdown();
+    }
+
+    @Test
+    public void scanRanges_nonAsciiTerm_returnsEmpty() throws Exception {
+        File file = tempDir.resolve("test.log").toFile();
+        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 100; i++) {
+                writer.write(i == 30 ? String.format("line-%04d une échec grave\n", i) : String.format("line-%04d info ok\n", i));
+            }
+        }
+        manager = new TokenIndexManager(true, null, 200, 4096, 0);
+        manager.scanRanges(file, "info", file.length());
+        assertTrue(awaitRanges(file, "info").isPresent());
+
+        // the matcher folds "É" to "é", the index only folds ASCII, so the index must not rule the block out
+        assertTrue(manager.scanRanges(file, "ÉCHEC", file.length()).isEmpty());
+        assertTrue(manager.scanRanges(file, "échec", file.length()).isEmpty());
+    }
+}
@@ -2,9 +2,33 @@
 package com.example.logcollector.service;
 
 import com.example.logcollector.cache.Cache;
+import com.example.logcollector.cache.entry.CacheEntry;
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.file.DecompressedFileCache;
+import com.example.logcollector.file.FileSnapshot;
+import com.example.logcollector.file.LogFileCatalog;
+import com.example.logcollector.index.LineIndexManager;
+import com.example.logcollector.index.SeekPoint;
+import com.example.logcollector.index.TokenIndexManager;
+import com.example.logcollector.metrics.LogMetrics;
+import com.example.logcollector.service.cursor.ScanCursor;
+import com.example.logcollector.service.matcher.LineMatcher;
+import com.example.logcollector.service.parse.LineParsers;
+import com.example.logcollector.service.query.QueryCompiler;
+import com.example.logcollector.service.tail.TailFollower;
+import com.example.logcollector.model.logs.AggregateLogsRequest;
+import com.example.logcollector.model.logs.AggregateLogsResponse;
 import com.example.logcollector.model.logs.ListEntriesRequest;
 import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.example.logcollector.model.logs.ListFilesRequest;
 import com.example.logcollector.model.logs.ListFilesResponse;
+import com.example.logcollector.model.logs.LogEntry;
+import com.example.logcollector.model.logs.SearchLogsRequest;
+import com.example.logcollector.model.logs.SearchLogsResponse;
+import com.example.logcollector.util.Deadline;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,19 +36,31 @@ import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 
@@ -47,11 +83,14 @@ public class LogServiceTest {
 
     private AutoCloseable mocks;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     public void init() throws IOException {
         mocks = openMocks(this);
         File file = new File(tempDir.toFile(), MAIN_DIR);
-        logService = new LogService(mockCache, file.getCanonicalPath());
+        meterRegistry = new SimpleMeterRegistry();
+        logService = new LogService(mockCache, new LineIndexManager(), new TokenIndexManager(), new ParallelLogSearcher(), new QueryCompiler(), new LineParsers(), new TailFollower(), new DecompressedFileCache(), new MultiFileSearcher(), new LogMetrics(meterRegistry), new LogFileCatalog(file.getCanonicalPath()), Constants.DEFAULT_MAX_SCAN_BYTES);
     }
 
     @AfterEach
@@ -76,6 +115,21 @@ public class LogServiceTest {
         }
     }
 
+    private void createRotatedLogs() throws IOException {
+        createLogFile(List.of("7 ERROR newest", "8 INFO newest"));
+        try (FileWriter writer = new FileWriter(tempDir.resolve(String.format("%s/%s.1", MAIN_DIR, LOG_NAME)).toFile())) {
+            writer.write("4 ERROR rotated\n5 INFO rotated\n6 ERROR rotated\n");
+        }
+        File compressed = tempDir.resolve(String.format("%s/%s.2.gz", MAIN_DIR, LOG_NAME)).toFile();
+        try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(compressed))) {
+            out.write("1 ERROR compressed\n2 INFO compressed\n3 ERROR compressed\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private File logFile() {
+        return tempDir.resolve(String.format("%s/%s", MAIN_DIR, LOG_NAME)).toFile();
+    }
+
     private void createOutsideLogFile(List<String> lines) throws IOException {
         File outsideFile = tempDir.resolve(OUTSIDE_LOG_FILE).toFile();
 
@@ -86,6 +140,29 @@ public class LogServiceTest {
         }
     }
 
+    @Test
+    public void testListLogEntries_deadlineCancelled_stopsWithoutCaching() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            lines.add(i + " INFO line");
+        }
+        createLogFile(lines);
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("missing")
+                .build();
+        when(mockCache.isCacheable(request)).thenReturn(true);
+        when(mockCache.buildCacheKey(request)).thenReturn("key");
+        Deadline deadline = Deadline.none();
+        deadline.cancel();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> logService.listLogEntries(request, REQUEST_ID, deadline));
+        assertEquals(408, exception.getStatusCode().value());
+        verify(mockCache, never()).put(anyString(), any(ListEntriesResponse.class), any(FileSnapshot.class));
+    }
+
     @Test
     public void testListLogEntries_searchTerm_returnsFilteredResults() throws IOException, InterruptedException {
         createLogFile(List.of(
@@ -103,13 +180,162 @@ public class LogServiceTest {
 
         when(mockCache.isCacheable(request)).thenReturn(false);
 
-        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID);
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
 
         assertNotNull(response);
         assertEquals(3, response.getLogs().size());
         assertTrue(response.getLogs().getFirst().contains("5 ERROR"));
     }
 
+    @Test
+    public void testAggregateLogEntries_countsHistogramAndTopValues() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int minute = 0; minute < 60; minute++) {
+            String program = minute % 4 == 0 ? "kernel" : "sshd";
+            lines.add(String.format("2024-05-01T10:%02d:00Z web01 %s: %s minute %d", minute, program, minute % 2 == 0 ? "oom-kill" : "ok", minute));
+        }
+        createLogFile(lines);
+
+        AggregateLogsRequest request = AggregateLogsRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("oom-kill")
+                .from("2024-05-01T10:30:00Z")
+                .interval("10m")
+                .field("program")
+                .top(1)
+                .build();
+        AggregateLogsResponse response = logService.aggregateLogEntries(request, REQUEST_ID, Deadline.none());
+
+        // even minutes 30 to 58
+        assertEquals(15, response.getMatches());
+        assertEquals(3, response.getHistogram().size());
+        assertEquals(5, response.getHistogram().get(0).getCount());
+        assertEquals(600_000, response.getIntervalMs());
+        assertEquals(1, response.getTopValues().size());
+        assertEquals("sshd", response.getTopValues().get(0).getValue());
+        assertEquals(8, response.getTopValues().get(0).getCount());
+        assertFalse(response.getPartial());
+    }
+
+    @Test
+    public void testListLogEntries_recordsRequestAndScanMetrics() throws IOException, InterruptedException {
+        createLogFile(List.of(
+                "1 ERROR Something went wrong",
+                "2 INFO Starting system",
+                "3 ERROR Critical failure",
+                "4 DEBUG Ignored event"));
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .build();
+        logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertEquals(1, meterRegistry.get("logcollector.requests").tag("endpoint", "entries").tag("cache", LogMetrics.CACHE_NONE).timer().count());
+        assertEquals(4, meterRegistry.get("logcollector.scan.lines").tag("endpoint", "entries").summary().totalAmount());
+        assertTrue(meterRegistry.get("logcollector.scan.bytes").tag("endpoint", "entries").summary().totalAmount() > 0);
+        assertEquals(0.5, meterRegistry.get("logcollector.scan.selectivity").tag("endpoint", "entries").summary().mean());
+    }
+
+    @Test
+    public void testListLogEntries_tokenIndex_scansOnlyCandidateBlocks() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            lines.add(i % 500 == 7 ? i + " ERROR disk full" : i + " INFO request served");
+        }
+        createLogFile(lines);
+        TokenIndexManager tokenIndexManager = new TokenIndexManager(true, null, 1024, 8192, 0);
+        LogService indexedService = new LogService(mockCache, new LineIndexManager(), tokenIndexManager, new ParallelLogSearcher(),
+                new QueryCompiler(), new LineParsers(), new TailFollower(), new DecompressedFileCache(), new MultiFileSearcher(),
+                new LogMetrics(meterRegistry), new LogFileCatalog(new File(tempDir.toFile(), MAIN_DIR).getCanonicalPath()), Constants.DEFAULT_MAX_SCAN_BYTES);
+        File file = tempDir.resolve(String.format("%s/%s", MAIN_DIR, LOG_NAME)).toFile();
+        tokenIndexManager.scanRanges(file, "disk full", file.length());
+        for (int attempt = 0; attempt < 100 && tokenIndexManager.scanRanges(file, "disk full", file.length()).isEmpty(); attempt++) {
+            Thread.sleep(20);
+        }
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("Disk Full")
+                .limit(3)
+                .build();
+        ListEntriesResponse first = indexedService.listLogEntries(request, REQUEST_ID, Deadline.none());
+        ListEntriesRequest next = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("Disk Full")
+                .limit(3)
+                .cursor(first.getNextCursor())
+                .build();
+        ListEntriesResponse second = indexedService.listLogEntries(next, REQUEST_ID, Deadline.none());
+        tokenIndexManager.shutdown();
+
+        assertTrue(tokenIndexManager.scanRanges(file, "disk full", file.length()).isPresent());
+        assertEquals(List.of("1507 ERROR disk full", "1007 ERROR disk full", "507 ERROR disk full"), first.getLogs());
+        assertTrue(first.getHasMore());
+        assertEquals(List.of("7 ERROR disk full"), second.getLogs());
+        assertFalse(second.getHasMore());
+    }
+
+    @Test
+    public void testListLogEntries_timeRange_returnsLinesInRange() throws IOException, InterruptedException {
+        List<String> lines = new ArrayList<>();
+        for (int minute = 0; minute < 24 * 60; minute++) {
+            lines.add(String.format("2024-05-01T%02d:%02d:00Z %s minute %d", minute / 60, minute % 60, minute % 3 == 0 ? "ERROR" : "INFO", minute));
+        }
+        createLogFile(lines);
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .from("2024-05-01T02:10:00Z")
+                .to("2024-05-01T02:25:00Z")
+                .build();
+        when(mockCache.isCacheable(request)).thenReturn(false);
+
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertEquals(5, response.getLogs().size());
+        assertEquals("2024-05-01T02:24:00Z ERROR minute 144", response.getLogs().getFirst());
+        assertEquals("2024-05-01T02:12:00Z ERROR minute 132", response.getLogs().getLast());
+        assertFalse(response.getHasMore());
+    }
+
+    @Test
+    public void testStreamLogEntries_writesLinesThenTrailer() throws Exception {
+        createLogFile(List.of(
+                "1 ERROR Something went wrong",
+                "2 INFO Starting system",
+                "3 ERROR Critical \"failure\"",
+                "4 DEBUG Ignored event",
+                "5 ERROR Critical failure"));
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .limit(2)
+                .build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        logService.streamLogEntries(request, REQUEST_ID, Deadline.after(10, TimeUnit.SECONDS), Constants.NDJSON_MEDIA_TYPE).writeTo(out);
+
+        ObjectMapper mapper = new ObjectMapper();
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("5 ERROR Critical failure", mapper.readTree(lines[0]).get("line").asText());
+        assertEquals("3 ERROR Critical \"failure\"", mapper.readTree(lines[1]).get("line").asText());
+        JsonNode trailer = mapper.readTree(lines[2]);
+        assertTrue(trailer.get("hasMore").asBoolean());
+        assertEquals(2, trailer.get("nextOffset").asLong());
+
+        ListEntriesRequest next = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .limit(2)
+                .cursor(trailer.get("nextCursor").asText())
+                .build();
+        ListEntriesResponse response = logService.listLogEntries(next, REQUEST_ID, Deadline.none());
+        assertEquals(List.of("1 ERROR Something went wrong"), response.getLogs());
+    }
+
     @Test
     public void testListLogEntries_listWithLimit_returnsPaginatedResults() throws IOException, InterruptedException {
         createLogFile(List.of(
@@ -128,7 +354,7 @@ public class LogServiceTest {
 
         when(mockCache.isCacheable(request)).thenReturn(false);
 
-        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID);
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
 
         assertNotNull(response);
         assertEquals(1, response.getLogs().size());
@@ -142,7 +368,7 @@ public class LogServiceTest {
                 .limit(1)
                 .offset(response.getNextOffset())
                 .build();
-        response = logService.listLogEntries(request, REQUEST_ID);
+        response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
         assertNotNull(response);
         assertEquals(1, response.getLogs().size());
         assertTrue(response.getLogs().getFirst().contains("3 ERROR"));
@@ -156,7 +382,7 @@ public class LogServiceTest {
                 .limit(1)
                 .offset(response.getNextOffset())
                 .build();
-        response = logService.listLogEntries(request, REQUEST_ID);
+        response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
         assertNotNull(response);
         assertEquals(1, response.getLogs().size());
         assertTrue(response.getLogs().getFirst().contains("1 ERROR"));
@@ -180,11 +406,12 @@ public class LogServiceTest {
 
         when(mockCache.isCacheable(request)).thenReturn(true);
         when(mockCache.buildCacheKey(request)).thenReturn("some-key");
-        when(mockCache.get(anyString())).thenReturn(
+        when(mockCache.getEntry(anyString(), any(FileSnapshot.class))).thenReturn(new CacheEntry<>(
                 ListEntriesResponse.builder().logs(List.of("sample-log-line"))
-                        .build());
+                        .build(),
+                FileSnapshot.of(logFile())));
 
-        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID);
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
 
         assertNotNull(response);
         assertEquals(1, response.getLogs().size());
@@ -202,7 +429,7 @@ public class LogServiceTest {
         when(mockCache.isCacheable(request)).thenReturn(false);
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> logService.listLogEntries(request, REQUEST_ID));
+                () -> logService.listLogEntries(request, REQUEST_ID, Deadline.none()));
         assertEquals(404, exception.getStatusCode().value());
         assertTrue(Objects.requireNonNull(exception.getReason()).contains("not found"));
     }
@@ -216,7 +443,7 @@ public class LogServiceTest {
         when(mockCache.isCacheable(request)).thenReturn(false);
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> logService.listLogEntries(request, REQUEST_ID));
+                () -> logService.listLogEntries(request, REQUEST_ID, Deadline.none()));
         assertEquals(404, exception.getStatusCode().value());
         assertTrue(Objects.requireNonNull(exception.getReason()).contains("does not exist"));
     }
@@ -230,11 +457,39 @@ public class LogServiceTest {
                 "4 DEBUG Ignored event",
                 "5 ERROR Critical failure"));
 
-        ListFilesResponse response = logService.listLogFiles(REQUEST_ID);
+        ListFilesResponse response = logService.listLogFiles(ListFilesRequest.builder().build(), REQUEST_ID);
         assertNotNull(response.getFiles());
         List<String> files = response.getFiles();
         assertEquals(1, files.size());
         assertEquals(LOG_NAME, files.getFirst());
+        assertEquals(5, response.getDetails().getFirst().getEstimatedLines());
+        assertFalse(response.getHasMore());
+    }
+
+    @Test
+    public void testListLogFiles_recursiveSortedBySize_returnsPages() throws IOException {
+        createRotatedLogs();
+        try (FileWriter writer = new FileWriter(tempDir.resolve(String.format("%s/%s/app.log", MAIN_DIR, SUB_DIR)).toFile())) {
+            writer.write("a much longer line than any of the other files have\n".repeat(4));
+        }
+
+        ListFilesResponse topLevel = logService.listLogFiles(ListFilesRequest.builder().build(), REQUEST_ID);
+        assertEquals(List.of(LOG_NAME, LOG_NAME + ".1", LOG_NAME + ".2.gz"), topLevel.getFiles());
+        assertEquals(LOG_NAME, topLevel.getDetails().get(2).getRotationGroup());
+        assertEquals(2, topLevel.getDetails().get(2).getGeneration());
+
+        ListFilesRequest request = ListFilesRequest.builder().recursive(true).sort("size").limit(2).build();
+        ListFilesResponse first = logService.listLogFiles(request, REQUEST_ID);
+        assertEquals(SUB_DIR + "/app.log", first.getFiles().getFirst());
+        assertEquals(4, first.getTotal());
+        assertTrue(first.getHasMore());
+
+        request.setOffset(first.getNextOffset());
+        ListFilesResponse second = logService.listLogFiles(request, REQUEST_ID);
+        assertEquals(2, second.getFiles().size());
+        assertEquals(LOG_NAME, second.getFiles().getLast());
+        assertTrue(first.getDetails().getLast().getSize() >= second.getDetails().getFirst().getSize());
+        assertFalse(second.getHasMore());
     }
 
     @Test
@@ -260,7 +515,7 @@ public class LogServiceTest {
                 .build();
 
         when(mockCache.isCacheable(request)).thenReturn(false);
-        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID);
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
 
         assertNotNull(response);
         assertEquals(1, response.getLogs().size());
@@ -291,7 +546,7 @@ public class LogServiceTest {
                 .build();
 
         when(mockCache.isCacheable(request)).thenReturn(false);
-        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID);
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
 
         assertNotNull(response);
         assertEquals(1, response.getLogs().size());
@@ -313,7 +568,7 @@ public class LogServiceTest {
 
         when(mockCache.isCacheable(request)).thenReturn(false);
 
-        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID);
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
 
         assertNotNull(response);
         assertEquals(5, response.getLogs().size());
@@ -329,8 +584,515 @@ public class LogServiceTest {
         when(mockCache.isCacheable(request)).thenReturn(false);
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> logService.listLogEntries(request, REQUEST_ID));
+                () -> logService.listLogEntries(request, REQUEST_ID, Deadline.none()));
         assertEquals(400, exception.getStatusCode().value());
         assertTrue(Objects.requireNonNull(exception.getReason()).contains("is not in /var/log"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testListLogEntries_deepOffsetWithoutSearchTerm_returnsSameResultsWithLineIndex() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            lines.add(String.format("%d INFO line", i));
+        }
+        createLogFile(lines);
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .limit(2)
+                .offset(1500L)
+                .build();
+
+        when(mockCache.isCacheable(request)).thenReturn(false);
+
+        // the first request falls back to a full scan and schedules the index build
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+        assertEquals(List.of("999 INFO line", "998 INFO line"), response.getLogs());
+        assertTrue(response.getHasMore());
+
+        Thread.sleep(500);
+        response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+        assertEquals(List.of("999 INFO line", "998 INFO line"), response.getLogs());
+        assertTrue(response.getHasMore());
+    }
+
+    @Test
+    public void testListLogEntries_deepOffsetWithLineIndexAndMaxBytes_cursorCountsSkippedLines() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            lines.add(String.format("%d INFO line", i));
+        }
+        createLogFile(lines);
+        when(mockCache.isCacheable(any(ListEntriesRequest.class))).thenReturn(false);
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .limit(1000)
+                .offset(1500L)
+                .maxBytes(100L)
+                .build();
+        logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+        Thread.sleep(500);
+
+        // the line index jumps past most of the skipped lines, the budget then stops the page early
+        ListEntriesResponse first = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+        assertTrue(first.getPartial());
+        assertEquals("999 INFO line", first.getLogs().getFirst());
+
+        ListEntriesResponse second = logService.listLogEntries(ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .limit(1000)
+                .maxBytes(100L)
+                .cursor(first.getNextCursor())
+                .build(), REQUEST_ID, Deadline.none());
+        assertEquals(first.getNextOffset(), second.getOffset());
+        assertEquals(String.format("%d INFO line", 999 - first.getLogs().size()), second.getLogs().getFirst());
+        assertEquals(1500 + first.getLogs().size() + second.getLogs().size(), second.getNextOffset());
+    }
+
+    @Test
+    public void testListLogEntries_partialDeepOffsetWithLineIndex_returnsPartialPage() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            lines.add(String.format("%d INFO line", i));
+        }
+        createLogFile(lines);
+        when(mockCache.isCacheable(any(ListEntriesRequest.class))).thenReturn(false);
+        // holds up the request after seeking, until only the part of its time reserved for returning partial results is left
+        AtomicLong stallMillis = new AtomicLong();
+        LineIndexManager lineIndexManager = new LineIndexManager() {
+            @Override
+            public Optional<SeekPoint> seekPoint(File file, long offset) throws IOException {
+                Optional<SeekPoint> seekPoint = super.seekPoint(file, offset);
+                try {
+                    Thread.sleep(stallMillis.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return seekPoint;
+            }
+        };
+        LogService indexedService = new LogService(mockCache, lineIndexManager, new TokenIndexManager(), new ParallelLogSearcher(),
+                new QueryCompiler(), new LineParsers(), new TailFollower(), new DecompressedFileCache(), new MultiFileSearcher(),
+                new LogMetrics(meterRegistry), new LogFileCatalog(new File(tempDir.toFile(), MAIN_DIR).getCanonicalPath()), Constants.DEFAULT_MAX_SCAN_BYTES);
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .limit(2000)
+                .offset(1500L)
+                .partial(true)
+                .build();
+        indexedService.listLogEntries(request, REQUEST_ID, Deadline.none());
+        Thread.sleep(500);
+
+        stallMillis.set(1900);
+        ListEntriesResponse first = indexedService.listLogEntries(request, REQUEST_ID, Deadline.after(2000, TimeUnit.MILLISECONDS));
+        assertTrue(first.getPartial());
+        assertFalse(first.getBudgetExhausted());
+        assertEquals("3499 INFO line", first.getLogs().getFirst());
+        assertTrue(first.getLogs().size() < 2000);
+
+        stallMillis.set(0);
+        ListEntriesResponse second = indexedService.listLogEntries(ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .limit(2000)
+                .cursor(first.getNextCursor())
+                .build(), REQUEST_ID, Deadline.none());
+        assertEquals(first.getNextOffset(), second.getOffset());
+        assertEquals(String.format("%d INFO line", 3499 - first.getLogs().size()), second.getLogs().getFirst());
+    }
+
+    @Test
+    public void testListLogEntries_query_returnsFilteredResults() throws IOException, InterruptedException {
+        createLogFile(List.of(
+                "1 ERROR Something went wrong",
+                "2 INFO Starting system",
+                "3 ERROR Critical failure",
+                "4 DEBUG Ignored event",
+                "5 ERROR Critical failure"));
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .query("(error NOT critical) OR /^[24] /")
+                .build();
+
+        when(mockCache.isCacheable(request)).thenReturn(false);
+
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertEquals(List.of("4 DEBUG Ignored event", "2 INFO Starting system", "1 ERROR Something went wrong"), response.getLogs());
+    }
+
+    @Test
+    public void testListLogEntries_filter_returnsMatchingLinesWithFields() throws IOException, InterruptedException {
+        createLogFile(List.of(
+                "<11>May  1 10:00:00 web01 nginx[10]: upstream timed out",
+                "<14>May  1 10:00:01 web01 nginx[10]: request served",
+                "<12>May  1 10:00:02 web02 sshd[22]: too many failures user=bob",
+                "<11>May  1 10:00:03 web02 cron[33]: job failed"));
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .filter("severity>=warn,program!=cron")
+                .fields(true)
+                .build();
+
+        when(mockCache.isCacheable(request)).thenReturn(false);
+
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertEquals(List.of(
+                "<12>May  1 10:00:02 web02 sshd[22]: too many failures user=bob",
+                "<11>May  1 10:00:00 web01 nginx[10]: upstream timed out"), response.getLogs());
+        assertEquals("sshd", response.getFields().get(0).get("program"));
+        assertEquals("warning", response.getFields().get(0).get("severity"));
+        assertEquals("too many failures user=bob", response.getFields().get(0).get("message"));
+        assertEquals("web01", response.getFields().get(1).get("host"));
+    }
+
+    @Test
+    public void testListLogEntries_cursor_resumesWhereScanStopped() throws IOException, InterruptedException {
+        List<String> lines = List.of(
+                "1 ERROR Something went wrong",
+                "2 INFO Starting system",
+                "3 ERROR Critical failure",
+                "4 DEBUG Ignored event",
+                "5 ERROR Critical failure");
+        createLogFile(lines);
+        // the scan stopped before line 4 after finding the one match in lines 4 and 5
+        long position = String.join("\n", lines.subList(0, 3)).length() + 1;
+        String token = new ScanCursor(FileSnapshot.of(logFile()).fileId(), position, 1).encode();
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .offset(1L)
+                .cursor(token)
+                .build();
+
+        when(mockCache.isCacheable(request)).thenReturn(false);
+
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertEquals(List.of("3 ERROR Critical failure", "1 ERROR Something went wrong"), response.getLogs());
+        assertEquals(3, response.getNextOffset());
+        assertFalse(response.getPartial());
+    }
+
+    @Test
+    public void testListLogEntries_followNextCursor_returnsSamePagesAsOffsets() throws IOException, InterruptedException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            lines.add(i + (i % 3 == 0 ? " ERROR failure" : " INFO ok"));
+        }
+        createLogFile(lines);
+        when(mockCache.isCacheable(any(ListEntriesRequest.class))).thenReturn(false);
+
+        List<String> viaCursor = new ArrayList<>();
+        String cursor = null;
+        do {
+            ListEntriesResponse response = logService.listLogEntries(ListEntriesRequest.builder()
+                    .fileName(LOG_NAME)
+                    .searchTerm("ERROR")
+                    .limit(4)
+                    .cursor(cursor)
+                    .build(), REQUEST_ID, Deadline.none());
+            viaCursor.addAll(response.getLogs());
+            assertEquals(response.getHasMore(), response.getNextCursor() != null);
+            cursor = response.getNextCursor();
+        } while (cursor != null);
+
+        ListEntriesResponse all = logService.listLogEntries(ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .limit(1000)
+                .build(), REQUEST_ID, Deadline.none());
+        assertEquals(17, viaCursor.size());
+        assertEquals(all.getLogs(), viaCursor);
+    }
+
+    @Test
+    public void testListLogEntries_maxBytes_returnsPartialPagesWithinBudget() throws IOException, InterruptedException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            lines.add(i + (i % 3 == 0 ? " ERROR failure" : " INFO ok"));
+        }
+        createLogFile(lines);
+        when(mockCache.isCacheable(any(ListEntriesRequest.class))).thenReturn(false);
+
+        List<String> viaCursor = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ListEntriesResponse response = logService.listLogEntries(ListEntriesRequest.builder()
+                    .fileName(LOG_NAME)
+                    .searchTerm("ERROR")
+                    .limit(1000)
+                    .maxBytes(100L)
+                    .cursor(cursor)
+                    .build(), REQUEST_ID, Deadline.none());
+            assertTrue(response.getBytesScanned() <= 100);
+            assertEquals(100, response.getMaxBytes());
+            assertEquals(response.getPartial(), response.getBudgetExhausted());
+            viaCursor.addAll(response.getLogs());
+            cursor = response.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertTrue(pages > 1);
+        assertEquals(17, viaCursor.size());
+        assertEquals("48 ERROR failure", viaCursor.getFirst());
+        assertEquals("0 ERROR failure", viaCursor.getLast());
+    }
+
+    @Test
+    public void testAggregateLogEntries_maxBytes_countsNewestLinesOnly() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add(String.format("2024-05-01T10:%02d:00Z web01 sshd: line %02d", i % 60, i));
+        }
+        createLogFile(lines);
+        long lineLength = lines.getFirst().length() + 1;
+
+        AggregateLogsRequest request = AggregateLogsRequest.builder()
+                .fileName(LOG_NAME)
+                .maxBytes(10 * lineLength)
+                .build();
+        AggregateLogsResponse response = logService.aggregateLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertEquals(10, response.getMatches());
+        assertEquals(10 * lineLength, response.getBytesScanned());
+        assertTrue(response.getPartial());
+        assertTrue(response.getBudgetExhausted());
+    }
+
+    @Test
+    public void testListLogEntries_rotated_searchesAllGenerationsNewestFirst() throws IOException, InterruptedException {
+        createRotatedLogs();
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .rotated(true)
+                .build();
+        when(mockCache.isCacheable(request)).thenReturn(false);
+
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertEquals(List.of("7 ERROR newest", "6 ERROR rotated", "4 ERROR rotated", "3 ERROR compressed", "1 ERROR compressed"),
+                response.getLogs());
+        assertFalse(response.getHasMore());
+    }
+
+    @Test
+    public void testListLogEntries_rotatedWithCursor_pagesAcrossGenerations() throws IOException, InterruptedException {
+        createRotatedLogs();
+        when(mockCache.isCacheable(any(ListEntriesRequest.class))).thenReturn(false);
+
+        List<List<String>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            ListEntriesResponse response = logService.listLogEntries(ListEntriesRequest.builder()
+                    .fileName(LOG_NAME)
+                    .searchTerm("ERROR")
+                    .limit(2)
+                    .rotated(true)
+                    .cursor(cursor)
+                    .build(), REQUEST_ID, Deadline.none());
+            pages.add(response.getLogs());
+            cursor = response.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(
+                List.of("7 ERROR newest", "6 ERROR rotated"),
+                List.of("4 ERROR rotated", "3 ERROR compressed"),
+                List.of("1 ERROR compressed")), pages);
+    }
+
+    @Test
+    public void testListLogEntries_compressedFile_searchesDecompressedContent() throws IOException, InterruptedException {
+        createRotatedLogs();
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME + ".2.gz")
+                .searchTerm("compressed")
+                .build();
+        when(mockCache.isCacheable(request)).thenReturn(false);
+
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertEquals(List.of("3 ERROR compressed", "2 INFO compressed", "1 ERROR compressed"), response.getLogs());
+    }
+
+    @Test
+    public void testSearchLogFiles_twoFiles_returnsMergedPage() throws IOException, InterruptedException {
+        createLogFile(List.of("2024-05-01T10:00:01 ERROR first", "2024-05-01T10:00:03 ERROR third"));
+        try (FileWriter writer = new FileWriter(tempDir.resolve(String.format("%s/%s", MAIN_DIR, SYSLOG)).toFile())) {
+            writer.write("2024-05-01T10:00:02 ERROR second\n2024-05-01T10:00:04 INFO fourth\n");
+        }
+
+        SearchLogsResponse response = logService.searchLogFiles(SearchLogsRequest.builder()
+                .fileNames(List.of(LOG_NAME, SYSLOG))
+                .searchTerm("error")
+                .limit(2)
+                .build(), REQUEST_ID, Deadline.none());
+
+        assertEquals(List.of("2024-05-01T10:00:03 ERROR third", "2024-05-01T10:00:02 ERROR second"),
+                response.getEntries().stream().map(LogEntry::getLine).toList());
+        assertEquals(SYSLOG, response.getEntries().get(1).getFileName());
+        assertTrue(response.getHasMore());
+    }
+
+    @Test
+    public void testListLogEntries_cursorForOtherFile_throwsConflict() throws IOException {
+        createLogFile(List.of("1 ERROR Something went wrong"));
+        String token = new ScanCursor(FileSnapshot.of(logFile()).fileId() + 1, 10, 0).encode();
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .cursor(token)
+                .build();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> logService.listLogEntries(request, REQUEST_ID, Deadline.none()));
+        assertEquals(409, exception.getStatusCode().value());
+    }
+
+    @Test
+    public void testListLogEntries_cachedFileAppendedTo_scansOnlyAppendedLines() throws IOException, InterruptedException {
+        createLogFile(List.of(
+                "1 ERROR Something went wrong",
+                "2 INFO Starting system"));
+        FileSnapshot cachedSnapshot = FileSnapshot.of(logFile());
+        try (FileWriter writer = new FileWriter(logFile(), true)) {
+            writer.write("3 INFO Appended\n4 ERROR Appended failure\n");
+        }
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .limit(2)
+                .build();
+
+        when(mockCache.isCacheable(request)).thenReturn(true);
+        when(mockCache.buildCacheKey(request)).thenReturn("some-key");
+        // the cached lines are not in the file, so they can only come from merging with the cached page
+        when(mockCache.getEntry(anyString(), any(FileSnapshot.class))).thenReturn(new CacheEntry<>(
+                ListEntriesResponse.builder().logs(List.of("cached-line-1", "cached-line-2")).hasMore(false).build(),
+                cachedSnapshot));
+
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertEquals(List.of("4 ERROR Appended failure", "cached-line-1"), response.getLogs());
+        assertTrue(response.getHasMore());
+        verify(mockCache).put("some-key", response, FileSnapshot.of(logFile()));
+    }
+
+    @Test
+    public void testListLogEntries_cachedFileAppendedToPastMaxBytes_returnsPartialPage() throws IOException, InterruptedException {
+        createLogFile(List.of(
+                "1 ERROR Something went wrong",
+                "2 INFO Starting system"));
+        FileSnapshot cachedSnapshot = FileSnapshot.of(logFile());
+        try (FileWriter writer = new FileWriter(logFile(), true)) {
+            for (int i = 3; i < 50; i++) {
+                writer.write(i + " ERROR Appended failure\n");
+            }
+        }
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .limit(100)
+                .maxBytes(100L)
+                .build();
+
+        when(mockCache.isCacheable(request)).thenReturn(true);
+        when(mockCache.buildCacheKey(request)).thenReturn("some-key");
+        when(mockCache.getEntry(anyString(), any(FileSnapshot.class))).thenReturn(new CacheEntry<>(
+                ListEntriesResponse.builder().logs(List.of("cached-line-1")).hasMore(false).build(),
+                cachedSnapshot));
+
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertTrue(response.getPartial());
+        assertTrue(response.getBudgetExhausted());
+        assertTrue(response.getBytesScanned() <= 100);
+        assertEquals("49 ERROR Appended failure", response.getLogs().getFirst());
+        assertFalse(response.getLogs().contains("cached-line-1"));
+        assertNotNull(response.getNextCursor());
+        verify(mockCache, never()).put(anyString(), any(ListEntriesResponse.class), any(FileSnapshot.class));
+    }
+
+    @Test
+    public void testListLogEntries_partialCachedFileAppendedTo_returnsPartialPage() throws IOException, InterruptedException {
+        createLogFile(List.of("1 ERROR Something went wrong"));
+        FileSnapshot cachedSnapshot = FileSnapshot.of(logFile());
+        try (FileWriter writer = new FileWriter(logFile(), true)) {
+            for (int i = 2; i < 3000; i++) {
+                writer.write(i + " ERROR Appended failure\n");
+            }
+        }
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .limit(5000)
+                .partial(true)
+                .build();
+
+        when(mockCache.isCacheable(request)).thenReturn(true);
+        when(mockCache.buildCacheKey(request)).thenReturn("some-key");
+        when(mockCache.getEntry(anyString(), any(FileSnapshot.class))).thenReturn(new CacheEntry<>(
+                ListEntriesResponse.builder().logs(List.of("cached-line-1")).hasMore(false).build(),
+                cachedSnapshot));
+        // the first line holds up the scan until only the part of its time reserved for returning partial results is left
+        AtomicBoolean stalled = new AtomicBoolean();
+        QueryCompiler stallingCompiler = new QueryCompiler() {
+            @Override
+            public LineMatcher compile(String searchTerm, String query, Deadline deadline) {
+                LineMatcher matcher = super.compile(searchTerm, query, deadline);
+                return (buffer, start, end) -> {
+                    if (stalled.compareAndSet(false, true)) {
+                        try {
+                            Thread.sleep(1900);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return matcher.matches(buffer, start, end);
+                };
+            }
+        };
+        LogService stallingService = new LogService(mockCache, new LineIndexManager(), new TokenIndexManager(), new ParallelLogSearcher(),
+                stallingCompiler, new LineParsers(), new TailFollower(), new DecompressedFileCache(), new MultiFileSearcher(),
+                new LogMetrics(meterRegistry), new LogFileCatalog(new File(tempDir.toFile(), MAIN_DIR).getCanonicalPath()), Constants.DEFAULT_MAX_SCAN_BYTES);
+
+        ListEntriesResponse response = stallingService.listLogEntries(request, REQUEST_ID, Deadline.after(2000, TimeUnit.MILLISECONDS));
+
+        assertTrue(response.getPartial());
+        assertFalse(response.getBudgetExhausted());
+        assertEquals("2999 ERROR Appended failure", response.getLogs().getFirst());
+        assertFalse(response.getLogs().contains("cached-line-1"));
+        assertNotNull(response.getNextCursor());
+        verify(mockCache, never()).put(anyString(), any(ListEntriesResponse.class), any(FileSnapshot.class));
+    }
+
+    @Test
+    public void testListLogEntries_cachedFileRotated_rescansWholeFile() throws IOException, InterruptedException {
+        createLogFile(List.of(
+                "1 ERROR Something went wrong",
+                "2 INFO Starting system"));
+
+        ListEntriesRequest request = ListEntriesRequest.builder()
+                .fileName(LOG_NAME)
+                .searchTerm("ERROR")
+                .build();
+
+        when(mockCache.isCacheable(request)).thenReturn(true);
+        when(mockCache.buildCacheKey(request)).thenReturn("some-key");
+        when(mockCache.getEntry(anyString(), any(FileSnapshot.class))).thenReturn(new CacheEntry<>(
+                ListEntriesResponse.builder().logs(List.of("cached-line")).hasMore(false).build(),
+                new FileSnapshot("another-inode", 1, 0)));
+
+        ListEntriesResponse response = logService.listLogEntries(request, REQUEST_ID, Deadline.none());
+
+        assertEquals(List.of("1 ERROR Something went wrong"), response.getLogs());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.logcollector.service;
+
+import com.example.logcollector.model.logs.LogEntry;
+import com.example.logcollector.service.matcher.LineMatcher;
+import com.example.logcollector.service.time.IsoTimestampParser;
+import com.example.logcollector.util.Deadline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MultiFileSearcherTest {
+    @TempDir
+    private Path tempDir;
+
+    private final MultiFileSearcher searcher = new MultiFileSearcher(new IsoTimestampParser(ZoneOffset.UTC), 2);
+
+    private File createFile(String name, List<String> lines) throws IOException {
+        File file = tempDir.resolve(name).toFile();
+        try (FileWriter writer = new FileWriter(file)) {
+            for (String line : lines) {
+                writer.write(line + "\n");
+            }
+        }
+        return file;
+    }
+
+    private List<String> lines(List<LogEntry> entries) {
+        return entries.stream().map(entry -> entry.getFileName() + ": " + entry.getLine()).toList();
+    }
+
+    @Test
+    public void search_interleavedFiles_mergesNewestFirst() throws Exception {
+        File syslog = createFile("syslog", List.of(
+                "2024-05-01T10:00:01 syslog one",
+                "2024-05-01T10:00:04 syslog four",
+                "2024-05-01T10:00:05 syslog five"));
+        File auth = createFile("auth.log", List.of(
+                "2024-05-01T10:00:02 auth two",
+                "2024-05-01T10:00:03 auth three",
+                "2024-05-01T10:00:06 auth six"));
+
+        List<LogEntry> entries = searcher.search(List.of(syslog, auth), LineMatcher.MATCH_ALL, 10, Deadline.none());
+
+        assertEquals(List.of(
+                "auth.log: 2024-05-01T10:00:06 auth six",
+                "syslog: 2024-05-01T10:00:05 syslog five",
+                "syslog: 2024-05-01T10:00:04 syslog four",
+                "auth.log: 2024-05-01T10:00:03 auth three",
+                "auth.log: 2024-05-01T10:00:02 auth two",
+                "syslog: 2024-05-01T10:00:01 syslog one"), lines(entries));
+    }
+
+    @Test
+    public void search_limitReached_returnsOnlyNewestMatches() throws Exception {
+        File syslog = createFile("syslog", List.of(
+                "2024-05-01T10:00:01 error old",
+                "2024-05-01T10:00:03 info skipped",
+                "2024-05-01T10:00:05 error new"));
+        File kern = createFile("kern.log", List.of(
+                "2024-05-01T10:00:02 error kernel",
+                "2024-05-01T10:00:04 error kernel newer"));
+
+        List<LogEntry> entries = searcher.search(List.of(syslog, kern), LineMatcher.forSearchTerm("error"), 2, Deadline.none());
+
+        assertEquals(List.of(
+                "syslog: 2024-05-01T10:00:05 error new",
+                "kern.log: 2024-05-01T10:00:04 error kernel newer"), lines(entries));
+    }
+
+    @Test
+    public void search_lineWithoutTimestamp_sortsWithNewerLineOfItsFile() throws Exception {
+        File app = createFile("app.log", List.of(
+                "2024-05-01T10:00:03 request failed",
+                "    at com.example.Handler"));
+        File syslog = createFile("syslog", List.of("2024-05-01T10:00:02 syslog"));
+
+        List<LogEntry> entries = searcher.search(List.of(syslog, app), LineMatcher.MATCH_ALL, 10, Deadline.none());
+
+        assertEquals(List.of(
+                "app.log: at com.example.Handler",
+                "app.log: 2024-05-01T10:00:03 request failed",
+                "syslog: 2024-05-01T10:00:02 syslog"), lines(entries));
+        assertNull(entries.getFirst().getTimestamp());
+    }
+}
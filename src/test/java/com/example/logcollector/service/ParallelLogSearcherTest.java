@@ -0,0 +1,118 @@
+package com.example.logcollector.service;
+
+import com.example.logcollector.model.logs.LogPage;
+import com.example.logcollector.service.matcher.LineMatcher;
+import com.example.logcollector.util.Deadline;
+import com.example.logcollector.util.ScanBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelLogSearcherTest {
+    private static final int LINES = 1000;
+
+    private ParallelLogSearcher searcher;
+
+    @TempDir
+    private Path tempDir;
+
+    private File file;
+
+    @BeforeEach
+    public void init() throws IOException {
+        // segments of ~100 bytes so the file is split into a few hundred segments
+        searcher = new ParallelLogSearcher(4, 100);
+        file = tempDir.resolve("test.log").toFile();
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int i = 0; i < LINES; i++) {
+                writer.write(String.format("%d %s line number %d\n", i, i % 7 == 0 ? "ERROR" : "INFO", i));
+            }
+        }
+    }
+
+    @AfterEach
+    public void afterEach() {
+        searcher.shutdown();
+    }
+
+    private List<String> expectedErrors() {
+        List<String> expected = new ArrayList<>();
+        for (int i = LINES - 1; i >= 0; i--) {
+            if (i % 7 == 0) {
+                expected.add(String.format("%d ERROR line number %d", i, i));
+            }
+        }
+        return expected;
+    }
+
+    @Test
+    public void search_firstPage_returnsNewestMatches() throws Exception {
+        LogPage page = searcher.search(file, LineMatcher.forSearchTerm("error"), 10, 0, 0, file.length(), Deadline.none(), null, ScanBudget.none());
+
+        assertEquals(expectedErrors().subList(0, 10), page.getLogs());
+        assertTrue(page.getHasMore());
+    }
+
+    @Test
+    public void search_offsetAcrossSegments_returnsSamePageAsSequentialScan() throws Exception {
+        List<String> expected = expectedErrors();
+        for (int offset = 0; offset < expected.size(); offset += 13) {
+            LogPage page = searcher.search(file, LineMatcher.forSearchTerm("error"), 13, offset, 0, file.length(), Deadline.none(), null, ScanBudget.none());
+            assertEquals(expected.subList(offset, Math.min(offset + 13, expected.size())), page.getLogs());
+            assertEquals(offset + 13 < expected.size(), page.getHasMore());
+        }
+    }
+
+    @Test
+    public void search_fromLastLinePosition_continuesWithNextPage() throws Exception {
+        List<String> expected = expectedErrors();
+        LogPage first = searcher.search(file, LineMatcher.forSearchTerm("error"), 10, 0, 0, file.length(), Deadline.none(), null, ScanBudget.none());
+        LogPage second = searcher.search(file, LineMatcher.forSearchTerm("error"), 10, 0, 0, first.getLastLinePosition(), Deadline.none(), null, ScanBudget.none());
+
+        assertEquals(expected.subList(10, 20), second.getLogs());
+    }
+
+    @Test
+    public void search_exactlyLastPage_hasNoMore() throws Exception {
+        List<String> expected = expectedErrors();
+        LogPage page = searcher.search(file, LineMatcher.forSearchTerm("error"), 3, expected.size() - 3, 0, file.length(), Deadline.none(), null, ScanBudget.none());
+
+        assertEquals(expected.subList(expected.size() - 3, expected.size()), page.getLogs());
+        assertFalse(page.getHasMore());
+    }
+
+    @Test
+    public void search_budgetSmallerThanFile_resumesWhereBudgetEnds() throws Exception {
+        List<String> expected = expectedErrors();
+        ScanBudget budget = ScanBudget.of(file.length() / 2);
+        LogPage first = searcher.search(file, LineMatcher.forSearchTerm("error"), 1000, 0, 0, file.length(), Deadline.none(), null, budget);
+
+        assertTrue(budget.isExhausted());
+        assertTrue(budget.bytesScanned() <= file.length() / 2);
+        assertTrue(first.getLogs().size() > 0 && first.getLogs().size() < expected.size());
+        LogPage second = searcher.search(file, LineMatcher.forSearchTerm("error"), 1000, 0, 0, first.getResumePosition(), Deadline.none(), null, ScanBudget.none());
+        List<String> logs = new ArrayList<>(first.getLogs());
+        logs.addAll(second.getLogs());
+        assertEquals(expected, logs);
+    }
+
+    @Test
+    public void search_noMatches_returnsEmptyPage() throws Exception {
+        LogPage page = searcher.search(file, LineMatcher.forSearchTerm("missing"), 10, 0, 0, file.length(), Deadline.none(), null, ScanBudget.none());
+
+        assertTrue(page.getLogs().isEmpty());
+        assertFalse(page.getHasMore());
+    }
+}
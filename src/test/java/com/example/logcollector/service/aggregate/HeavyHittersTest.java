@@ -0,0 +1,41 @@
+package com.example.logcollector.service.aggregate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HeavyHittersTest {
+    @Test
+    public void top_fewerValuesThanCapacity_countsExactly() {
+        HeavyHitters heavyHitters = new HeavyHitters(8);
+        for (String value : List.of("sshd", "cron", "sshd", "kernel", "sshd", "cron")) {
+            heavyHitters.add(value);
+        }
+
+        List<HeavyHitters.Estimate> top = heavyHitters.top(2);
+        assertEquals(List.of(new HeavyHitters.Estimate("sshd", 3, 0), new HeavyHitters.Estimate("cron", 2, 0)), top);
+    }
+
+    @Test
+    public void top_longTailOfRareValues_keepsFrequentValues() {
+        HeavyHitters heavyHitters = new HeavyHitters(64);
+        for (int i = 0; i < 10_000; i++) {
+            heavyHitters.add("unique-" + i);
+            if (i % 10 == 0) {
+                heavyHitters.add("frequent");
+            }
+            if (i % 20 == 0) {
+                heavyHitters.add("common");
+            }
+        }
+
+        List<HeavyHitters.Estimate> top = heavyHitters.top(2);
+        assertEquals("frequent", top.get(0).value());
+        assertEquals("common", top.get(1).value());
+        // the count is an overestimate by at most the error
+        assertTrue(top.get(0).count() >= 1000 && top.get(0).count() - top.get(0).error() <= 1000);
+    }
+}
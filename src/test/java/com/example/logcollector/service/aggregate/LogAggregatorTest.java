@@ -0,0 +1,64 @@
+package com.example.logcollector.service.aggregate;
+
+import com.example.logcollector.model.logs.FieldCount;
+import com.example.logcollector.model.logs.HistogramBucket;
+import com.example.logcollector.service.parse.SyslogLineParser;
+import com.example.logcollector.service.time.IsoTimestampParser;
+import com.example.logcollector.service.time.TimeRange;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LogAggregatorTest {
+    private static void add(LogAggregator aggregator, String line) {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        aggregator.add(buffer, 0, buffer.limit());
+    }
+
+    @Test
+    public void add_countsIntoBucketsAndTopValues() {
+        LogAggregator aggregator = new LogAggregator(new IsoTimestampParser(), null, 60_000, new SyslogLineParser(), "program");
+        add(aggregator, "2024-05-01T00:00:10Z web01 kernel: Out of memory: Killed process 1");
+        add(aggregator, "2024-05-01T00:00:50Z web01 kernel: Out of memory: Killed process 2");
+        add(aggregator, "2024-05-01T00:02:00Z web02 sshd[42]: Accepted publickey");
+        add(aggregator, "    at com.example.Main.main(Main.java:1)");
+
+        long minute = Instant.parse("2024-05-01T00:00:00Z").toEpochMilli();
+        assertEquals(4, aggregator.matches());
+        assertEquals(1, aggregator.untimestamped());
+        assertEquals(List.of(HistogramBucket.builder().start(minute).count(2L).build(),
+                HistogramBucket.builder().start(minute + 120_000).count(1L).build()), aggregator.histogram());
+        List<FieldCount> top = aggregator.topValues(5);
+        assertEquals("kernel", top.get(0).getValue());
+        assertEquals(2, top.get(0).getCount());
+        assertEquals("sshd", top.get(1).getValue());
+    }
+
+    @Test
+    public void add_outsideTimeRange_isNotCounted() {
+        TimeRange range = new TimeRange(Instant.parse("2024-05-01T00:01:00Z").toEpochMilli(), Instant.parse("2024-05-01T00:02:00Z").toEpochMilli());
+        LogAggregator aggregator = new LogAggregator(new IsoTimestampParser(), range, 60_000, new SyslogLineParser(), null);
+        add(aggregator, "2024-05-01T00:00:10Z ERROR before");
+        add(aggregator, "2024-05-01T00:01:10Z ERROR inside");
+
+        assertEquals(1, aggregator.matches());
+        assertNull(aggregator.topValues(5));
+    }
+
+    @Test
+    public void parseInterval_units_returnsMillis() {
+        assertEquals(500, LogAggregator.parseInterval("500ms"));
+        assertEquals(30_000, LogAggregator.parseInterval("30s"));
+        assertEquals(300_000, LogAggregator.parseInterval("5m"));
+        assertEquals(86_400_000, LogAggregator.parseInterval("1d"));
+        assertThrows(IllegalArgumentException.class, () -> LogAggregator.parseInterval("0m"));
+        assertThrows(IllegalArgumentException.class, () -> LogAggregator.parseInterval("1w"));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.logcollector.service.cursor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ScanCursorTest {
+
+    @Test
+    public void decode_encodedToken_returnsSameToken() {
+        ScanCursor token = new ScanCursor(-42, 1_234_567_890_123L, 17);
+        assertEquals(token, ScanCursor.decode(token.encode()));
+    }
+
+    @Test
+    public void decode_garbage_throwsBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> ScanCursor.decode("not a token"));
+        assertEquals(400, exception.getStatusCode().value());
+    }
+
+    @Test
+    public void decode_negativePosition_throwsBadRequest() {
+        String token = new ScanCursor(1, -5, 0).encode();
+        assertThrows(ResponseStatusException.class, () -> ScanCursor.decode(token));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.logcollector.service.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CaseInsensitiveMatcherTest {
+    private static boolean matches(LineMatcher matcher, String line) {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        return matcher.matches(buffer, 0, buffer.limit());
+    }
+
+    @Test
+    public void matches_differentCase_returnsTrue() {
+        LineMatcher matcher = new CaseInsensitiveMatcher("ErRoR");
+        assertTrue(matches(matcher, "1 ERROR Something went wrong"));
+        assertTrue(matches(matcher, "error"));
+        assertTrue(matches(matcher, "an Error at the end"));
+    }
+
+    @Test
+    public void matches_noOccurrence_returnsFalse() {
+        LineMatcher matcher = new CaseInsensitiveMatcher("error");
+        assertFalse(matches(matcher, "2 INFO Starting system"));
+        assertFalse(matches(matcher, "erro"));
+        assertFalse(matches(matcher, ""));
+    }
+
+    @Test
+    public void matches_repeatedPrefix_returnsTrue() {
+        LineMatcher matcher = new CaseInsensitiveMatcher("abab");
+        assertTrue(matches(matcher, "aababab"));
+        assertFalse(matches(matcher, "abaab"));
+    }
+
+    @Test
+    public void matches_onlyLooksAtRange_returnsFalseOutsideRange() {
+        ByteBuffer buffer = ByteBuffer.wrap("error\ninfo\n".getBytes(StandardCharsets.UTF_8));
+        assertFalse(new CaseInsensitiveMatcher("error").matches(buffer, 6, 10));
+        assertTrue(new CaseInsensitiveMatcher("info").matches(buffer, 6, 10));
+    }
+
+    @Test
+    public void matches_nonAsciiBytesInLine_returnsTrue() {
+        assertTrue(matches(new CaseInsensitiveMatcher("fail"), "日本語 FAIL ログ"));
+    }
+
+    @Test
+    public void forSearchTerm_picksImplementation_returnsMatcher() {
+        assertSame(LineMatcher.MATCH_ALL, LineMatcher.forSearchTerm(""));
+        assertInstanceOf(CaseInsensitiveMatcher.class, LineMatcher.forSearchTerm("error"));
+        LineMatcher unicode = LineMatcher.forSearchTerm("ÉCHEC");
+        assertInstanceOf(DecodingMatcher.class, unicode);
+        assertTrue(matches(unicode, "une échec grave"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.logcollector.service.parse;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FieldFilterTest {
+    private static boolean matches(String filter, LineParser parser, String line) {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        return FieldFilter.parse(filter).matches(parser, buffer, 0, buffer.limit());
+    }
+
+    @Test
+    public void matches_severityAtLeast_keepsMoreSevereLines() {
+        LineParser syslog = new SyslogLineParser();
+        assertTrue(matches("severity>=warn", syslog, "<11>May  1 10:00:00 web01 app: failed"));
+        assertTrue(matches("severity>=warn", syslog, "2024-05-01T10:00:00Z WARNING low disk"));
+        assertFalse(matches("severity>=warn", syslog, "<14>May  1 10:00:00 web01 app: started"));
+        assertFalse(matches("severity>=warn", syslog, "May  1 10:00:00 web01 app: no level"));
+        assertTrue(matches("severity<info", syslog, "2024-05-01T10:00:00Z DEBUG details"));
+    }
+
+    @Test
+    public void matches_allConditions_mustHold() {
+        LineParser syslog = new SyslogLineParser();
+        String line = "<38>May  1 10:00:00 web01 sshd[7]: Accepted publickey user=alice";
+        assertTrue(matches("program=SSHD, severity=info", syslog, line));
+        assertFalse(matches("program=sshd,user!=alice", syslog, line));
+        assertTrue(matches("pid>5,pid<=7", syslog, line));
+        assertTrue(matches("session!=x", syslog, line));
+    }
+
+    @Test
+    public void matches_jsonFields_comparesValues() {
+        LineParser json = new JsonLineParser();
+        assertTrue(matches("status>=500,level=error", json, "{\"level\":\"error\",\"status\":503}"));
+        assertFalse(matches("status>=500", json, "{\"level\":\"error\",\"status\":404}"));
+        assertTrue(matches("user=zoë", json, "{\"user\":\"zo\\u00eb\"}"));
+    }
+
+    @Test
+    public void parse_invalidCondition_throws() {
+        assertThrows(IllegalArgumentException.class, () -> FieldFilter.parse("severity>=loud"));
+        assertThrows(IllegalArgumentException.class, () -> FieldFilter.parse("program"));
+        assertThrows(IllegalArgumentException.class, () -> FieldFilter.parse("program="));
+    }
+
+    @Test
+    public void forFile_jsonGlobs_pickJsonParser() {
+        LineParsers lineParsers = new LineParsers();
+        assertInstanceOf(JsonLineParser.class, lineParsers.forFile(new File("/var/log/app.jsonl")));
+        assertInstanceOf(JsonLineParser.class, lineParsers.forFile(new File("/var/log/app.json.1")));
+        assertInstanceOf(SyslogLineParser.class, lineParsers.forFile(new File("/var/log/syslog")));
+        assertInstanceOf(JsonLineParser.class, new LineParsers("app-*.log").forFile(new File("app-1.log")));
+    }
+}
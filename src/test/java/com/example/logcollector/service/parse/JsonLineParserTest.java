@@ -0,0 +1,51 @@
+package com.example.logcollector.service.parse;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class JsonLineParserTest {
+    private final JsonLineParser parser = new JsonLineParser();
+
+    private String value(String line, String field) {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        return parser.value(buffer, 0, buffer.limit(), field);
+    }
+
+    @Test
+    public void value_topLevelKeys_skipsOtherValues() {
+        String line = "{\"ctx\":{\"a\":[1,{\"b\":\"}\"}]},\"msg\":\"say \\\"hi\\\"\\n\",\"status\":503,\"ok\":false}";
+        assertEquals("say \"hi\"\n", value(line, Fields.MESSAGE));
+        assertEquals("503", value(line, "status"));
+        assertEquals("false", value(line, "ok"));
+        assertEquals("{\"a\":[1,{\"b\":\"}\"}]}", value(line, "ctx"));
+        assertNull(value(line, "missing"));
+    }
+
+    @Test
+    public void value_aliasesAndNestedPaths_findField() {
+        assertEquals("warning", value("{\"level\":\"WARN\",\"app\":\"billing\"}", Fields.SEVERITY));
+        assertEquals("billing", value("{\"level\":\"WARN\",\"app\":\"billing\"}", Fields.PROGRAM));
+        assertEquals("err", value("{\"log\":{\"level\":\"error\"}}", Fields.SEVERITY));
+        assertEquals("err", value("{\"level\":50,\"msg\":\"pino\"}", Fields.SEVERITY));
+        assertEquals("eu-1", value("{\"cloud\":{\"region\":\"eu-1\"}}", "cloud.region"));
+    }
+
+    @Test
+    public void value_notJson_returnsNull() {
+        assertNull(value("May  1 10:00:00 web01 sshd: hello", Fields.PROGRAM));
+        assertNull(value("{\"msg\":\"truncated", Fields.MESSAGE));
+    }
+
+    @Test
+    public void fields_returnsDecodedTopLevelFields() {
+        String line = "{\"ts\":\"2024-05-01T10:00:00Z\",\"n\":1,\"tags\":[\"a\"]}";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        assertEquals(Map.of("ts", "2024-05-01T10:00:00Z", "n", "1", "tags", "[\"a\"]"), parser.fields(buffer, 0, buffer.limit()));
+    }
+}
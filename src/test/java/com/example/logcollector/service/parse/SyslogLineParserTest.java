@@ -0,0 +1,80 @@
+package com.example.logcollector.service.parse;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SyslogLineParserTest {
+    private final SyslogLineParser parser = new SyslogLineParser();
+
+    private String value(String line, String field) {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        return parser.value(buffer, 0, buffer.limit(), field);
+    }
+
+    @Test
+    public void value_rfc3164_readsHeader() {
+        String line = "May  1 10:00:00 web01 CRON[1234]: (root) CMD (run-parts)";
+        assertEquals("May  1 10:00:00", value(line, Fields.TIMESTAMP));
+        assertEquals("web01", value(line, Fields.HOST));
+        assertEquals("CRON", value(line, Fields.PROGRAM));
+        assertEquals("1234", value(line, Fields.PID));
+        assertEquals("(root) CMD (run-parts)", value(line, Fields.MESSAGE));
+        assertNull(value(line, Fields.SEVERITY));
+    }
+
+    @Test
+    public void value_isoTimestampAndPriority_readsHeader() {
+        String line = "<38>2024-05-01T10:00:00+02:00 web01 sshd: session opened";
+        assertEquals("sshd", value(line, Fields.PROGRAM));
+        assertNull(value(line, Fields.PID));
+        assertEquals("info", value(line, Fields.SEVERITY));
+        assertEquals("auth", value(line, Fields.FACILITY));
+    }
+
+    @Test
+    public void value_rfc5424_readsHeaderAndStructuredData() {
+        String line = "<165>1 2003-10-11T22:14:15.003Z mymachine.example.com evntslog - ID47 "
+                + "[exampleSDID@32473 iut=\"3\" eventSource=\"Application\"] An application event";
+        assertEquals("2003-10-11T22:14:15.003Z", value(line, Fields.TIMESTAMP));
+        assertEquals("mymachine.example.com", value(line, Fields.HOST));
+        assertEquals("evntslog", value(line, Fields.PROGRAM));
+        assertNull(value(line, Fields.PID));
+        assertEquals("ID47", value(line, SyslogLineParser.MSGID));
+        assertEquals("Application", value(line, "eventSource"));
+        assertEquals("An application event", value(line, Fields.MESSAGE));
+        assertEquals("notice", value(line, Fields.SEVERITY));
+        assertEquals("local4", value(line, Fields.FACILITY));
+    }
+
+    @Test
+    public void value_levelWordsAndPairs_readsSeverityAndFields() {
+        assertEquals("warning", value("2024-05-01T10:00:00Z [WARN] disk almost full", Fields.SEVERITY));
+        assertEquals("err", value("2024-05-01 10:00:00,123 ERROR Main - failed", Fields.SEVERITY));
+        assertEquals("alice", value("May  1 10:00:00 web01 login: ok user=alice src=10.0.0.1", "user"));
+        assertEquals("bad password", value("May  1 10:00:00 web01 login: failed reason=\"bad password\" user=bob", "reason"));
+        assertNull(value("May  1 10:00:00 web01 login: ok superuser=alice", "user"));
+    }
+
+    @Test
+    public void value_continuationLine_hasNoHeader() {
+        assertNull(value("    at com.example.Main.main(Main.java:1)", Fields.PROGRAM));
+        assertNull(value("2024-05-01T02:24:00Z ERROR minute 144", Fields.PROGRAM));
+    }
+
+    @Test
+    public void fields_returnsHeaderAndParameters() {
+        String line = "<165>1 2003-10-11T22:14:15.003Z host app 42 - [meta user=\"bob\"] hello";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        Map<String, String> fields = parser.fields(buffer, 0, buffer.limit());
+        assertEquals("app", fields.get(Fields.PROGRAM));
+        assertEquals("42", fields.get(Fields.PID));
+        assertEquals("bob", fields.get("user"));
+        assertEquals("hello", fields.get(Fields.MESSAGE));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.logcollector.service.query;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.exception.DeadlineExceededException;
+import com.example.logcollector.util.Deadline;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryParserTest {
+    private static boolean matches(String query, String line) {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        return QueryParser.parse(query).matches(buffer, 0, buffer.limit());
+    }
+
+    @Test
+    public void parse_implicitAnd_requiresAllTerms() {
+        assertTrue(matches("error disk", "kernel: ERROR on Disk sda"));
+        assertFalse(matches("error disk", "kernel: ERROR on network"));
+        assertTrue(matches("error AND disk", "disk error"));
+    }
+
+    @Test
+    public void parse_or_requiresAnyTerm() {
+        assertTrue(matches("oom OR panic", "kernel panic"));
+        assertTrue(matches("oom OR panic", "Out of memory: OOM killer"));
+        assertFalse(matches("oom OR panic", "all good"));
+    }
+
+    @Test
+    public void parse_notAndMinus_excludeTerms() {
+        assertTrue(matches("error NOT debug", "error in module"));
+        assertFalse(matches("error NOT debug", "debug error in module"));
+        assertFalse(matches("error -debug", "debug error in module"));
+    }
+
+    @Test
+    public void parse_precedenceAndParentheses_evaluatesTree() {
+        // AND binds tighter than OR
+        assertTrue(matches("a1 OR b1 c1", "a1"));
+        assertFalse(matches("(a1 OR b1) c1", "a1"));
+        assertTrue(matches("(a1 OR b1) c1", "b1 c1"));
+    }
+
+    @Test
+    public void parse_phrase_matchesWholePhrase() {
+        assertTrue(matches("\"connection refused\"", "Connection Refused by peer"));
+        assertFalse(matches("\"connection refused\"", "refused connection"));
+    }
+
+    @Test
+    public void parse_regex_matchesPattern() {
+        assertTrue(matches("/took [0-9]{4,} ms/", "request took 12034 ms"));
+        assertFalse(matches("/took [0-9]{4,} ms/", "request took 120 ms"));
+        assertFalse(matches("/ERROR/", "error"));
+        assertTrue(matches("/ERROR/i", "error"));
+        assertTrue(matches("/a\\/b/", "path a/b"));
+    }
+
+    @Test
+    public void parse_catastrophicRegexWithDeadline_stopsAtDeadline() {
+        ByteBuffer buffer = ByteBuffer.wrap(("a".repeat(64) + "!").getBytes(StandardCharsets.UTF_8));
+        QueryNode node = QueryParser.parse("/(.*a){12}b/").withDeadline(Deadline.after(100, TimeUnit.MILLISECONDS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(DeadlineExceededException.class, () -> node.matches(buffer, 0, buffer.limit())));
+    }
+
+    @Test
+    public void parse_regexOnLongLine_onlyMatchesStartOfLine() {
+        assertTrue(matches("/needle/", "needle " + "x".repeat(Constants.MAX_REGEX_LINE_BYTES)));
+        assertFalse(matches("/needle/", "x".repeat(Constants.MAX_REGEX_LINE_BYTES) + " needle"));
+    }
+
+    @Test
+    public void parse_fieldTerm_matchesWholeKeyValuePair() {
+        assertTrue(matches("user:root", "sshd: login user=root from 10.0.0.1"));
+        assertTrue(matches("user:root", "sshd: login user=\"root\", ok"));
+        assertFalse(matches("user:root", "sshd: login user=rooted"));
+        assertFalse(matches("user:root", "sshd: login baduser=root"));
+        assertTrue(matches("user:\"jane doe\"", "login user=\"jane doe\""));
+    }
+
+    @Test
+    public void parse_invalidQuery_throwsBadRequest() {
+        assertEquals(400, assertThrows(ResponseStatusException.class, () -> QueryParser.parse("(a OR b")).getStatusCode().value());
+        assertEquals(400, assertThrows(ResponseStatusException.class, () -> QueryParser.parse("/[a-/")).getStatusCode().value());
+        assertEquals(400, assertThrows(ResponseStatusException.class, () -> QueryParser.parse("a OR")).getStatusCode().value());
+        assertEquals(400, assertThrows(ResponseStatusException.class, () -> QueryParser.parse("\"open")).getStatusCode().value());
+    }
+
+    @Test
+    public void requiredLiteral_extractsSafePrefilter() {
+        assertEquals("took ", QueryParser.requiredLiteral("took [0-9]+ ms"));
+        assertEquals("session opened for user ", QueryParser.requiredLiteral("^session opened for user \\w+"));
+        assertEquals("abc", QueryParser.requiredLiteral("x?abcd?"));
+        assertNull(QueryParser.requiredLiteral("error|warn"));
+        assertNull(QueryParser.requiredLiteral("[abcdef]+"));
+        assertNull(QueryParser.requiredLiteral("a{1000}"));
+    }
+}
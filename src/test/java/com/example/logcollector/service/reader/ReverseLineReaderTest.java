@@ -0,0 +1,120 @@
+package com.example.logcollector.service.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class ReverseLineReaderTest {
+    @TempDir
+    private Path tempDir;
+
+    private File writeFile(String content) throws IOException {
+        Path path = tempDir.resolve("test.log");
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path.toFile();
+    }
+
+    private List<String> readAll(File file, long startPosition, int windowSize) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (ReverseLineReader reader = new ReverseLineReader(file, startPosition, windowSize)) {
+            while (reader.next()) {
+                lines.add(reader.line());
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    public void next_readsLinesInReverse_skipsEmptyLines() throws IOException {
+        File file = writeFile("first\n\nsecond\nthird\n\n");
+        assertEquals(List.of("third", "second", "first"), readAll(file, file.length(), 1024));
+    }
+
+    @Test
+    public void next_noTrailingNewline_returnsLastLine() throws IOException {
+        File file = writeFile("first\nsecond");
+        assertEquals(List.of("second", "first"), readAll(file, file.length(), 1024));
+    }
+
+    @Test
+    public void next_linesLongerThanWindow_remapsWindow() throws IOException {
+        String longLine = "x".repeat(100);
+        File file = writeFile("a\n" + longLine + "\nb\n" + longLine + "y\n");
+        assertEquals(List.of(longLine + "y", "b", longLine, "a"), readAll(file, file.length(), 7));
+    }
+
+    @Test
+    public void next_manyLinesAcrossWindows_returnsEveryLine() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            content.append("line ").append(i).append('\n');
+            expected.addFirst("line " + i);
+        }
+        File file = writeFile(content.toString());
+        assertEquals(expected, readAll(file, file.length(), 64));
+    }
+
+    @Test
+    public void next_growingWindow_doublesUpToMaxAndReturnsEveryLine() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            content.append("line ").append(i).append('\n');
+            expected.addFirst("line " + i);
+        }
+        File file = writeFile(content.toString());
+        List<String> lines = new ArrayList<>();
+        try (ReverseLineReader reader = new ReverseLineReader(file, 0, file.length(), 16, 256)) {
+            assertEquals(16, reader.windowSize());
+            reader.next();
+            assertEquals(32, reader.windowSize());
+            lines.add(reader.line());
+            while (reader.next()) {
+                lines.add(reader.line());
+            }
+            assertEquals(256, reader.windowSize());
+        }
+        assertEquals(expected, lines);
+    }
+
+    @Test
+    public void line_multiByteCharacters_decodesUtf8() throws IOException {
+        File file = writeFile("héllo wörld\n日本語のログ\n");
+        assertEquals(List.of("日本語のログ", "héllo wörld"), readAll(file, file.length(), 5));
+    }
+
+    @Test
+    public void next_startPosition_readsOnlyBytesBeforePosition() throws IOException {
+        File file = writeFile("first\nsecond\nthird\n");
+        assertEquals(List.of("second", "first"), readAll(file, 13, 1024));
+    }
+
+    @Test
+    public void next_emptyFile_returnsFalse() throws IOException {
+        File file = writeFile("");
+        try (ReverseLineReader reader = new ReverseLineReader(file, 0, 1024)) {
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void lineStartAndEnd_returnFilePositions() throws IOException {
+        File file = writeFile("first\nsecond\n");
+        try (ReverseLineReader reader = new ReverseLineReader(file, file.length(), 4)) {
+            reader.next();
+            assertEquals(6, reader.lineStart());
+            assertEquals(12, reader.lineEnd());
+        }
+    }
+}
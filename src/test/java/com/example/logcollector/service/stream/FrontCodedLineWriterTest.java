@@ -0,0 +1,119 @@
+package com.example.logcollector.service.stream;
+
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrontCodedLineWriterTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private void writeLine(LineWriter writer, String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        writer.writeLine(buffer, 0, buffer.limit());
+    }
+
+    /**
+     * Decodes a stream the way a client would, returning the lines followed by the JSON of the other records.
+     */
+    private List<String> decode(byte[] bytes) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        List<String> records = new ArrayList<>();
+        byte[] previous = new byte[0];
+        int type;
+        while ((type = in.read()) != -1) {
+            if (type == FrontCodedLineWriter.LINE) {
+                int shared = readVarint(in);
+                byte[] line = Arrays.copyOf(previous, shared + readVarint(in));
+                in.readNBytes(line, shared, line.length - shared);
+                records.add(new String(line, StandardCharsets.UTF_8));
+                previous = line;
+            } else {
+                records.add(new String(in.readNBytes(readVarint(in)), StandardCharsets.UTF_8));
+            }
+        }
+        return records;
+    }
+
+    private static int readVarint(ByteArrayInputStream in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    @Test
+    public void writeLine_sharedPrefixes_roundTrips() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FrontCodedLineWriter writer = new FrontCodedLineWriter(out, 16);
+        List<String> lines = List.of(
+                "May  1 10:00:02 web01 sshd[22]: Accepted \"key\" for é",
+                "May  1 10:00:02 web01 sshd[22]: Accepted",
+                "May  1 10:00:01 web01 cron[33]: " + "x".repeat(300),
+                "",
+                "other");
+
+        for (String line : lines) {
+            writeLine(writer, line);
+        }
+        writeLine(writer, "  padded\t\r");
+        writer.writeTrailer(ListEntriesResponse.builder().hasMore(false).nextOffset(6L).build());
+        writer.flush();
+
+        List<String> records = decode(out.toByteArray());
+        assertEquals(lines, records.subList(0, 5));
+        assertEquals("padded", records.get(5));
+        JsonNode trailer = mapper.readTree(records.get(6));
+        assertEquals(6, trailer.get("nextOffset").asLong());
+        assertTrue(!trailer.has("logs"));
+    }
+
+    @Test
+    public void writeLine_withFields_writesFieldsRecord() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FrontCodedLineWriter writer = new FrontCodedLineWriter(out, 1024);
+        ByteBuffer buffer = ByteBuffer.wrap("sshd: failed".getBytes(StandardCharsets.UTF_8));
+
+        writer.writeLine(buffer, 0, buffer.limit(), Map.of("program", "sshd"));
+        writer.flush();
+
+        List<String> records = decode(out.toByteArray());
+        assertEquals("sshd: failed", records.get(0));
+        assertEquals("sshd", mapper.readTree(records.get(1)).get("program").asText());
+    }
+
+    @Test
+    public void writeLine_syslogLines_isSmallerThanNdjson() throws IOException {
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        LineWriter compactWriter = new FrontCodedLineWriter(compact, 4096);
+        LineWriter ndjsonWriter = new NdjsonLineWriter(ndjson, 4096);
+        for (int i = 0; i < 1000; i++) {
+            String line = String.format("May  1 10:%02d:%02d web01 sshd[%d]: Failed password for \"user%d\" from 10.0.0.%d",
+                    59 - i / 60 % 60, 59 - i % 60, 2000 + i % 7, i % 13, i % 250);
+            writeLine(compactWriter, line);
+            writeLine(ndjsonWriter, line);
+        }
+        compactWriter.flush();
+        ndjsonWriter.flush();
+
+        assertTrue(compact.size() < ndjson.size() * 0.8, compact.size() + " compact bytes, " + ndjson.size() + " NDJSON bytes");
+    }
+}
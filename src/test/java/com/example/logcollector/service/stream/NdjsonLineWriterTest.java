@@ -0,0 +1,91 @@
+package com.example.logcollector.service.stream;
+
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class NdjsonLineWriterTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private void writeLine(NdjsonLineWriter writer, String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        writer.writeLine(buffer, 0, buffer.limit());
+    }
+
+    @Test
+    public void writeLine_escapesAndTrims_returnsValidJson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NdjsonLineWriter writer = new NdjsonLineWriter(out, 16);
+
+        writeLine(writer, "  say \"hi\" to C:\\temp\tnow é\r");
+        writer.flush();
+
+        JsonNode node = mapper.readTree(out.toString(StandardCharsets.UTF_8));
+        assertEquals("say \"hi\" to C:\\temp\tnow é", node.get("line").asText());
+    }
+
+    @Test
+    public void writeLine_malformedUtf8_replacesLikeStringDecoding() throws IOException {
+        byte[] line = {'b', 'a', 'd', ' ', (byte) 0xFF, ' ', (byte) 0xC3, '(', ' ', (byte) 0xE2, (byte) 0x82,
+                ' ', (byte) 0xC3, (byte) 0xA9, ' ', (byte) 0xED, (byte) 0xA0, (byte) 0x80, ' ', (byte) 0xE2, (byte) 0x82};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NdjsonLineWriter writer = new NdjsonLineWriter(out, 8);
+
+        writer.writeLine(ByteBuffer.wrap(line), 0, line.length);
+        writer.flush();
+
+        byte[] written = out.toByteArray();
+        // a strict decoder throws on anything that is not valid UTF-8
+        StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(written));
+        JsonNode node = mapper.readTree(written);
+        assertEquals(new String(line, StandardCharsets.UTF_8), node.get("line").asText());
+    }
+
+    @Test
+    public void writeLine_withFields_writesFieldsObject() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NdjsonLineWriter writer = new NdjsonLineWriter(out, 1024);
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("program", "sshd");
+        fields.put("reason", "bad \"password\"");
+
+        ByteBuffer buffer = ByteBuffer.wrap("sshd: failed".getBytes(StandardCharsets.UTF_8));
+        writer.writeLine(buffer, 0, buffer.limit(), fields);
+        writer.flush();
+
+        JsonNode node = mapper.readTree(out.toString(StandardCharsets.UTF_8));
+        assertEquals("sshd: failed", node.get("line").asText());
+        assertEquals("sshd", node.get("fields").get("program").asText());
+        assertEquals("bad \"password\"", node.get("fields").get("reason").asText());
+    }
+
+    @Test
+    public void writeTrailer_leavesOutNullFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NdjsonLineWriter writer = new NdjsonLineWriter(out, 1024);
+
+        writeLine(writer, "first");
+        writeLine(writer, "second");
+        writer.writeTrailer(ListEntriesResponse.builder().hasMore(false).nextOffset(2L).build());
+        writer.flush();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("second", mapper.readTree(lines[1]).get("line").asText());
+        JsonNode trailer = mapper.readTree(lines[2]);
+        assertEquals(2, trailer.get("nextOffset").asLong());
+        assertFalse(trailer.has("logs"));
+        assertFalse(trailer.has("nextCursor"));
+    }
+}
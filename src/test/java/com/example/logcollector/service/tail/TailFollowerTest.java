@@ -0,0 +1,203 @@
+package com.example.logcollector.service.tail;
+
+import com.example.logcollector.constants.Constants;
+import com.example.logcollector.model.logs.ListEntriesResponse;
+import com.example.logcollector.service.matcher.LineMatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class TailFollowerTest {
+    private TailFollower tailFollower;
+
+    @TempDir
+    private Path tempDir;
+
+    private File file;
+
+    @BeforeEach
+    public void init() throws IOException {
+        tailFollower = new TailFollower(Runnable::run, Constants.TAIL_MAX_QUEUED_LINES);
+        file = tempDir.resolve("test.log").toFile();
+        append("1 INFO first\n2 ERROR second\n");
+    }
+
+    private void append(String content) throws IOException {
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write(content);
+        }
+    }
+
+    private static List<Object> sentData(SseEmitter emitter) throws IOException {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> captor = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, atLeastOnce()).send(captor.capture());
+        return captor.getAllValues().stream()
+                .flatMap(builder -> builder.build().stream())
+                .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                .filter(data -> !(data instanceof String))
+                .toList();
+    }
+
+    @Test
+    public void subscribe_partialLastLine_startsAfterLastCompleteLine() throws IOException {
+        append("3 INFO par");
+        TailSubscription subscription = tailFollower.subscribe(file, LineMatcher.MATCH_ALL, mock(SseEmitter.class));
+        assertEquals(file.length() - "3 INFO par".length(), subscription.getStartPosition());
+    }
+
+    @Test
+    public void poll_appendedLines_sendsPageThenNewLines() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        TailSubscription subscription = tailFollower.subscribe(file, LineMatcher.MATCH_ALL, emitter);
+        append("3 INFO third\n4 ERROR fourth\n5 INFO par");
+
+        // lines appended before the page was sent are held back until after it
+        tailFollower.poll();
+        verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+        ListEntriesResponse page = ListEntriesResponse.builder().logs(List.of("2 ERROR second", "1 INFO first")).build();
+        subscription.start(page);
+
+        append("tial\n");
+        tailFollower.poll();
+
+        List<Object> sent = sentData(emitter);
+        assertEquals(3, sent.size());
+        assertEquals(page, sent.get(0));
+        assertEquals(List.of("3 INFO third", "4 ERROR fourth"), sent.get(1));
+        assertEquals(List.of("5 INFO partial"), sent.get(2));
+    }
+
+    @Test
+    public void poll_multipleSubscribers_appliesEachMatcher() throws IOException {
+        SseEmitter all = mock(SseEmitter.class);
+        SseEmitter errors = mock(SseEmitter.class);
+        tailFollower.subscribe(file, LineMatcher.MATCH_ALL, all).start(ListEntriesResponse.builder().build());
+        tailFollower.subscribe(file, LineMatcher.forSearchTerm("error"), errors).start(ListEntriesResponse.builder().build());
+        append("3 INFO third\n4 ERROR fourth\n");
+
+        tailFollower.poll();
+
+        assertEquals(List.of("3 INFO third", "4 ERROR fourth"), sentData(all).get(1));
+        assertEquals(List.of("4 ERROR fourth"), sentData(errors).get(1));
+    }
+
+    @Test
+    public void poll_fileTruncated_followsFromStart() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        tailFollower.subscribe(file, LineMatcher.MATCH_ALL, emitter).start(ListEntriesResponse.builder().build());
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("new\n");
+        }
+
+        tailFollower.poll();
+
+        assertEquals(List.of("new"), sentData(emitter).get(1));
+    }
+
+    @Test
+    public void poll_clientGone_removesSubscription() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        TailSubscription subscription = tailFollower.subscribe(file, LineMatcher.MATCH_ALL, emitter);
+        doThrow(new IOException("broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        subscription.start(ListEntriesResponse.builder().build());
+
+        assertTrue(subscription.isClosed());
+        tailFollower.poll();
+        assertEquals(0, tailFollower.subscriberCount());
+    }
+
+    @Test
+    public void subscribe_concurrentlyPastLimit_admitsOnlyLimit() throws Exception {
+        int attempts = Constants.MAX_TAIL_SUBSCRIBERS + 64;
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<TailSubscription> subscriptions = new CopyOnWriteArrayList<>();
+        try (ExecutorService subscribers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < attempts; i++) {
+                subscribers.execute(() -> {
+                    try {
+                        ready.await();
+                        subscriptions.add(tailFollower.subscribe(file, LineMatcher.MATCH_ALL, mock(SseEmitter.class)));
+                    } catch (ResponseStatusException e) {
+                        rejected.incrementAndGet();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            }
+            ready.countDown();
+        }
+
+        assertEquals(Constants.MAX_TAIL_SUBSCRIBERS, subscriptions.size());
+        assertEquals(attempts - Constants.MAX_TAIL_SUBSCRIBERS, rejected.get());
+        assertEquals(Constants.MAX_TAIL_SUBSCRIBERS, tailFollower.subscriberCount());
+
+        // a client that goes away frees its slot without waiting for the next poll
+        subscriptions.getFirst().close();
+        subscriptions.getFirst().close();
+        assertEquals(Constants.MAX_TAIL_SUBSCRIBERS - 1, tailFollower.subscriberCount());
+        tailFollower.subscribe(file, LineMatcher.MATCH_ALL, mock(SseEmitter.class));
+        assertThrows(ResponseStatusException.class, () -> tailFollower.subscribe(file, LineMatcher.MATCH_ALL, mock(SseEmitter.class)));
+    }
+
+    @Test
+    public void poll_slowClient_isDisconnectedWithoutHoldingUpOthers() throws Exception {
+        ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+        TailFollower follower = new TailFollower(sender, 2);
+        CountDownLatch unblock = new CountDownLatch(1);
+        SseEmitter slow = mock(SseEmitter.class);
+        doAnswer(invocation -> {
+            unblock.await();
+            return null;
+        }).when(slow).send(any(SseEmitter.SseEventBuilder.class));
+        SseEmitter fast = mock(SseEmitter.class);
+        TailSubscription slowSubscription = follower.subscribe(file, LineMatcher.MATCH_ALL, slow);
+        slowSubscription.start(ListEntriesResponse.builder().build());
+        TailSubscription fastSubscription = follower.subscribe(file, LineMatcher.MATCH_ALL, fast);
+        fastSubscription.start(ListEntriesResponse.builder().build());
+        verify(fast, timeout(1000).times(1)).send(any(SseEmitter.SseEventBuilder.class));
+
+        // the slow client is stuck writing its page, its lines queue up until it is too far behind
+        for (int i = 3; i < 6; i++) {
+            append(i + " INFO line\n");
+            follower.poll();
+            verify(fast, timeout(1000).times(i - 1)).send(any(SseEmitter.SseEventBuilder.class));
+        }
+
+        assertTrue(slowSubscription.isClosed());
+        assertFalse(fastSubscription.isClosed());
+        unblock.countDown();
+        verify(slow, timeout(1000)).complete();
+        sender.shutdown();
+        assertTrue(sender.awaitTermination(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.logcollector.service.time;
+
+import com.example.logcollector.index.ScanRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeWindowTest {
+    private static final Instant START = Instant.parse("2024-05-01T00:00:00Z");
+    private static final TimestampParser PARSER = new IsoTimestampParser(ZoneOffset.UTC);
+
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * One line per second for a day, every 7th line a second out of order and every 5th a continuation line.
+     */
+    private File writeDay() throws IOException {
+        File file = tempDir.resolve("app.log").toFile();
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int second = 0; second < 24 * 60 * 60; second++) {
+                Instant time = START.plusSeconds(second % 7 == 0 ? second - 1 : second);
+                writer.write(time + " INFO request " + second + "\n");
+                if (second % 5 == 0) {
+                    writer.write("    at com.example.Handler.handle(Handler.java:42)\n");
+                }
+            }
+        }
+        return file;
+    }
+
+    @Test
+    public void locate_range_coversEveryLineInRange() throws IOException {
+        File file = writeDay();
+        TimeRange range = new TimeRange(START.plusSeconds(2 * 3600 + 600).toEpochMilli(), START.plusSeconds(2 * 3600 + 1500).toEpochMilli());
+
+        ScanRange window = TimeWindow.locate(file, PARSER, range, file.length());
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        long position = 0;
+        for (String line : lines) {
+            if (line.startsWith("2024") && range.contains(Instant.parse(line.substring(0, 20)).toEpochMilli())) {
+                assertTrue(position >= window.start() && position < window.end(), line);
+            }
+            position += line.length() + 1;
+        }
+        // 15 minutes of a day plus the slack and the last probe on each side
+        assertTrue(window.end() - window.start() < file.length() / 50);
+    }
+
+    @Test
+    public void locate_openEnds_returnsWholeFile() throws IOException {
+        File file = writeDay();
+
+        ScanRange window = TimeWindow.locate(file, PARSER, new TimeRange(Long.MIN_VALUE, Long.MAX_VALUE), file.length());
+
+        assertEquals(new ScanRange(0, file.length()), window);
+    }
+
+    @Test
+    public void locate_noTimestamps_returnsWholeFile() throws IOException {
+        File file = tempDir.resolve("plain.log").toFile();
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int i = 0; i < 100_000; i++) {
+                writer.write("line without a timestamp " + i + "\n");
+            }
+        }
+
+        ScanRange window = TimeWindow.locate(file, PARSER, new TimeRange(0, 1), file.length());
+
+        assertEquals(new ScanRange(0, file.length()), window);
+    }
+
+    @Test
+    public void parse_isoAndEpochMillis_returnsRange() {
+        assertNull(TimeRange.parse(null, " ", ZoneOffset.UTC));
+        TimeRange range = TimeRange.parse("2024-05-01T02:10:00", "1714529700000", ZoneOffset.UTC);
+        assertEquals(Instant.parse("2024-05-01T02:10:00Z").toEpochMilli(), range.from());
+        assertEquals(Instant.parse("2024-05-01T02:15:00Z").toEpochMilli(), range.to());
+        assertEquals(Instant.parse("2024-05-01T00:10:00Z").toEpochMilli(), TimeRange.parse("2024-05-01T02:10:00+02:00", null, ZoneOffset.UTC).from());
+        assertEquals(Long.MAX_VALUE, TimeRange.parse("2024-05-01T02:10:00Z", null, ZoneOffset.UTC).to());
+    }
+
+    @Test
+    public void parse_invalidOrReversed_throwsBadRequest() {
+        assertEquals(400, assertThrows(ResponseStatusException.class,
+                () -> TimeRange.parse("yesterday", null, ZoneOffset.UTC)).getStatusCode().value());
+        assertEquals(400, assertThrows(ResponseStatusException.class,
+                () -> TimeRange.parse("2024-05-01T03:00:00Z", "2024-05-01T02:00:00Z", ZoneOffset.UTC)).getStatusCode().value());
+    }
+}
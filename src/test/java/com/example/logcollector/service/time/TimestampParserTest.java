@@ -0,0 +1,111 @@
+package com.example.logcollector.service.time;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.TextStyle;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TimestampParserTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-03-10T12:00:00Z"), ZoneOffset.UTC);
+
+    private long parse(TimestampParser parser, String line) {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        return parser.parse(buffer, 0, buffer.limit());
+    }
+
+    @Test
+    public void iso_withOffsetAndFraction_returnsInstant() {
+        TimestampParser parser = new IsoTimestampParser(ZoneOffset.UTC);
+        assertEquals(Instant.parse("2024-05-01T10:30:00.123Z").toEpochMilli(),
+                parse(parser, "2024-05-01T12:30:00.123+02:00 app started"));
+        assertEquals(Instant.parse("2024-05-01T12:30:00Z").toEpochMilli(), parse(parser, "[2024-05-01 12:30:00] app started"));
+    }
+
+    @Test
+    public void iso_notATimestamp_returnsNoTimestamp() {
+        TimestampParser parser = new IsoTimestampParser(ZoneOffset.UTC);
+        assertEquals(TimestampParser.NO_TIMESTAMP, parse(parser, "2024-02-30T12:30:00 impossible day"));
+        assertEquals(TimestampParser.NO_TIMESTAMP, parse(parser, "at 2024-05-01T12:30:00"));
+    }
+
+    @Test
+    public void syslog_paddedDay_returnsCurrentYear() {
+        TimestampParser parser = new SyslogTimestampParser(CLOCK);
+        assertEquals(Instant.parse("2024-03-05T08:01:02Z").toEpochMilli(), parse(parser, "Mar  5 08:01:02 host sshd[1]: ok"));
+    }
+
+    @Test
+    public void syslog_dateAfterNow_returnsLastYear() {
+        TimestampParser parser = new SyslogTimestampParser(CLOCK);
+        assertEquals(Instant.parse("2023-12-31T23:59:59Z").toEpochMilli(), parse(parser, "Dec 31 23:59:59 host kernel: ok"));
+    }
+
+    @Test
+    public void syslog_daylightSavingZone_matchesZoneRules() {
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+        for (String now : List.of("2024-07-01T12:00:00Z", "2024-10-27T00:30:00Z", "2025-01-01T00:00:00Z")) {
+            Clock clock = Clock.fixed(Instant.parse(now), zone);
+            TimestampParser parser = new SyslogTimestampParser(clock);
+            int year = LocalDateTime.now(clock).getYear();
+            // every hour of two years, including the skipped and repeated hours of the daylight saving changes
+            for (LocalDateTime time = LocalDateTime.of(year - 1, 1, 1, 0, 30, 15); time.getYear() <= year; time = time.plusMinutes(61)) {
+                String line = String.format("%s %2d %02d:%02d:%02d host app: ok",
+                        time.getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH), time.getDayOfMonth(), time.getHour(), time.getMinute(), time.getSecond());
+                assertEquals(withZoneRules(clock, year, time), parse(parser, line), line + " at " + now);
+            }
+        }
+    }
+
+    private static long withZoneRules(Clock clock, int year, LocalDateTime time) {
+        try {
+            long timestamp = toEpochMillis(clock, year, time);
+            return timestamp > clock.millis() + 24 * 60 * 60 * 1000 ? toEpochMillis(clock, year - 1, time) : timestamp;
+        } catch (DateTimeException e) {
+            return TimestampParser.NO_TIMESTAMP;
+        }
+    }
+
+    private static long toEpochMillis(Clock clock, int year, LocalDateTime time) {
+        return LocalDateTime.of(year, time.getMonth(), time.getDayOfMonth(), time.getHour(), time.getMinute(), time.getSecond())
+                .atZone(clock.getZone()).toEpochSecond() * 1000;
+    }
+
+    @Test
+    public void syslog_leapDayOutsideLeapYear_returnsNoTimestamp() {
+        TimestampParser parser = new SyslogTimestampParser(Clock.fixed(Instant.parse("2023-06-01T00:00:00Z"), ZoneOffset.UTC));
+        assertEquals(TimestampParser.NO_TIMESTAMP, parse(parser, "Feb 29 08:01:02 host kernel: ok"));
+    }
+
+    @Test
+    public void composite_triesParsersInOrder() {
+        TimestampParser parser = new CompositeTimestampParser(List.of(new IsoTimestampParser(ZoneOffset.UTC), new SyslogTimestampParser(CLOCK)));
+        assertEquals(Instant.parse("2024-03-05T08:01:02Z").toEpochMilli(), parse(parser, "Mar  5 08:01:02 host"));
+        assertEquals(TimestampParser.NO_TIMESTAMP, parse(parser, "no timestamp here"));
+    }
+
+    @Test
+    public void journald_shortUnixAndJson_returnsInstant() {
+        TimestampParser parser = new JournaldTimestampParser();
+        assertEquals(1709553662123L, parse(parser, "1709553662.123456 host sshd[1]: ok"));
+        assertEquals(1709553662123L, parse(parser, "{\"MESSAGE\" : \"ok\", \"__REALTIME_TIMESTAMP\" : \"1709553662123456\"}"));
+        assertEquals(TimestampParser.NO_TIMESTAMP, parse(parser, "42 ERROR not an epoch"));
+    }
+
+    @Test
+    public void forFormat_unknownFormat_throws() {
+        assertEquals(TimestampParser.DEFAULT, TimestampParser.forFormat(null));
+        assertThrows(IllegalArgumentException.class, () -> TimestampParser.forFormat("apache"));
+    }
+}
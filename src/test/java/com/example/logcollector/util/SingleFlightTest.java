@@ -0,0 +1,100 @@
+package com.example.logcollector.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    public void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void execute_concurrentSameKey_runsTaskOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                calls.incrementAndGet();
+                release.await();
+                return "result";
+            })));
+        }
+        // let every caller reach the in flight call before it finishes
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            assertEquals("result", future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    public void execute_differentKeys_runsEachTask() throws Exception {
+        assertEquals("a", singleFlight.execute("a", () -> "a"));
+        assertEquals("b", singleFlight.execute("b", () -> "b"));
+    }
+
+    @Test
+    public void execute_taskThrows_sharesError() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            release.await();
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "missing");
+        }));
+        started.await();
+        Future<String> follower = executor.submit(() -> singleFlight.execute("key", () -> "should not run"));
+        Thread.sleep(100);
+        release.countDown();
+
+        Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(leaderError.getCause() instanceof ResponseStatusException);
+        assertTrue(followerError.getCause() instanceof ResponseStatusException);
+    }
+
+    @Test
+    public void execute_leaderInterrupted_followerRunsTaskAgain() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            Thread.sleep(10_000);
+            return "abandoned";
+        }));
+        started.await();
+        Future<String> follower = executor.submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return "retried";
+        }));
+        Thread.sleep(100);
+        leader.cancel(true);
+
+        assertEquals("retried", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(2, calls.get());
+    }
+}
@@ -4,11 +4,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TimeoutExecutorTest {
 
@@ -32,4 +34,70 @@ public class TimeoutExecutorTest {
             return "test";
         }, 500, TimeUnit.MILLISECONDS));
     }
+
+    @Test
+    public void runWithDeadline_timeout_cancelsDeadline() {
+        Deadline deadline = Deadline.after(50, TimeUnit.MILLISECONDS);
+        CountDownLatch release = new CountDownLatch(1);
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> timeoutExecutor.runWithDeadline(() -> release.await(5, TimeUnit.SECONDS), deadline));
+        assertEquals(408, exception.getStatusCode().value());
+        assertTrue(deadline.isCancelled());
+        release.countDown();
+    }
+
+    @Test
+    public void runWithTimeout_virtualThreads_runsOnVirtualThread() {
+        TimeoutExecutor virtualExecutor = new TimeoutExecutor(true, 4, 100);
+        assertTrue(virtualExecutor.runWithTimeout(() -> Thread.currentThread().isVirtual(), 1, TimeUnit.SECONDS));
+        virtualExecutor.shutdown();
+    }
+
+    @Test
+    public void runWithTimeout_admissionLimitReached_throwsTooManyRequests() throws Exception {
+        TimeoutExecutor boundedExecutor = new TimeoutExecutor(true, 1, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread busy = Thread.ofVirtual().start(() -> boundedExecutor.runWithTimeout(() -> {
+            release.await();
+            return "done";
+        }, 5, TimeUnit.SECONDS));
+        while (boundedExecutor.availablePermits() > 0) {
+            Thread.sleep(10);
+        }
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> boundedExecutor.runWithTimeout(() -> "rejected", 1, TimeUnit.SECONDS));
+        assertEquals(429, exception.getStatusCode().value());
+        assertEquals(1, boundedExecutor.activeTasks());
+        assertEquals(1, boundedExecutor.rejectedTasks());
+
+        release.countDown();
+        busy.join();
+        assertEquals("accepted", boundedExecutor.runWithTimeout(() -> "accepted", 1, TimeUnit.SECONDS));
+        assertEquals(2, boundedExecutor.admittedTasks());
+        boundedExecutor.shutdown();
+    }
+
+    @Test
+    public void runWithTimeout_timedOutTaskStillRunning_keepsPermitUntilItFinishes() throws Exception {
+        TimeoutExecutor boundedExecutor = new TimeoutExecutor(false, 1, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        assertThrows(ResponseStatusException.class, () -> boundedExecutor.runWithTimeout(() -> {
+            // ignores interruption like a scan stuck in I/O would
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+            return "late";
+        }, 50, TimeUnit.MILLISECONDS));
+        assertEquals(0, boundedExecutor.availablePermits());
+
+        release.countDown();
+        while (boundedExecutor.availablePermits() == 0) {
+            Thread.sleep(10);
+        }
+        boundedExecutor.shutdown();
+    }
 }
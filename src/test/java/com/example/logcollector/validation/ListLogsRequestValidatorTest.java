@@ -1,11 +1,15 @@
 package com.example.logcollector.validation;
 
+import com.example.logcollector.model.logs.AggregateLogsRequest;
 import com.example.logcollector.model.logs.ListEntriesRequest;
+import com.example.logcollector.model.logs.ListFilesRequest;
+import com.example.logcollector.model.logs.SearchLogsRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,4 +37,58 @@ public class ListLogsRequestValidatorTest {
         assertEquals(400, exception.getStatusCode().value());
         assertTrue(Objects.requireNonNull(exception.getReason()).contains("Limit must be between 1 and 1000"));
     }
+
+    @Test
+    public void validate_unknownTimestampFormat_throwsError() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> validator.validate(ListEntriesRequest.builder().timestampFormat("apache").build()));
+        assertEquals(400, exception.getStatusCode().value());
+        assertTrue(Objects.requireNonNull(exception.getReason()).contains("Timestamp format must be one of"));
+    }
+
+    @Test
+    public void validate_filesWithInvalidPaging_throwsError() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> validator.validate(ListFilesRequest.builder().sort("owner").build()));
+        assertEquals(400, exception.getStatusCode().value());
+        assertThrows(ResponseStatusException.class, () -> validator.validate(ListFilesRequest.builder().limit(0).build()));
+        assertThrows(ResponseStatusException.class, () -> validator.validate(ListFilesRequest.builder().offset(-1L).build()));
+        assertThrows(ResponseStatusException.class, () -> validator.validate(ListFilesRequest.builder().order("up").build()));
+        validator.validate(ListFilesRequest.builder().recursive(true).sort("modified").order("asc").limit(50).offset(100L).build());
+    }
+
+    @Test
+    public void validate_invalidFilter_throwsError() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> validator.validate(ListEntriesRequest.builder().filter("severity>=loud").build()));
+        assertEquals(400, exception.getStatusCode().value());
+        assertThrows(ResponseStatusException.class, () -> validator.validate(AggregateLogsRequest.builder().filter("program").build()));
+        validator.validate(ListEntriesRequest.builder().filter("severity>=warn,program=sshd").build());
+    }
+
+    @Test
+    public void validate_nonPositiveMaxBytes_throwsError() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> validator.validate(ListEntriesRequest.builder().maxBytes(0L).build()));
+        assertEquals(400, exception.getStatusCode().value());
+        assertThrows(ResponseStatusException.class, () -> validator.validate(AggregateLogsRequest.builder().maxBytes(-1L).build()));
+        validator.validate(ListEntriesRequest.builder().maxBytes(1L).build());
+    }
+
+    @Test
+    public void validate_aggregateWithInvalidInterval_throwsError() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> validator.validate(AggregateLogsRequest.builder().interval("5 minutes").build()));
+        assertEquals(400, exception.getStatusCode().value());
+        assertThrows(ResponseStatusException.class, () -> validator.validate(AggregateLogsRequest.builder().top(0).build()));
+        assertThrows(ResponseStatusException.class, () -> validator.validate(AggregateLogsRequest.builder().field("a b").build()));
+        validator.validate(AggregateLogsRequest.builder().interval("5m").field("severity").top(10).build());
+    }
+
+    @Test
+    public void validate_searchWithoutFiles_throwsError() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> validator.validate(SearchLogsRequest.builder().fileNames(List.of()).build()));
+        assertEquals(400, exception.getStatusCode().value());
+    }
 }